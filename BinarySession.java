@@ -0,0 +1,141 @@
+package server;
+
+import common.BinaryWeatherCodec;
+import common.GeoSpatialIndex;
+import common.GeoWeatherData;
+import common.WeatherDataManager;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Clasa BinarySession implementează protocolul binar (vezi BinaryWeatherCodec) pentru o singură conexiune.
+ * Conexiunea este negociată prin linia BinaryWeatherCodec.HANDSHAKE trimisă în locul rolului și rămâne deschisă
+ * până când clientul o închide; fiecare cadru de cerere primește unul sau mai multe cadre de răspuns.
+ * Cadrele sunt înregistrate în ServerMetrics sub numele METRIC_NAME, indiferent de tipul cererii.
+ */
+final class BinarySession {
+    // Mesaje de eroare
+    private static final String MESSAGE_UNKNOWN_REQUEST = "Unknown request type."; // Tip de cerere necunoscut
+    private static final String MESSAGE_MALFORMED_REQUEST = "Malformed request."; // Cerere incompletă sau invalidă
+    private static final String METRIC_NAME = "BINARY"; // Numele sub care sunt înregistrate cadrele
+
+    private final WeatherDataManager weatherDataManager; // Managerul datelor meteo
+    private final DataOutputStream output; // Destinația cadrelor de răspuns
+    private final ServerMetrics metrics; // Latențele și erorile cererilor
+    private final BinaryWeatherCodec.FrameBuilder frame = new BinaryWeatherCodec.FrameBuilder(); // Bufferul cadrului curent
+
+    /**
+     * Constructorul clasei BinarySession.
+     * @param weatherDataManager Instanța WeatherDataManager pentru manipularea datelor meteo.
+     * @param outputStream Destinația răspunsurilor; este golită (flush) după fiecare răspuns.
+     * @param metrics Registrul în care sunt înregistrate cererile.
+     */
+    BinarySession(WeatherDataManager weatherDataManager, OutputStream outputStream, ServerMetrics metrics) {
+        this.weatherDataManager = weatherDataManager;
+        this.metrics = metrics;
+        this.output = new DataOutputStream(new BufferedOutputStream(outputStream));
+    }
+
+    /**
+     * Procesează un cadru de cerere.
+     * @param type Tipul cererii.
+     * @param payload Conținutul cadrului.
+     */
+    void onFrame(byte type, ByteBuffer payload) throws IOException {
+        long startNanos = System.nanoTime();
+        boolean failed = false;
+        try {
+            switch (type) {
+                case BinaryWeatherCodec.REQUEST_BY_CITY -> writeLocation(weatherDataManager.findLocationByCity(BinaryWeatherCodec.readShortString(payload)));
+                case BinaryWeatherCodec.REQUEST_CLOSEST -> {
+                    double latitude = BinaryWeatherCodec.decodeCoordinate(payload.getInt());
+                    double longitude = BinaryWeatherCodec.decodeCoordinate(payload.getInt());
+                    writeLocation(weatherDataManager.findClosestLocation(latitude, longitude, payload.getFloat()));
+                }
+                case BinaryWeatherCodec.REQUEST_WITHIN, BinaryWeatherCodec.REQUEST_NEAREST ->
+                        failed = !writeResults(type == BinaryWeatherCodec.REQUEST_WITHIN, payload);
+                default -> {
+                    failed = true;
+                    writeError(MESSAGE_UNKNOWN_REQUEST);
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            failed = true;
+            frame.reset();
+            writeError(MESSAGE_MALFORMED_REQUEST);
+        }
+        output.flush();
+        metrics.record(METRIC_NAME, System.nanoTime() - startNanos, failed);
+    }
+
+    // Trimite locația găsită sau un cadru RESPONSE_NOT_FOUND
+    private void writeLocation(Optional<GeoWeatherData> location) throws IOException {
+        if (location.isPresent()) {
+            BinaryWeatherCodec.writeLocation(frame.data(), location.get());
+            frame.writeTo(output, BinaryWeatherCodec.RESPONSE_LOCATION);
+        } else {
+            frame.writeTo(output, BinaryWeatherCodec.RESPONSE_NOT_FOUND);
+        }
+    }
+
+    /**
+     * Trimite o pagină de rezultate pentru REQUEST_WITHIN sau REQUEST_NEAREST: antetul cu totalul și cursorul
+     * următor, apoi câte un cadru pentru fiecare locație. Pagina continuă căutarea după cheia din cursor, deci nu
+     * reface și nu sortează rezultatele paginilor anterioare; totalul este recalculat, nu preluat de la client.
+     * @param byRadius true pentru căutare în rază, false pentru cele mai apropiate k locații.
+     * @param payload Conținutul cererii.
+     * @return false dacă cursorul este invalid (a fost trimis un cadru de eroare).
+     */
+    private boolean writeResults(boolean byRadius, ByteBuffer payload) throws IOException {
+        double latitude = BinaryWeatherCodec.decodeCoordinate(payload.getInt());
+        double longitude = BinaryWeatherCodec.decodeCoordinate(payload.getInt());
+        double maxDistance;
+        int total;
+        if (byRadius) {
+            maxDistance = payload.getFloat();
+            total = weatherDataManager.countLocationsWithinRadius(latitude, longitude, maxDistance);
+        } else {
+            maxDistance = Double.POSITIVE_INFINITY;
+            total = Math.min(Math.max(0, payload.getInt()), weatherDataManager.getLocationCount());
+        }
+        int limit = payload.getInt(); // 0 sau negativ = fără limită
+        BinaryWeatherCodec.Cursor cursor = BinaryWeatherCodec.Cursor.read(payload);
+        if (cursor.returned() < 0) {
+            writeError(MESSAGE_MALFORMED_REQUEST);
+            return false;
+        }
+
+        int remaining = Math.max(0, total - cursor.returned());
+        GeoSpatialIndex.Page page = weatherDataManager.findLocationPage(latitude, longitude, maxDistance,
+                cursor.hasKey() ? new GeoSpatialIndex.PageKey(cursor.chordSquared(), cursor.position()) : null,
+                limit > 0 ? Math.min(limit, remaining) : remaining);
+        List<GeoSpatialIndex.Neighbor> neighbors = page.neighbors();
+        int returned = cursor.returned() + neighbors.size();
+        BinaryWeatherCodec.Cursor next = returned < total && page.last() != null
+                ? new BinaryWeatherCodec.Cursor(returned, page.last().chordSquared(), page.last().position())
+                : new BinaryWeatherCodec.Cursor(returned, 0, -1); // Nu mai există rezultate
+        frame.data().writeInt(total);
+        next.writeTo(frame.data());
+        frame.data().writeInt(neighbors.size());
+        frame.writeTo(output, BinaryWeatherCodec.RESPONSE_RESULTS);
+        for (GeoSpatialIndex.Neighbor neighbor : neighbors) {
+            frame.data().writeFloat((float) neighbor.distanceKm());
+            BinaryWeatherCodec.writeLocation(frame.data(), neighbor.location());
+            frame.writeTo(output, BinaryWeatherCodec.RESPONSE_RESULT_ITEM);
+        }
+        return true;
+    }
+
+    // Trimite un cadru de eroare
+    private void writeError(String message) throws IOException {
+        BinaryWeatherCodec.writeShortString(frame.data(), message);
+        frame.writeTo(output, BinaryWeatherCodec.RESPONSE_ERROR);
+    }
+}
@@ -0,0 +1,317 @@
+package common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Codificarea protocolului binar, folosită atât de server cât și de clienți.
+ * Clientul trimite linia HANDSHAKE în locul rolului; apoi ambele părți schimbă cadre de forma
+ * [int lungimea conținutului][octet tipul mesajului][conținut]. Coordonatele sunt trimise ca micro-grade (int),
+ * datele ca zile față de o zi de bază, condițiile ca un cod de un octet, iar temperaturile în zecimi de grad (short).
+ * Decodarea se face direct din ByteBuffer, fără să construiască String-uri decât la cerere.
+ */
+public final class BinaryWeatherCodec {
+    // Negociere și limite
+    public static final String HANDSHAKE = "BINARY"; // Prima linie trimisă de client pentru protocolul binar
+    public static final int FRAME_HEADER_SIZE = 5; // Lungimea (4 octeți) + tipul (1 octet)
+    public static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024; // Lungimea maximă a conținutului unui cadru
+
+    // Tipuri de cereri (client -> server)
+    public static final byte REQUEST_BY_CITY = 0x01; // u16 + UTF-8 oraș
+    public static final byte REQUEST_CLOSEST = 0x02; // int lat (µ°), int lon (µ°), float rază (km)
+    public static final byte REQUEST_WITHIN = 0x03; // int lat, int lon, float rază, int limită, Cursor
+    public static final byte REQUEST_NEAREST = 0x04; // int lat, int lon, int k, int limită, Cursor
+
+    // Tipuri de răspunsuri (server -> client)
+    public static final byte RESPONSE_LOCATION = (byte) 0x81; // O înregistrare de locație
+    public static final byte RESPONSE_NOT_FOUND = (byte) 0x82; // Fără conținut
+    public static final byte RESPONSE_ERROR = (byte) 0x83; // u16 + UTF-8 mesaj
+    public static final byte RESPONSE_RESULTS = (byte) 0x84; // int total, Cursor următor, int număr de cadre RESPONSE_RESULT_ITEM care urmează
+    public static final byte RESPONSE_RESULT_ITEM = (byte) 0x85; // float distanță (km) + locație
+
+    // Coduri pentru condițiile meteo frecvente; celelalte sunt trimise literal
+    private static final String[] CONDITIONS = {"Sunny", "Cloudy", "Rainy", "Snow", "Foggy", "Windy", "Stormy", "Partly Cloudy"};
+    public static final int LITERAL_CONDITION = 0xFF; // Condiția urmează ca u8 + UTF-8
+    public static final int UNKNOWN_DAY = 0xFFFF; // Data prognozei nu poate fi codificată și urmează ca u8 + UTF-8
+    private static final double COORDINATE_SCALE = 1_000_000.0; // Micro-grade
+
+    private BinaryWeatherCodec() {
+    }
+
+    /**
+     * Scrie un cadru complet.
+     * @param out Fluxul de ieșire.
+     * @param type Tipul mesajului.
+     * @param payload Conținutul cadrului.
+     * @param length Numărul de octeți din payload care se trimit.
+     */
+    public static void writeFrame(DataOutputStream out, byte type, byte[] payload, int length) throws IOException {
+        out.writeInt(length);
+        out.writeByte(type);
+        out.write(payload, 0, length);
+    }
+
+    // Codifică o coordonată în micro-grade
+    public static int encodeCoordinate(double degrees) {
+        return (int) Math.round(degrees * COORDINATE_SCALE);
+    }
+
+    // Decodifică o coordonată din micro-grade
+    public static double decodeCoordinate(int microDegrees) {
+        return microDegrees / COORDINATE_SCALE;
+    }
+
+    // Scrie un șir ca u16 + UTF-8
+    public static void writeShortString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 0xFFFF);
+        out.writeShort(length);
+        out.write(bytes, 0, length);
+    }
+
+    // Citește un șir scris cu writeShortString
+    public static String readShortString(ByteBuffer in) {
+        int length = Short.toUnsignedInt(in.getShort());
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    // Returnează codul condiției meteo sau LITERAL_CONDITION
+    public static int conditionCode(String condition) {
+        for (int i = 0; i < CONDITIONS.length; i++) {
+            if (CONDITIONS[i].equals(condition)) { // Exact, ca textul decodat să fie identic cu cel trimis
+                return i;
+            }
+        }
+        return LITERAL_CONDITION;
+    }
+
+    // Returnează numele condiției pentru un cod cunoscut
+    public static String conditionName(int code) {
+        return code < CONDITIONS.length ? CONDITIONS[code] : null;
+    }
+
+    /**
+     * Scrie înregistrarea unei locații: coordonate, oraș, țară și prognozele împachetate.
+     * Format: int lat, int lon, u16+oraș, u16+țară, u16 număr prognoze, int zi de bază,
+     * apoi pentru fiecare prognoză: u16 zi relativă [u8+UTF-8 dacă este UNKNOWN_DAY], u8 cod condiție
+     * [u8+UTF-8 dacă este literală], short zecimi de grad.
+     */
+    public static void writeLocation(DataOutputStream out, GeoWeatherData location) throws IOException {
+        out.writeInt(encodeCoordinate(location.getLatitude()));
+        out.writeInt(encodeCoordinate(location.getLongitude()));
+        writeShortString(out, location.getCity());
+        writeShortString(out, location.getCountry());
+
+        // Prognozele sunt citite direct din coloane, fără obiecte DailyForecast și fără interpretarea datelor
+        int count = Math.min(location.getForecastCount(), 0xFFFF);
+        long baseDay = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            long day = location.getForecastEpochDay(i);
+            if (day != GeoWeatherData.NO_EPOCH_DAY) {
+                baseDay = Math.min(baseDay, day);
+            }
+        }
+        if (baseDay == Long.MAX_VALUE) {
+            baseDay = 0;
+        }
+        out.writeShort(count);
+        out.writeInt((int) baseDay);
+        for (int i = 0; i < count; i++) {
+            long day = location.getForecastEpochDay(i);
+            long offset = day == GeoWeatherData.NO_EPOCH_DAY ? UNKNOWN_DAY : day - baseDay;
+            if (offset >= UNKNOWN_DAY) {
+                // Data nu este ISO sau este prea departe de ziua de bază: se trimite textul ei
+                out.writeShort(UNKNOWN_DAY);
+                writeByteString(out, location.getForecastDate(i));
+            } else {
+                out.writeShort((int) offset);
+            }
+            String condition = location.getForecastCondition(i);
+            int code = conditionCode(condition);
+            out.writeByte(code);
+            if (code == LITERAL_CONDITION) {
+                writeByteString(out, condition);
+            }
+            out.writeShort(Math.clamp(DailyForecast.toTenths((float) location.getForecastTemperature(i)), Short.MIN_VALUE, Short.MAX_VALUE));
+        }
+    }
+
+    // Scrie un șir scurt ca u8 + UTF-8
+    private static void writeByteString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 0xFF);
+        out.writeByte(length);
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * Cursorul unei căutări paginate: câte rezultate au fost trimise și cheia ultimului dintre ele (pătratul coardei
+     * și poziția locației), de la care serverul continuă căutarea. Pe fir: int trimise, double coardă², int poziție.
+     * Poziția -1 înseamnă începutul rezultatelor într-o cerere și lipsa altor rezultate într-un răspuns.
+     */
+    public record Cursor(int returned, double chordSquared, int position) {
+        public static final Cursor START = new Cursor(0, 0, -1); // Cursorul primei pagini
+
+        // Cursorul conține cheia unui rezultat după care continuă căutarea
+        public boolean hasKey() {
+            return position >= 0;
+        }
+
+        // Scrie cursorul în conținutul unui cadru
+        public void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(returned);
+            out.writeDouble(chordSquared);
+            out.writeInt(position);
+        }
+
+        // Citește un cursor scris cu writeTo
+        public static Cursor read(ByteBuffer in) {
+            return new Cursor(in.getInt(), in.getDouble(), in.getInt());
+        }
+    }
+
+    /**
+     * Buffer reutilizabil pentru construirea conținutului unui cadru.
+     */
+    public static final class FrameBuilder extends ByteArrayOutputStream {
+        private final DataOutputStream data = new DataOutputStream(this);
+
+        public FrameBuilder() {
+            super(256);
+        }
+
+        // Fluxul de date peste buffer
+        public DataOutputStream data() {
+            return data;
+        }
+
+        // Scrie cadrul construit și golește bufferul
+        public void writeTo(DataOutputStream out, byte type) throws IOException {
+            writeFrame(out, type, buf, count);
+            reset();
+        }
+    }
+
+    /**
+     * Vedere peste înregistrarea unei locații dintr-un ByteBuffer; câmpurile numerice sunt citite direct,
+     * fără obiecte intermediare. Poziția buffer-ului avansează după înregistrare.
+     */
+    public static final class LocationView {
+        private final ByteBuffer buffer; // Bufferul cadrului
+        private final int start; // Începutul înregistrării
+        private final int countryOffset; // Poziția câmpului țară
+        private final int baseDay; // Ziua de bază a prognozelor
+        private final int[] forecastOffsets; // Poziția fiecărei prognoze
+
+        public LocationView(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.start = buffer.position();
+            int position = start + 8;
+            position += 2 + Short.toUnsignedInt(buffer.getShort(position)); // Orașul
+            this.countryOffset = position;
+            position += 2 + Short.toUnsignedInt(buffer.getShort(position)); // Țara
+            int count = Short.toUnsignedInt(buffer.getShort(position));
+            this.baseDay = buffer.getInt(position + 2);
+            position += 6;
+            this.forecastOffsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                forecastOffsets[i] = position;
+                position = conditionOffset(position);
+                int code = Byte.toUnsignedInt(buffer.get(position));
+                position++;
+                if (code == LITERAL_CONDITION) {
+                    position += 1 + Byte.toUnsignedInt(buffer.get(position));
+                }
+                position += 2;
+            }
+            buffer.position(position);
+        }
+
+        public double latitude() {
+            return decodeCoordinate(buffer.getInt(start));
+        }
+
+        public double longitude() {
+            return decodeCoordinate(buffer.getInt(start + 4));
+        }
+
+        // Construiește numele orașului (singura operație care creează un String)
+        public String city() {
+            return stringAt(start + 8);
+        }
+
+        // Construiește numele țării
+        public String country() {
+            return stringAt(countryOffset);
+        }
+
+        public int forecastCount() {
+            return forecastOffsets.length;
+        }
+
+        // Ziua epocii pentru prognoza i, sau GeoWeatherData.NO_EPOCH_DAY dacă data a fost trimisă ca text
+        public long epochDay(int i) {
+            int offset = Short.toUnsignedInt(buffer.getShort(forecastOffsets[i]));
+            return offset == UNKNOWN_DAY ? GeoWeatherData.NO_EPOCH_DAY : (long) baseDay + offset;
+        }
+
+        // Data prognozei i, exact cum a fost trimisă (ISO pentru datele codificate ca zi)
+        public String date(int i) {
+            int position = forecastOffsets[i];
+            int offset = Short.toUnsignedInt(buffer.getShort(position));
+            if (offset != UNKNOWN_DAY) {
+                return LocalDate.ofEpochDay((long) baseDay + offset).toString();
+            }
+            int length = Byte.toUnsignedInt(buffer.get(position + 2));
+            return new String(buffer.array(), buffer.arrayOffset() + position + 3, length, StandardCharsets.UTF_8);
+        }
+
+        // Codul condiției pentru prognoza i (LITERAL_CONDITION pentru condiții necodificate)
+        public int conditionCode(int i) {
+            return Byte.toUnsignedInt(buffer.get(conditionOffset(forecastOffsets[i])));
+        }
+
+        // Numele condiției pentru prognoza i
+        public String condition(int i) {
+            int code = conditionCode(i);
+            if (code != LITERAL_CONDITION) {
+                return conditionName(code);
+            }
+            int position = conditionOffset(forecastOffsets[i]) + 1;
+            int length = Byte.toUnsignedInt(buffer.get(position));
+            return new String(buffer.array(), buffer.arrayOffset() + position + 1, length, StandardCharsets.UTF_8);
+        }
+
+        // Temperatura în grade Celsius pentru prognoza i
+        public float temperature(int i) {
+            int position = conditionOffset(forecastOffsets[i]) + 1;
+            if (conditionCode(i) == LITERAL_CONDITION) {
+                position += 1 + Byte.toUnsignedInt(buffer.get(position));
+            }
+            return buffer.getShort(position) / 10f;
+        }
+
+        // Poziția codului condiției într-o prognoză care începe la position (după data ei, eventual literală)
+        private int conditionOffset(int position) {
+            if (Short.toUnsignedInt(buffer.getShort(position)) == UNKNOWN_DAY) {
+                return position + 3 + Byte.toUnsignedInt(buffer.get(position + 2));
+            }
+            return position + 2;
+        }
+
+        private String stringAt(int position) {
+            int length = Short.toUnsignedInt(buffer.getShort(position));
+            return new String(buffer.array(), buffer.arrayOffset() + position + 2, length, StandardCharsets.UTF_8);
+        }
+    }
+}
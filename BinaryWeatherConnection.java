@@ -0,0 +1,182 @@
+package client;
+
+import common.BinaryWeatherCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Conexiune către PinkWeatherServer care folosește protocolul binar (vezi BinaryWeatherCodec).
+ * Răspunsurile sunt decodate direct din cadre, prin BinaryWeatherCodec.LocationView, fără să fie
+ * transformate mai întâi în text.
+ */
+public class BinaryWeatherConnection implements Closeable {
+    private static final String ERROR_SERVER = "Server error: "; // Prefix pentru erorile trimise de server
+    private static final String ERROR_UNEXPECTED_FRAME = "Unexpected response type: "; // Tip de răspuns neașteptat
+
+    private final Socket socket; // Socket-ul către server
+    private final DataOutputStream output; // Scrierea cadrelor de cerere
+    private final DataInputStream input; // Citirea cadrelor de răspuns
+    private final BinaryWeatherCodec.FrameBuilder frame = new BinaryWeatherCodec.FrameBuilder(); // Bufferul cererii curente
+
+    /**
+     * Deschide conexiunea și negociază protocolul binar.
+     * @param host Adresa serverului.
+     * @param port Portul serverului.
+     */
+    public BinaryWeatherConnection(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        output.write((BinaryWeatherCodec.HANDSHAKE + "\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Cere prognoza pentru un oraș.
+     * @param city Numele orașului.
+     * @param consumer Primește locația găsită; nu este apelat dacă orașul nu există.
+     * @return true dacă orașul a fost găsit.
+     */
+    public boolean weatherByCity(String city, Consumer<BinaryWeatherCodec.LocationView> consumer) throws IOException {
+        BinaryWeatherCodec.writeShortString(frame.data(), city);
+        frame.writeTo(output, BinaryWeatherCodec.REQUEST_BY_CITY);
+        output.flush();
+        return readLocation(consumer);
+    }
+
+    /**
+     * Cere prognoza pentru locația cea mai apropiată de coordonate.
+     * @param latitude Latitudinea.
+     * @param longitude Longitudinea.
+     * @param radiusKm Raza de căutare (nepozitivă = fără limită).
+     * @param consumer Primește locația găsită.
+     * @return true dacă s-a găsit o locație în rază.
+     */
+    public boolean closestLocation(double latitude, double longitude, float radiusKm,
+                                   Consumer<BinaryWeatherCodec.LocationView> consumer) throws IOException {
+        frame.data().writeInt(BinaryWeatherCodec.encodeCoordinate(latitude));
+        frame.data().writeInt(BinaryWeatherCodec.encodeCoordinate(longitude));
+        frame.data().writeFloat(radiusKm);
+        frame.writeTo(output, BinaryWeatherCodec.REQUEST_CLOSEST);
+        output.flush();
+        return readLocation(consumer);
+    }
+
+    /**
+     * Cere locațiile dintr-o rază, sortate după distanță, și le transmite pe măsură ce sosesc.
+     * @param latitude Latitudinea.
+     * @param longitude Longitudinea.
+     * @param radiusKm Raza de căutare.
+     * @param limit Numărul maxim de locații (0 = fără limită).
+     * @param cursor Cursorul returnat de pagina anterioară (BinaryWeatherCodec.Cursor.START pentru prima pagină).
+     * @param consumer Primește fiecare locație, împreună cu distanța în kilometri.
+     * @return Cursorul pentru pagina următoare, sau null dacă nu mai există rezultate.
+     */
+    public BinaryWeatherCodec.Cursor locationsWithin(double latitude, double longitude, float radiusKm, int limit,
+                                                     BinaryWeatherCodec.Cursor cursor, ResultConsumer consumer) throws IOException {
+        frame.data().writeInt(BinaryWeatherCodec.encodeCoordinate(latitude));
+        frame.data().writeInt(BinaryWeatherCodec.encodeCoordinate(longitude));
+        frame.data().writeFloat(radiusKm);
+        return requestResults(BinaryWeatherCodec.REQUEST_WITHIN, limit, cursor, consumer);
+    }
+
+    /**
+     * Cere cele mai apropiate k locații, sortate după distanță, și le transmite pe măsură ce sosesc.
+     * @param latitude Latitudinea.
+     * @param longitude Longitudinea.
+     * @param count Numărul de locații (k).
+     * @param limit Numărul maxim de locații din pagină (0 = fără limită).
+     * @param cursor Cursorul returnat de pagina anterioară (BinaryWeatherCodec.Cursor.START pentru prima pagină).
+     * @param consumer Primește fiecare locație, împreună cu distanța în kilometri.
+     * @return Cursorul pentru pagina următoare, sau null dacă nu mai există rezultate.
+     */
+    public BinaryWeatherCodec.Cursor nearestLocations(double latitude, double longitude, int count, int limit,
+                                                      BinaryWeatherCodec.Cursor cursor, ResultConsumer consumer) throws IOException {
+        frame.data().writeInt(BinaryWeatherCodec.encodeCoordinate(latitude));
+        frame.data().writeInt(BinaryWeatherCodec.encodeCoordinate(longitude));
+        frame.data().writeInt(count);
+        return requestResults(BinaryWeatherCodec.REQUEST_NEAREST, limit, cursor, consumer);
+    }
+
+    // Completează cererea paginată începută în frame, o trimite și citește pagina de rezultate
+    private BinaryWeatherCodec.Cursor requestResults(byte type, int limit, BinaryWeatherCodec.Cursor cursor,
+                                                     ResultConsumer consumer) throws IOException {
+        frame.data().writeInt(limit);
+        cursor.writeTo(frame.data());
+        frame.writeTo(output, type);
+        output.flush();
+
+        ByteBuffer header = readFrame(BinaryWeatherCodec.RESPONSE_RESULTS);
+        header.getInt(); // Numărul total de rezultate
+        BinaryWeatherCodec.Cursor next = BinaryWeatherCodec.Cursor.read(header);
+        int count = header.getInt();
+        for (int i = 0; i < count; i++) {
+            ByteBuffer item = readFrame(BinaryWeatherCodec.RESPONSE_RESULT_ITEM);
+            float distance = item.getFloat();
+            consumer.accept(distance, new BinaryWeatherCodec.LocationView(item));
+        }
+        return next.hasKey() ? next : null;
+    }
+
+    /**
+     * Primește o locație din rezultate împreună cu distanța ei.
+     */
+    @FunctionalInterface
+    public interface ResultConsumer {
+        void accept(float distanceKm, BinaryWeatherCodec.LocationView location);
+    }
+
+    // Citește un răspuns RESPONSE_LOCATION sau RESPONSE_NOT_FOUND
+    private boolean readLocation(Consumer<BinaryWeatherCodec.LocationView> consumer) throws IOException {
+        int length = input.readInt();
+        byte type = input.readByte();
+        ByteBuffer payload = readPayload(length);
+        if (type == BinaryWeatherCodec.RESPONSE_NOT_FOUND) {
+            return false;
+        }
+        checkType(type, BinaryWeatherCodec.RESPONSE_LOCATION, payload);
+        consumer.accept(new BinaryWeatherCodec.LocationView(payload));
+        return true;
+    }
+
+    // Citește un cadru de tipul așteptat
+    private ByteBuffer readFrame(byte expectedType) throws IOException {
+        int length = input.readInt();
+        byte type = input.readByte();
+        ByteBuffer payload = readPayload(length);
+        checkType(type, expectedType, payload);
+        return payload;
+    }
+
+    private ByteBuffer readPayload(int length) throws IOException {
+        if (length < 0 || length > BinaryWeatherCodec.MAX_FRAME_LENGTH) {
+            throw new IOException(ERROR_UNEXPECTED_FRAME + length);
+        }
+        byte[] payload = new byte[length];
+        input.readFully(payload);
+        return ByteBuffer.wrap(payload);
+    }
+
+    // Transformă un cadru de eroare sau de tip neașteptat într-o excepție
+    private static void checkType(byte type, byte expectedType, ByteBuffer payload) throws IOException {
+        if (type == BinaryWeatherCodec.RESPONSE_ERROR) {
+            throw new IOException(ERROR_SERVER + BinaryWeatherCodec.readShortString(payload));
+        }
+        if (type != expectedType) {
+            throw new IOException(ERROR_UNEXPECTED_FRAME + type);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
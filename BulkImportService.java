@@ -0,0 +1,312 @@
+package common;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Import în paralel din mai multe fișiere JSON sau directoare.
+ * Fiecare cerere devine o lucrare (ImportJob) cu un identificator returnat imediat; fișierele sunt citite
+ * în paralel cu WeatherJsonLoader, rezultatele sunt îmbinate în ordinea fișierelor (prima apariție a unui oraș
+ * câștigă), iar locațiile noi sunt publicate o singură dată în WeatherDataManager. Un fișier este îmbinat imediat
+ * ce el și fișierele dinaintea lui au fost citite, apoi coloanele lui sunt eliberate; în memorie rămân doar
+ * locațiile unice îmbinate și fișierele terminate înaintea celor care le preced.
+ */
+public class BulkImportService {
+    private static final String JSON_EXTENSION = ".json"; // Extensia fișierelor căutate în directoare
+    private static final int PROGRESS_INTERVAL = 10_000; // Înregistrări citite între două actualizări ale progresului unui fișier
+    private static final int INITIAL_CAPACITY = 1024; // Capacitatea inițială a coloanelor pentru fiecare fișier
+    private static final int MAX_RETAINED_JOBS = 100; // Numărul de lucrări terminate păstrate pentru interogare
+    private static final String ERROR_NO_FILES = "No JSON files found."; // Nu s-a găsit niciun fișier
+    private static final String ERROR_FILE_NOT_FOUND = "File not found."; // Fișierul nu există
+    private static final String BULK_IMPORT_MESSAGE = "Bulk import %d finished: %d files, %d locations added.%n"; // Mesaj la finalul unei lucrări
+
+    /**
+     * Starea unei lucrări sau a unui fișier.
+     */
+    public enum State {
+        PENDING, RUNNING, DONE, FAILED
+    }
+
+    private final WeatherDataManager weatherDataManager; // Destinația locațiilor importate
+    private final ExecutorService parsers; // Firele care citesc fișierele
+    private final AtomicLong nextJobId = new AtomicLong(1); // Generatorul identificatorilor de lucrări
+    private final Map<Long, ImportJob> jobs = new ConcurrentHashMap<>(); // Lucrările cunoscute, după identificator
+
+    // Constructor; numărul firelor de citire este egal cu numărul de procesoare
+    public BulkImportService(WeatherDataManager weatherDataManager) {
+        this.weatherDataManager = weatherDataManager;
+        this.parsers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "bulk-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Pornește o lucrare de import și o returnează imediat.
+     * @param paths Fișiere JSON sau directoare (din care se iau fișierele *.json, fără subdirectoare).
+     * @return Lucrarea creată; progresul poate fi urmărit prin findJob.
+     */
+    public ImportJob submit(List<String> paths) {
+        ImportJob job = new ImportJob(nextJobId.getAndIncrement());
+        jobs.put(job.id(), job);
+        evictFinishedJobs();
+
+        List<Path> files;
+        try {
+            files = expand(paths);
+        } catch (IOException e) {
+            job.fail(e.getMessage());
+            return job;
+        }
+        if (files.isEmpty()) {
+            job.fail(ERROR_NO_FILES);
+            return job;
+        }
+
+        List<FileStatus> statuses = new ArrayList<>();
+        for (Path file : files) {
+            statuses.add(new FileStatus(file.toString()));
+        }
+        job.start(statuses);
+
+        // Fiecare fișier este citit independent și îmbinat în ordinea fișierelor, cât mai devreme posibil
+        Merge merge = new Merge();
+        CompletableFuture<Void> merged = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            FileStatus status = statuses.get(i);
+            CompletableFuture<List<GeoWeatherData>> parsed = CompletableFuture.supplyAsync(() -> parse(file, status), parsers);
+            merged = merged.thenCombine(parsed, (previous, locations) -> {
+                merge.add(locations);
+                return null;
+            });
+        }
+        merged.whenCompleteAsync((result, error) -> publish(job, merge, error), parsers);
+        return job;
+    }
+
+    /**
+     * Caută o lucrare după identificator.
+     */
+    public Optional<ImportJob> findJob(long jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    // Înlocuiește directoarele cu fișierele JSON din ele, în ordine alfabetică (extensia nu ține cont de majuscule)
+    private static List<Path> expand(List<String> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String name : paths) {
+            Path path = Paths.get(name.trim());
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> entries = Files.list(path)) {
+                    entries.filter(entry -> Files.isRegularFile(entry)
+                                    && entry.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(JSON_EXTENSION))
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else {
+                files.add(path); // Fișierele lipsă sunt raportate ca eșuate la citire
+            }
+        }
+        return files;
+    }
+
+    // Citește un fișier; returnează o listă goală dacă citirea eșuează
+    private static List<GeoWeatherData> parse(Path file, FileStatus status) {
+        status.state = State.RUNNING;
+        long startTime = System.nanoTime();
+        WeatherColumns.Builder columns = new WeatherColumns.Builder(INITIAL_CAPACITY);
+        WeatherJsonLoader loader = new WeatherJsonLoader((loaded, skipped) -> {
+            status.loaded = loaded;
+            status.skipped = skipped;
+        }, PROGRESS_INTERVAL);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            WeatherJsonLoader.LoadStats stats = loader.load(reader, columns);
+            status.loaded = stats.loaded();
+            status.skipped = stats.skipped();
+            status.state = State.DONE;
+            return columns.build().locations();
+        } catch (NoSuchFileException e) {
+            status.error = ERROR_FILE_NOT_FOUND;
+            status.state = State.FAILED;
+        } catch (IOException | RuntimeException e) {
+            status.error = e.getMessage();
+            status.state = State.FAILED;
+        } finally {
+            status.durationMillis = (System.nanoTime() - startTime) / 1_000_000;
+        }
+        return List.of();
+    }
+
+    // Publică locațiile îmbinate după ce toate fișierele au fost citite
+    private void publish(ImportJob job, Merge merge, Throwable error) {
+        if (error != null) {
+            job.fail((error.getCause() != null ? error.getCause() : error).getMessage());
+            return;
+        }
+        try {
+            int added = merge.size() == 0 ? 0 : weatherDataManager.importLocations(merge.build());
+            job.finish(added);
+            System.out.printf(BULK_IMPORT_MESSAGE, job.id(), job.files().size(), added);
+        } catch (RuntimeException e) {
+            job.fail(e.getMessage());
+        }
+    }
+
+    /**
+     * Locațiile unice ale unei lucrări. Fișierele sunt adăugate pe rând, în ordinea lor, deci prima apariție
+     * a unui oraș câștigă; locațiile sunt copiate în coloane proprii, astfel încât coloanele fișierului pot fi eliberate.
+     */
+    private static final class Merge {
+        private final Set<String> seenCities = new HashSet<>(); // Orașele deja îmbinate (normalizate)
+        private final WeatherColumns.Builder columns = new WeatherColumns.Builder(INITIAL_CAPACITY); // Locațiile unice
+
+        // Adaugă locațiile unui fișier ale căror orașe nu au apărut în fișierele anterioare
+        void add(List<GeoWeatherData> locations) {
+            for (GeoWeatherData location : locations) {
+                if (seenCities.add(WeatherSnapshot.normalizeCity(location.getCity()))) {
+                    columns.add(location);
+                }
+            }
+        }
+
+        int size() {
+            return seenCities.size();
+        }
+
+        List<GeoWeatherData> build() {
+            return columns.build().locations();
+        }
+    }
+
+    // Păstrează doar cele mai recente MAX_RETAINED_JOBS lucrări terminate
+    private void evictFinishedJobs() {
+        long oldestRetained = nextJobId.get() - MAX_RETAINED_JOBS;
+        jobs.values().removeIf(job -> job.id() < oldestRetained && job.isFinished());
+    }
+
+    /**
+     * Progresul unui fișier dintr-o lucrare. Câmpurile sunt actualizate de firul care citește fișierul.
+     */
+    public static final class FileStatus {
+        private final String path; // Calea fișierului
+        private volatile State state = State.PENDING; // Starea citirii
+        private volatile long loaded; // Locațiile citite până acum
+        private volatile long skipped; // Înregistrările invalide sărite
+        private volatile long durationMillis; // Durata citirii
+        private volatile String error; // Motivul eșecului (null dacă nu a eșuat)
+
+        private FileStatus(String path) {
+            this.path = path;
+        }
+
+        public String path() {
+            return path;
+        }
+
+        public State state() {
+            return state;
+        }
+
+        public long loaded() {
+            return loaded;
+        }
+
+        public long skipped() {
+            return skipped;
+        }
+
+        public long durationMillis() {
+            return durationMillis;
+        }
+
+        public String error() {
+            return error;
+        }
+    }
+
+    /**
+     * O lucrare de import: starea generală, numărul de locații adăugate și progresul fiecărui fișier.
+     */
+    public static final class ImportJob {
+        private final long id; // Identificatorul lucrării
+        private volatile State state = State.PENDING; // Starea lucrării
+        private volatile List<FileStatus> files = Collections.emptyList(); // Fișierele lucrării
+        private volatile int added; // Locațiile noi publicate
+        private volatile String error; // Motivul eșecului (null dacă nu a eșuat)
+
+        private ImportJob(long id) {
+            this.id = id;
+        }
+
+        public long id() {
+            return id;
+        }
+
+        public State state() {
+            return state;
+        }
+
+        public List<FileStatus> files() {
+            return files;
+        }
+
+        public int added() {
+            return added;
+        }
+
+        public String error() {
+            return error;
+        }
+
+        // Numărul fișierelor a căror citire s-a încheiat (cu succes sau nu)
+        public int finishedFiles() {
+            int finished = 0;
+            for (FileStatus file : files) {
+                if (file.state == State.DONE || file.state == State.FAILED) {
+                    finished++;
+                }
+            }
+            return finished;
+        }
+
+        public boolean isFinished() {
+            return state == State.DONE || state == State.FAILED;
+        }
+
+        private void start(List<FileStatus> files) {
+            this.files = Collections.unmodifiableList(files);
+            this.state = State.RUNNING;
+        }
+
+        private void finish(int added) {
+            this.added = added;
+            this.state = State.DONE;
+        }
+
+        private void fail(String error) {
+            this.error = error;
+            this.state = State.FAILED;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package common;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Index imutabil de la o cheie text (oraș normalizat, sau oraș + țară) la rândul locației din WeatherColumns.
+ * Tabela cu adresare deschisă reține doar numărul rândului și codul hash al cheii; cheia nu este păstrată,
+ * ci este recalculată din rând (prin keyOf) doar când codurile hash coincid.
+ * Pentru fiecare cheie rămâne primul rând adăugat.
+ * Rândurile adăugate ulterior (importuri, actualizări) sunt puse într-o tabelă mică peste indexul existent, care este
+ * partajat, nu copiat; cele două tabele sunt unite abia când tabela mică depășește 1/MERGE_RATIO din cea mare.
+ */
+final class CityIndex {
+    private static final int EMPTY = -1; // Poziție liberă în tabelă
+    private static final int MERGE_RATIO = 8; // Raportul maxim dintre tabela mare și tabela rândurilor noi
+    private static final CityIndex[] NO_TABLES = new CityIndex[0]; // Nicio tabelă de copiat
+
+    private final int[] rows; // Rândul pentru fiecare poziție, sau EMPTY
+    private final int[] hashes; // Codul hash al cheii pentru fiecare poziție
+    private final int count; // Numărul de chei din această tabelă
+    private final CityIndex older; // Tabela mare de sub aceasta, fără chei comune cu ea (null = niciuna)
+
+    private CityIndex(int[] rows, int[] hashes, int count, CityIndex older) {
+        this.rows = rows;
+        this.hashes = hashes;
+        this.count = count;
+        this.older = older;
+    }
+
+    // Index gol
+    static CityIndex empty() {
+        return new CityIndex(new int[0], new int[0], 0, null);
+    }
+
+    /**
+     * Returnează un index nou care conține și rândurile din intervalul [from, to).
+     * @param keyOf Cheia fiecărui rând; null înseamnă că rândul nu este indexat.
+     */
+    CityIndex withRows(int from, int to, IntFunction<String> keyOf) {
+        if (from == to) {
+            return this; // Nimic de adăugat; indexul este imutabil, deci poate fi partajat
+        }
+        CityIndex base = older == null ? this : older; // Tabela mare, partajată cu versiunea curentă
+        int recent = older == null ? 0 : count; // Cheile din tabela mică existentă
+        if ((long) (recent + to - from) * MERGE_RATIO <= base.count) {
+            return build(older == null ? NO_TABLES : new CityIndex[] {this}, from, to, keyOf, base);
+        }
+        // Tabela mică a crescut prea mult: totul este unit într-o singură tabelă
+        return build(older == null ? new CityIndex[] {this} : new CityIndex[] {older, this}, from, to, keyOf, null);
+    }
+
+    /**
+     * Construiește o tabelă cu cheile tabelelor date și cu rândurile din intervalul [from, to).
+     * @param tables Tabele fără chei comune, ale căror poziții sunt copiate (fără tabelele lor older).
+     * @param older Tabela peste care se pune tabela nouă; rândurile ale căror chei există în ea nu sunt adăugate.
+     */
+    private static CityIndex build(CityIndex[] tables, int from, int to, IntFunction<String> keyOf, CityIndex older) {
+        int existing = 0;
+        for (CityIndex table : tables) {
+            existing += table.count;
+        }
+        int capacity = Integer.highestOneBit(Math.max(4, (existing + to - from) * 2) - 1) << 1; // Cel mult pe jumătate plină
+        int[] newRows = new int[capacity];
+        int[] newHashes = new int[capacity];
+        Arrays.fill(newRows, EMPTY);
+        for (CityIndex table : tables) {
+            for (int slot = 0; slot < table.rows.length; slot++) {
+                if (table.rows[slot] != EMPTY) {
+                    int target = freeSlot(newRows, table.hashes[slot]);
+                    newRows[target] = table.rows[slot];
+                    newHashes[target] = table.hashes[slot];
+                }
+            }
+        }
+        int newCount = existing;
+        for (int row = from; row < to; row++) {
+            String key = keyOf.apply(row);
+            if (key == null || (older != null && older.find(key, keyOf) >= 0)) {
+                continue;
+            }
+            int hash = spread(key.hashCode());
+            int mask = capacity - 1;
+            int slot = hash & mask;
+            while (newRows[slot] != EMPTY
+                    && !(newHashes[slot] == hash && key.equals(keyOf.apply(newRows[slot])))) {
+                slot = (slot + 1) & mask;
+            }
+            if (newRows[slot] == EMPTY) {
+                newRows[slot] = row;
+                newHashes[slot] = hash;
+                newCount++;
+            }
+        }
+        return new CityIndex(newRows, newHashes, newCount, older);
+    }
+
+    /**
+     * Caută rândul unei chei.
+     * @param key Cheia căutată (deja normalizată).
+     * @param keyOf Cheia fiecărui rând, aceeași funcție folosită la construire.
+     * @return Rândul găsit, sau -1.
+     */
+    int find(String key, IntFunction<String> keyOf) {
+        if (count > 0) {
+            int hash = spread(key.hashCode());
+            int mask = rows.length - 1;
+            for (int slot = hash & mask; rows[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash && key.equals(keyOf.apply(rows[slot]))) {
+                    return rows[slot];
+                }
+            }
+        }
+        return older == null ? -1 : older.find(key, keyOf); // Cheile celor două tabele nu se repetă
+    }
+
+    // Prima poziție liberă pentru un cod hash
+    private static int freeSlot(int[] table, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Amestecă biții superiori ai codului hash în cei inferiori
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
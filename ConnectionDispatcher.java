@@ -0,0 +1,117 @@
+package server;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clasa ConnectionDispatcher decide pe ce fir de execuție rulează fiecare conexiune acceptată.
+ * Modul se alege la pornirea serverului; contoarele pentru conexiuni active, în așteptare și respinse
+ * pot fi citite oricând, fără blocare.
+ */
+final class ConnectionDispatcher implements AutoCloseable {
+    /**
+     * Modurile de execuție disponibile.
+     */
+    enum Mode {
+        THREAD,  // Un fir de platformă nou pentru fiecare conexiune (comportamentul inițial)
+        VIRTUAL, // Un fir virtual pentru fiecare conexiune
+        POOL;    // Un număr fix de fire de platformă, cu o coadă de așteptare limitată
+
+        // Interpretează numele modului, indiferent de majuscule
+        static Mode parse(String value) {
+            return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Mode mode; // Modul de execuție ales
+    private final ExecutorService executor; // Executorul folosit (null pentru THREAD)
+    private final AtomicInteger activeConnections = new AtomicInteger(); // Conexiuni în curs de procesare
+    private final AtomicLong acceptedConnections = new AtomicLong(); // Conexiuni acceptate de la pornire
+    private final AtomicLong rejectedConnections = new AtomicLong(); // Conexiuni respinse din cauza cozii pline
+
+    /**
+     * Constructorul clasei ConnectionDispatcher.
+     * @param mode Modul de execuție.
+     * @param poolSize Numărul de fire pentru modul POOL.
+     * @param queueCapacity Capacitatea cozii de așteptare pentru modul POOL.
+     */
+    ConnectionDispatcher(Mode mode, int poolSize, int queueCapacity) {
+        this.mode = mode;
+        this.executor = switch (mode) {
+            case THREAD -> null;
+            case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+            case POOL -> new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+        };
+    }
+
+    /**
+     * Rulează sarcina unei conexiuni conform modului ales.
+     * @param connectionTask Sarcina care procesează conexiunea.
+     * @return false dacă sarcina a fost respinsă (coada este plină).
+     */
+    boolean dispatch(Runnable connectionTask) {
+        Runnable tracked = () -> {
+            activeConnections.incrementAndGet();
+            try {
+                connectionTask.run();
+            } finally {
+                activeConnections.decrementAndGet();
+            }
+        };
+        try {
+            if (executor == null) {
+                new Thread(tracked).start(); // Creează un thread pentru client
+            } else {
+                executor.execute(tracked);
+            }
+            acceptedConnections.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejectedConnections.incrementAndGet();
+            return false;
+        }
+    }
+
+    // Returnează modul de execuție
+    Mode getMode() {
+        return mode;
+    }
+
+    // Returnează numărul conexiunilor procesate în acest moment
+    int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    // Returnează numărul conexiunilor care așteaptă un fir liber (doar pentru modul POOL)
+    int getQueuedConnections() {
+        return executor instanceof ThreadPoolExecutor pool ? pool.getQueue().size() : 0;
+    }
+
+    // Returnează numărul conexiunilor acceptate de la pornire
+    long getAcceptedConnections() {
+        return acceptedConnections.get();
+    }
+
+    // Returnează numărul conexiunilor respinse de la pornire
+    long getRejectedConnections() {
+        return rejectedConnections.get();
+    }
+
+    /**
+     * Oprește executorul; conexiunile în curs își termină procesarea.
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
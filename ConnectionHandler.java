@@ -1,42 +1,59 @@
 package server;
 
-import common.GeoWeatherData;
+import common.BinaryWeatherCodec;
 import common.WeatherDataManager;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 import java.io.IOException;
 import java.net.Socket;
-import java.util.Optional;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 
 /**
  * Clasa ConnectionHandler gestionează cererile clienților conectați la server.
  * Aceasta implementează Runnable pentru a rula în thread-uri separate pentru fiecare client.
+ * Prima linie decide protocolul: BinaryWeatherCodec.HANDSHAKE pentru protocolul binar (BinarySession),
+ * altfel liniile sunt transmise unei sesiuni ProtocolSession, care interpretează protocolul text.
+ * Opțional, conexiunea este închisă dacă clientul nu trimite nimic un timp (idleTimeoutMillis), astfel încât
+ * clienții persistenți inactivi nu păstrează la nesfârșit un fir din pool.
  */
 class ConnectionHandler implements Runnable {
-    // Mesaje constante pentru diverse scenarii
-    private static final String MESSAGE_ROLE_NOT_PROVIDED = "Role not provided. Connection closed."; // Rol nedefinit
-    private static final String MESSAGE_INVALID_ROLE = "Invalid role. Connection closed."; // Rol invalid
-    private static final String MESSAGE_DATABASE_UPDATED = "Database successfully updated."; // Baza de date actualizată cu succes
-    private static final String MESSAGE_DATABASE_UPDATE_FAILED = "Failed to update database."; // Eșec la actualizarea bazei de date
-    private static final String MESSAGE_INVALID_JSON_FILE = "Invalid JSON file."; // Fișier JSON invalid
-    private static final String MESSAGE_UNKNOWN_ADMIN_COMMAND = "Unknown admin command."; // Comandă necunoscută pentru admin
-    private static final String MESSAGE_CITY_NOT_FOUND = "City not found. Please enter latitude and longitude."; // Oraș negăsit
-    private static final String MESSAGE_UNKNOWN_USER_COMMAND = "Unknown user command."; // Comandă necunoscută pentru utilizator
-    private static final String MESSAGE_INVALID_INPUT = "Invalid input. Coordinates and radius must be numeric."; // Input invalid
+    private static final int MAX_FIRST_LINE_LENGTH = 1024; // Lungimea maximă a primei linii (rol sau negociere)
+    private static final String COMMAND_FAILED_MESSAGE = "Command failed, closing connection: "; // Mesaj pentru o comandă terminată cu excepție
 
     private final Socket clientSocket; // Socket-ul clientului
     private final WeatherDataManager weatherDataManager; // Managerul datelor meteo
+    private final ServerMetrics metrics; // Metricile serverului
+    private final int idleTimeoutMillis; // Timpul maxim de așteptare a datelor de la client (0 = fără limită)
 
     /**
      * Constructorul clasei ConnectionHandler.
      * @param clientSocket Socket-ul clientului.
      * @param weatherDataManager Instanța WeatherDataManager pentru manipularea datelor meteo.
+     * @param metrics Registrul în care sunt înregistrate conexiunea și comenzile ei.
      */
-    public ConnectionHandler(Socket clientSocket, WeatherDataManager weatherDataManager) {
+    public ConnectionHandler(Socket clientSocket, WeatherDataManager weatherDataManager, ServerMetrics metrics) {
+        this(clientSocket, weatherDataManager, metrics, 0);
+    }
+
+    /**
+     * Constructorul clasei ConnectionHandler, cu limită de inactivitate.
+     * @param idleTimeoutMillis Timpul maxim fără date de la client după care conexiunea este închisă (0 = fără limită).
+     */
+    public ConnectionHandler(Socket clientSocket, WeatherDataManager weatherDataManager, ServerMetrics metrics,
+                             int idleTimeoutMillis) {
         this.clientSocket = clientSocket;
         this.weatherDataManager = weatherDataManager;
+        this.metrics = metrics;
+        this.idleTimeoutMillis = idleTimeoutMillis;
     }
 
     /**
@@ -44,101 +61,85 @@ class ConnectionHandler implements Runnable {
      */
     @Override
     public void run() {
-        try (BufferedReader inputReader = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-             PrintWriter outputWriter = new PrintWriter(clientSocket.getOutputStream(), true)) {
+        metrics.connectionOpened();
+        try (Socket socket = clientSocket;
+             InputStream input = new BufferedInputStream(socket.getInputStream());
+             OutputStream output = socket.getOutputStream()) {
+            socket.setSoTimeout(idleTimeoutMillis);
 
-            String userRole = inputReader.readLine(); // Citește rolul utilizatorului
-            if (userRole == null) {
-                outputWriter.println(MESSAGE_ROLE_NOT_PROVIDED); // Mesaj pentru lipsa rolului
-                return;
-            }
-
-            // Gestionează cererile în funcție de rolul utilizatorului
-            switch (userRole.toUpperCase()) {
-                case "ADMIN" -> handleAdmin(inputReader, outputWriter);
-                case "USER" -> handleUser(inputReader, outputWriter);
-                default -> outputWriter.println(MESSAGE_INVALID_ROLE); // Mesaj pentru rol invalid
+            // Prima linie este citită direct din flux, ca restul datelor să poată fi interpretate și ca protocol binar
+            String firstLine = readFirstLine(input);
+            if (BinaryWeatherCodec.HANDSHAKE.equals(firstLine)) {
+                serveBinary(input, output);
+            } else {
+                serveText(firstLine, input, output);
             }
 
+        } catch (SocketTimeoutException e) {
+            // Clientul a fost inactiv prea mult timp; conexiunea se închide și firul este eliberat
         } catch (IOException e) {
             e.printStackTrace(); // Tratează excepțiile de intrare/ieșire
+        } catch (RuntimeException e) {
+            // O comandă a eșuat neașteptat: conexiunea se închide, dar firul rămâne disponibil pentru alți clienți
+            System.err.println(COMMAND_FAILED_MESSAGE + e);
+        } finally {
+            metrics.connectionClosed();
         }
     }
 
     /**
-     * Gestionează cererile utilizatorului cu rol de admin.
-     * @param inputReader Buffer pentru citirea datelor de la client.
-     * @param outputWriter Buffer pentru scrierea răspunsurilor către client.
+     * Servește o conexiune care folosește protocolul text.
+     * @param firstLine Prima linie deja citită (null dacă fluxul s-a încheiat).
      */
-    private void handleAdmin(BufferedReader inputReader, PrintWriter outputWriter) throws IOException {
-        String command = inputReader.readLine(); // Citește comanda
-        if ("IMPORT".equalsIgnoreCase(command)) {
-            String filePath = inputReader.readLine(); // Citește calea fișierului JSON
-            if (weatherDataManager.validateJsonFile(filePath)) {
-                if (weatherDataManager.importDatabase(filePath)) {
-                    outputWriter.println(MESSAGE_DATABASE_UPDATED); // Mesaj pentru actualizare reușită
-                } else {
-                    outputWriter.println(MESSAGE_DATABASE_UPDATE_FAILED); // Mesaj pentru actualizare eșuată
-                }
-            } else {
-                outputWriter.println(MESSAGE_INVALID_JSON_FILE); // Mesaj pentru fișier JSON invalid
+    private void serveText(String firstLine, InputStream input, OutputStream output) throws IOException {
+        BufferedReader inputReader = new BufferedReader(new InputStreamReader(input));
+        ProtocolSession session = new ProtocolSession(weatherDataManager, output, metrics);
+        String line = firstLine;
+        while (line != null) {
+            if (!session.onLine(line)) {
+                return; // Sesiunea a cerut închiderea conexiunii
             }
-        } else {
-            outputWriter.println(MESSAGE_UNKNOWN_ADMIN_COMMAND); // Mesaj pentru comandă necunoscută
+            line = inputReader.readLine();
         }
+        session.onEndOfStream(); // Clientul a închis conexiunea
     }
 
     /**
-     * Gestionează cererile utilizatorului obișnuit.
-     * @param inputReader Buffer pentru citirea datelor de la client.
-     * @param outputWriter Buffer pentru scrierea răspunsurilor către client.
+     * Servește o conexiune care folosește protocolul binar, cadru cu cadru, până când clientul o închide.
      */
-    private void handleUser(BufferedReader inputReader, PrintWriter outputWriter) throws IOException {
-        String command = inputReader.readLine(); // Citește comanda utilizatorului
-
-        if ("GET_WEATHER_BY_CITY".equalsIgnoreCase(command)) {
-            String city = inputReader.readLine(); // Citește numele orașului
-            Optional<GeoWeatherData> location = weatherDataManager.findLocationByCity(city);
-
-            if (location.isPresent()) {
-                GeoWeatherData geoData = location.get();
-                outputWriter.println("Weather for " + city + ":"); // Mesaj pentru prognoză
-                geoData.getWeatherList().forEach(forecast -> outputWriter.println(forecast.toString())); // Afișează prognozele
-                outputWriter.println("LATITUDE:" + geoData.getLatitude());
-                outputWriter.println("LONGITUDE:" + geoData.getLongitude());
-            } else {
-                outputWriter.println("Error: City not found in database."); // Mesaj pentru oraș negăsit
-            }
-        } else if ("GET_WEATHER".equalsIgnoreCase(command)) {
+    private void serveBinary(InputStream input, OutputStream output) throws IOException {
+        DataInputStream frames = new DataInputStream(input);
+        BinarySession session = new BinarySession(weatherDataManager, output, metrics);
+        while (true) {
+            int length;
             try {
-                double latitude = Double.parseDouble(inputReader.readLine()); // Citește latitudinea
-                double longitude = Double.parseDouble(inputReader.readLine()); // Citește longitudinea
-                double radius = Double.parseDouble(inputReader.readLine()); // Citește raza
-
-                String weatherData = weatherDataManager.getWeather(latitude, longitude, radius); // Obține prognoza
-                outputWriter.println(weatherData); // Trimite prognoza
-            } catch (NumberFormatException e) {
-                outputWriter.println("Error: Invalid coordinates or radius."); // Mesaj pentru coordonate/raza invalide
+                length = frames.readInt();
+            } catch (EOFException e) {
+                return; // Clientul a închis conexiunea
+            }
+            if (length < 0 || length > BinaryWeatherCodec.MAX_FRAME_LENGTH) {
+                return; // Cadru invalid
             }
-        } else {
-            outputWriter.println("Error: Unknown user command."); // Mesaj pentru comandă necunoscută
+            byte type = frames.readByte();
+            byte[] payload = new byte[length];
+            frames.readFully(payload);
+            session.onFrame(type, ByteBuffer.wrap(payload));
         }
     }
 
-    /**
-     * Obține prognoza meteo pe baza coordonatelor și razei specificate.
-     * @param inputReader Buffer pentru citirea datelor de la client.
-     * @param outputWriter Buffer pentru scrierea răspunsurilor către client.
-     */
-    private void fetchWeather(BufferedReader inputReader, PrintWriter outputWriter) throws IOException {
-        try {
-            double latitude = Double.parseDouble(inputReader.readLine()); // Citește latitudinea
-            double longitude = Double.parseDouble(inputReader.readLine()); // Citește longitudinea
-            double radius = Double.parseDouble(inputReader.readLine()); // Citește raza
-            String weatherData = weatherDataManager.getWeather(latitude, longitude, radius); // Obține prognoza
-            outputWriter.println(weatherData); // Trimite prognoza către client
-        } catch (NumberFormatException e) {
-            outputWriter.println(MESSAGE_INVALID_INPUT); // Mesaj pentru input invalid
+    // Citește prima linie octet cu octet; returnează null dacă fluxul se încheie înaintea oricărui octet
+    private static String readFirstLine(InputStream input) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = input.read()) != -1 && b != '\n') {
+            if (line.size() < MAX_FIRST_LINE_LENGTH) {
+                line.write(b);
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
         }
+        String text = line.toString(Charset.defaultCharset());
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
     }
 }
@@ -0,0 +1,164 @@
+package common;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool simplu de conexiuni JDBC. Conexiunile sunt deschise la cerere, până la o limită fixă, și sunt refolosite;
+ * fiecare conexiune își păstrează instrucțiunile pregătite, deci o cerere repetată nu mai face nici conectarea
+ * (TCP + autentificare), nici pregătirea SQL-ului, ci doar execuția.
+ * O conexiune pe care a apărut o eroare este închisă în loc să fie returnată; una care a stat nefolosită
+ * mai mult de VALIDATION_INTERVAL_MILLIS este verificată înainte de a fi împrumutată din nou.
+ */
+final class ConnectionPool implements AutoCloseable {
+    private static final long VALIDATION_INTERVAL_MILLIS = 30_000; // După cât timp de inactivitate este verificată o conexiune
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2; // Timpul maxim pentru verificare
+
+    private final String url; // URL-ul bazei de date
+    private final String user; // Utilizatorul
+    private final String password; // Parola
+    private final long borrowTimeoutMillis; // Cât se așteaptă o conexiune liberă
+    private final Semaphore permits; // Numărul de conexiuni care mai pot fi împrumutate
+    private final BlockingQueue<PooledConnection> idle; // Conexiunile deschise și libere
+    private volatile boolean closed; // Pool-ul a fost închis
+
+    /**
+     * @param maxConnections Numărul maxim de conexiuni deschise simultan.
+     * @param borrowTimeoutMillis Cât se așteaptă o conexiune liberă înainte de a raporta o eroare.
+     */
+    ConnectionPool(String url, String user, String password, int maxConnections, long borrowTimeoutMillis) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(maxConnections, true);
+        this.idle = new ArrayBlockingQueue<>(maxConnections);
+    }
+
+    /**
+     * Împrumută o conexiune; se returnează prin close() (try-with-resources).
+     * @throws SQLException Dacă nu se poate deschide o conexiune sau nu se eliberează niciuna la timp.
+     */
+    PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.poll()) != null) {
+                if (pooled.isUsable()) {
+                    pooled.borrowed = true;
+                    return pooled;
+                }
+                pooled.closeQuietly(); // Conexiune căzută între timp
+            }
+            pooled = new PooledConnection(DriverManager.getConnection(url, user, password));
+            pooled.borrowed = true;
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Primește înapoi o conexiune împrumutată
+    private void release(PooledConnection pooled) {
+        if (closed || pooled.broken || !idle.offer(pooled)) {
+            pooled.closeQuietly();
+        }
+        permits.release();
+    }
+
+    // Închide conexiunile libere; cele împrumutate sunt închise la returnare
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection pooled;
+        while ((pooled = idle.poll()) != null) {
+            pooled.closeQuietly();
+        }
+    }
+
+    /**
+     * O conexiune împrumutată din pool, împreună cu instrucțiunile ei pregătite.
+     */
+    final class PooledConnection implements AutoCloseable {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>(); // Instrucțiunile pregătite, după SQL
+        private long lastUsed = System.currentTimeMillis(); // Momentul ultimei returnări
+        private boolean broken; // A apărut o eroare; conexiunea nu mai este refolosită
+        private boolean borrowed; // Conexiunea este împrumutată (un close() repetat nu o returnează de două ori)
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        Connection connection() {
+            return connection;
+        }
+
+        // Instrucțiunea pregătită pentru SQL-ul dat, creată o singură dată pe conexiune
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+
+        // Marchează conexiunea ca fiind invalidă (de exemplu după o SQLException)
+        void markBroken() {
+            broken = true;
+        }
+
+        @Override
+        public void close() {
+            if (!borrowed) {
+                return;
+            }
+            borrowed = false;
+            lastUsed = System.currentTimeMillis();
+            release(this);
+        }
+
+        private boolean isUsable() {
+            try {
+                if (connection.isClosed()) {
+                    return false;
+                }
+                return System.currentTimeMillis() - lastUsed < VALIDATION_INTERVAL_MILLIS
+                        || connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                connection.close(); // Închide și instrucțiunile pregătite
+            } catch (SQLException ignored) {
+                // Conexiunea este deja închisă
+            }
+        }
+    }
+}
@@ -37,6 +37,32 @@ public class DailyForecast {
     // Returnează prognoza meteo formatată ca un șir de caractere
     @Override
     public String toString() {
-        return String.format(FORECAST_FORMAT, date, condition, String.format(TEMPERATURE_FORMAT, temperature));
+        return String.format(FORECAST_FORMAT, date, condition, String.format(TEMPERATURE_FORMAT, displayedTemperature()));
+    }
+
+    /**
+     * Temperatura în zecimi de grad, rotunjită la fel ca formatul "%.1f" aplicat valorii din sursă: temperaturile sunt
+     * stocate ca float, iar jumătatea se rotunjește departe de zero după cea mai scurtă zecimală a valorii float.
+     * De exemplu 1.15f este binar 1.1499999..., dar zecimala lui este 1.15, deci rezultatul este 12, ca "1.2".
+     * @param temperature Temperatura, în grade Celsius.
+     * @return Zecimile de grad (fără semn pentru valorile care se rotunjesc la zero).
+     */
+    public static int toTenths(float temperature) {
+        float magnitude = Math.abs(temperature);
+        double scaled = magnitude * 10.0;
+        double lower = Math.floor(scaled);
+        long tenths = (float) ((lower + 0.5) / 10) == magnitude
+                ? (long) lower + 1 // Zecimala valorii este exact la jumătate
+                : Math.round(scaled);
+        return Math.clamp(temperature < 0 ? -tenths : tenths, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    // Temperatura afișată: zecimea dată de toTenths, cu semnul valorii (inclusiv -0.0, ca "%.1f")
+    private double displayedTemperature() {
+        float value = (float) temperature;
+        if (!Float.isFinite(value)) {
+            return temperature;
+        }
+        return Math.copySign(Math.abs(toTenths(value)) / 10.0, value);
     }
 }
@@ -1,75 +1,204 @@
 package common;
 
 import java.sql.*;
+import java.util.List;
 
-public class DatabaseManager {
-    // Constante pentru configurarea conexiunii la baza de date
+public class DatabaseManager implements AutoCloseable {
+    // Constante pentru configurarea conexiunii la baza de date (pot fi înlocuite prin proprietăți de sistem)
     private static final String DB_URL = "jdbc:postgresql://localhost:5432/weather_app"; // URL-ul bazei de date PostgreSQL
     private static final String DB_USER = "postgres"; // Utilizatorul bazei de date
     private static final String DB_PASSWORD = "1q2w3e"; // Parola bazei de date
+    private static final String PROPERTY_URL = "pinkweather.db.url"; // URL JDBC (de exemplu o bază locală de test)
+    private static final String PROPERTY_USER = "pinkweather.db.user"; // Utilizatorul
+    private static final String PROPERTY_PASSWORD = "pinkweather.db.password"; // Parola
+    private static final String PROPERTY_POOL_SIZE = "pinkweather.db.poolSize"; // Numărul maxim de conexiuni
+    private static final String PROPERTY_CLIENT_ID = "pinkweather.db.clientId"; // Identificatorul clientului
+    private static final String PROPERTY_BATCH_SIZE = "pinkweather.db.batchSize"; // Locații pe lot JDBC
+    private static final String PROPERTY_FLUSH_MILLIS = "pinkweather.db.flushMillis"; // Cât așteaptă o locație în coadă
+    private static final String PROPERTY_QUEUE_CAPACITY = "pinkweather.db.queueCapacity"; // Clienți în așteptare
+    private static final int DEFAULT_POOL_SIZE = 2; // Clientul are un singur fir care scrie
+    private static final int DEFAULT_BATCH_SIZE = 100; // Locații pe lot JDBC
+    private static final long DEFAULT_FLUSH_MILLIS = 200; // Întârzierea maximă a unei scrieri
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000; // Clienți în așteptare înainte de backpressure
+    private static final long OFFER_TIMEOUT_MILLIS = 50; // Cât poate bloca o salvare când coada este plină
+    private static final long SHUTDOWN_FLUSH_MILLIS = 5_000; // Cât se așteaptă scrierea cozii la închidere
+    private static final long BORROW_TIMEOUT_MILLIS = 5_000; // Cât se așteaptă o conexiune liberă
+    private static final String DEFAULT_CLIENT_ID = System.getProperty("user.name", "default"); // Clientul implicit
 
-    // Constructor: Creează o conexiune la baza de date și initializează tabelul dacă acesta nu există
-    public DatabaseManager() {
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD)) {
-            if (conn != null) {
-                System.out.println("Conectat la baza de date PostgreSQL.");
-                createTable(); // Creează tabelul dacă nu există
-            }
-        } catch (SQLException e) {
-            System.err.println("Eroare la conectarea la baza de date: " + e.getMessage());
-        }
-    }
-
-    // Creează tabelul pentru locația clientului dacă nu există deja
-    private void createTable() {
-        String createTableSQL = """
+    // Comenzile SQL, pregătite o singură dată pe conexiune
+    private static final String CREATE_TABLE_SQL = """
             CREATE TABLE IF NOT EXISTS client_location (
                 id SERIAL PRIMARY KEY,
                 city TEXT NOT NULL,
                 latitude DOUBLE PRECISION NOT NULL,
                 longitude DOUBLE PRECISION NOT NULL
-            );
-        """;
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(createTableSQL); // Execută comanda SQL pentru crearea tabelului
+            )
+            """;
+    private static final String CHECK_CLIENT_COLUMN_SQL = "SELECT client_id FROM client_location WHERE 1 = 0";
+    private static final String ADD_CLIENT_COLUMN_SQL = "ALTER TABLE client_location ADD COLUMN client_id TEXT";
+    private static final String CLAIM_LEGACY_ROW_SQL = """
+            UPDATE client_location SET client_id = ?
+            WHERE client_id IS NULL
+              AND id = (SELECT MAX(id) FROM client_location WHERE client_id IS NULL)
+              AND NOT EXISTS (SELECT 1 FROM client_location WHERE client_id = ?)
+            """;
+    private static final String DELETE_LEGACY_ROWS_SQL = "DELETE FROM client_location WHERE client_id IS NULL";
+    private static final String CREATE_CLIENT_INDEX_SQL =
+            "CREATE UNIQUE INDEX IF NOT EXISTS client_location_client_id ON client_location(client_id)";
+    private static final String UPDATE_SQL = "UPDATE client_location SET city = ?, latitude = ?, longitude = ? WHERE client_id = ?";
+    private static final String INSERT_SQL = "INSERT INTO client_location(client_id, city, latitude, longitude) VALUES(?, ?, ?, ?)";
+    private static final String SELECT_SQL = "SELECT city, latitude, longitude FROM client_location WHERE client_id = ?";
+
+    private final ConnectionPool pool; // Conexiunile refolosite
+    private final String clientId; // Cheia rândului acestui client
+    private final LocationWriteQueue writeQueue; // Salvările care așteaptă să fie scrise
+
+    // Constructor: Creează pool-ul de conexiuni și initializează tabelul dacă acesta nu există
+    public DatabaseManager() {
+        this.pool = new ConnectionPool(System.getProperty(PROPERTY_URL, DB_URL),
+                System.getProperty(PROPERTY_USER, DB_USER),
+                System.getProperty(PROPERTY_PASSWORD, DB_PASSWORD),
+                Integer.getInteger(PROPERTY_POOL_SIZE, DEFAULT_POOL_SIZE),
+                BORROW_TIMEOUT_MILLIS);
+        this.clientId = System.getProperty(PROPERTY_CLIENT_ID, DEFAULT_CLIENT_ID);
+        createTable(); // Prima conexiune rămâne în pool pentru cererile următoare
+        this.writeQueue = new LocationWriteQueue(this::writeLocations,
+                Integer.getInteger(PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE),
+                Long.getLong(PROPERTY_FLUSH_MILLIS, DEFAULT_FLUSH_MILLIS),
+                Integer.getInteger(PROPERTY_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY),
+                OFFER_TIMEOUT_MILLIS);
+    }
+
+    // Creează tabelul pentru locația clientului dacă nu există deja; un tabel vechi primește coloana client_id,
+    // iar rândul lui (fără client) devine locația acestui client, dacă acesta nu are deja una
+    // SQL-ul evită extensiile PostgreSQL (ON CONFLICT, ADD COLUMN IF NOT EXISTS), deci merge și pe o bază locală de test
+    private void createTable() {
+        try (ConnectionPool.PooledConnection conn = pool.borrow();
+             Statement stmt = conn.connection().createStatement()) {
+            System.out.println("Conectat la baza de date.");
+            stmt.execute(CREATE_TABLE_SQL); // Execută comanda SQL pentru crearea tabelului
+            if (!hasClientColumn(stmt)) {
+                stmt.execute(ADD_CLIENT_COLUMN_SQL);
+            }
+            PreparedStatement claimStmt = conn.prepare(CLAIM_LEGACY_ROW_SQL);
+            claimStmt.setString(1, clientId);
+            claimStmt.setString(2, clientId);
+            claimStmt.executeUpdate();
+            stmt.executeUpdate(DELETE_LEGACY_ROWS_SQL); // Alte rânduri vechi nu mai pot fi găsite
+            stmt.execute(CREATE_CLIENT_INDEX_SQL);
             System.out.println("Tabelul client_location a fost creat sau există deja.");
         } catch (SQLException e) {
             System.err.println("Eroare la crearea tabelului: " + e.getMessage());
         }
     }
 
+    // Verifică dacă tabelul are deja coloana client_id
+    private static boolean hasClientColumn(Statement stmt) {
+        try {
+            stmt.executeQuery(CHECK_CLIENT_COLUMN_SQL).close();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
     // Salvează sau actualizează locația curentă a clientului în tabelul client_location
     public void saveOrUpdateLocation(String city, double latitude, double longitude) {
-        String deleteSQL = "DELETE FROM client_location"; // Șterge locația existentă
-        String insertSQL = "INSERT INTO client_location(city, latitude, longitude) VALUES(?, ?, ?)"; // Inserează noua locație
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             Statement deleteStmt = conn.createStatement();
-             PreparedStatement insertStmt = conn.prepareStatement(insertSQL)) {
-            deleteStmt.executeUpdate(deleteSQL); // Șterge locația veche
-            insertStmt.setString(1, city); // Setează numele orașului
-            insertStmt.setDouble(2, latitude); // Setează latitudinea
-            insertStmt.setDouble(3, longitude); // Setează longitudinea
-            insertStmt.executeUpdate(); // Execută inserarea
-            System.out.println("Locația a fost salvată cu succes.");
-        } catch (SQLException e) {
-            System.err.println("Eroare la salvarea locației: " + e.getMessage());
+        saveOrUpdateLocation(clientId, city, latitude, longitude);
+    }
+
+    // Pune locația unui client în coada de scriere; revine imediat, scrierea se face pe firul cozii
+    public void saveOrUpdateLocation(String clientId, String city, double latitude, double longitude) {
+        if (!writeQueue.submit(new LocationWriteQueue.PendingLocation(clientId, city, latitude, longitude))) {
+            System.err.println("Eroare la salvarea locației: coada de scriere este plină.");
         }
     }
 
+    // Scrie un lot de locații: un executeBatch de actualizări, apoi unul de inserări pentru clienții fără rând
+    // Coada păstrează o singură locație pe client, deci un lot nu inserează de două ori același client
+    private void writeLocations(List<LocationWriteQueue.PendingLocation> batch) throws SQLException {
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            try {
+                PreparedStatement updateStmt = conn.prepare(UPDATE_SQL);
+                for (LocationWriteQueue.PendingLocation location : batch) {
+                    updateStmt.setString(1, location.city()); // Setează numele orașului
+                    updateStmt.setDouble(2, location.latitude()); // Setează latitudinea
+                    updateStmt.setDouble(3, location.longitude()); // Setează longitudinea
+                    updateStmt.setString(4, location.clientId()); // Setează clientul
+                    updateStmt.addBatch();
+                }
+                int[] updated = updateStmt.executeBatch(); // Execută actualizările
+                PreparedStatement insertStmt = conn.prepare(INSERT_SQL);
+                boolean inserts = false;
+                for (int i = 0; i < batch.size(); i++) {
+                    if (updated[i] != 0) {
+                        continue; // Clientul avea deja un rând
+                    }
+                    LocationWriteQueue.PendingLocation location = batch.get(i);
+                    insertStmt.setString(1, location.clientId());
+                    insertStmt.setString(2, location.city());
+                    insertStmt.setDouble(3, location.latitude());
+                    insertStmt.setDouble(4, location.longitude());
+                    insertStmt.addBatch();
+                    inserts = true;
+                }
+                if (inserts) {
+                    insertStmt.executeBatch(); // Un client inserat între timp de alt proces face lotul să fie reîncercat
+                }
+            } catch (SQLException e) {
+                conn.markBroken();
+                throw e;
+            }
+        }
+    }
+
+    // Scrie imediat locațiile din coadă; returnează false dacă nu s-au scris în timpul dat
+    public boolean flush(long timeoutMillis) {
+        return writeQueue.flush(timeoutMillis);
+    }
+
+    // Statistica cozii de scriere (adâncimea cozii, locații comasate, loturi etc.)
+    public LocationWriteQueue.Stats getWriteQueueStats() {
+        return writeQueue.stats();
+    }
+
     // Returnează locația curentă a clientului din tabelul client_location
     public String getCurrentLocation() {
-        String sql = "SELECT * FROM client_location"; // Comandă SQL pentru obținerea locației
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) {
-                // Concatenează numele orașului, latitudinea și longitudinea într-un șir
-                return rs.getString("city") + " (" + rs.getDouble("latitude") + ", " + rs.getDouble("longitude") + ")";
+        LocationWriteQueue.PendingLocation pending = writeQueue.pending(clientId);
+        if (pending != null) {
+            return formatLocation(pending.city(), pending.latitude(), pending.longitude()); // Încă nescrisă
+        }
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            try {
+                PreparedStatement stmt = conn.prepare(SELECT_SQL);
+                stmt.setString(1, clientId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return formatLocation(rs.getString("city"), rs.getDouble("latitude"), rs.getDouble("longitude"));
+                    }
+                }
+            } catch (SQLException e) {
+                conn.markBroken();
+                throw e;
             }
         } catch (SQLException e) {
             System.err.println("Eroare la obținerea locației: " + e.getMessage());
         }
         return "Nicio locație găsită."; // Returnează un mesaj dacă locația nu există
     }
+
+    // Concatenează numele orașului, latitudinea și longitudinea într-un șir
+    private static String formatLocation(String city, double latitude, double longitude) {
+        return city + " (" + latitude + ", " + longitude + ")";
+    }
+
+    // Scrie locațiile rămase în coadă, apoi închide conexiunile din pool
+    @Override
+    public void close() {
+        int lost = writeQueue.close(SHUTDOWN_FLUSH_MILLIS);
+        if (lost > 0) {
+            System.err.println("Eroare la salvarea locației: " + lost + " locații nu au fost scrise.");
+        }
+        pool.close();
+    }
 }
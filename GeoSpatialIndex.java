@@ -0,0 +1,535 @@
+package common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * Index spațial (k-d tree implicit) peste coordonatele locațiilor meteo.
+ * Punctele sunt proiectate pe sfera unitate (x, y, z), astfel încât trecerea peste meridianul de 180° și polii
+ * nu necesită tratament special, iar distanța coardei este monotonă față de distanța Haversine.
+ * Indexul este imutabil; la import se construiește unul nou, iar la o actualizare a prognozelor arborele este refolosit.
+ */
+public class GeoSpatialIndex {
+    // Constante generale
+    private static final double EARTH_RADIUS = 6371; // Raza Pământului în kilometri
+    private static final int LEAF_SIZE = 8; // Sub această dimensiune subarborele este parcurs liniar
+    private static final double BOUND_MARGIN = 1e-12; // Toleranța la rotunjire pentru tăierea celulelor după distanță
+
+    private final List<GeoWeatherData> locations; // Locațiile, în ordinea inițială
+    private final int[] ids; // Poziția în lista inițială pentru fiecare nod al arborelui
+    private final double[] xs; // Coordonata x pe sfera unitate
+    private final double[] ys; // Coordonata y pe sfera unitate
+    private final double[] zs; // Coordonata z pe sfera unitate
+    private final byte[] axes; // Axa de împărțire pentru fiecare nod (0 = x, 1 = y, 2 = z)
+
+    // Constructor: construiește arborele în O(n log n) din lista de locații (lista nu trebuie modificată ulterior)
+    public GeoSpatialIndex(List<GeoWeatherData> source) {
+        int size = source.size();
+        locations = source;
+        ids = new int[size];
+        xs = new double[size];
+        ys = new double[size];
+        zs = new double[size];
+        axes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            GeoWeatherData location = source.get(i);
+            ids[i] = i;
+            double lat = Math.toRadians(location.getLatitude());
+            double lon = Math.toRadians(location.getLongitude());
+            double cosLat = Math.cos(lat);
+            xs[i] = cosLat * Math.cos(lon);
+            ys[i] = cosLat * Math.sin(lon);
+            zs[i] = Math.sin(lat);
+        }
+        build(0, size);
+    }
+
+    // Constructor pentru un index care refolosește arborele altuia
+    private GeoSpatialIndex(List<GeoWeatherData> source, GeoSpatialIndex tree) {
+        locations = source;
+        ids = tree.ids;
+        xs = tree.xs;
+        ys = tree.ys;
+        zs = tree.zs;
+        axes = tree.axes;
+    }
+
+    // Returnează un index peste o listă nouă cu aceleași coordonate, în aceeași ordine (de exemplu după o actualizare
+    // care schimbă doar prognozele); arborele este partajat, nu reconstruit
+    GeoSpatialIndex withLocations(List<GeoWeatherData> source) {
+        if (source.size() != locations.size()) {
+            throw new IllegalArgumentException("Location count changed");
+        }
+        return new GeoSpatialIndex(source, this);
+    }
+
+    // Rezultatul unei căutări: locația și distanța până la ea în kilometri
+    public record Neighbor(GeoWeatherData location, double distanceKm) {
+    }
+
+    // Poziția unui rezultat în ordinea paginilor: pătratul coardei (exact, fără rotunjire) și poziția locației în listă
+    public record PageKey(double chordSquared, int position) {
+    }
+
+    // O pagină de rezultate și cheia ultimului rezultat (null dacă pagina este goală)
+    public record Page(List<Neighbor> neighbors, PageKey last) {
+    }
+
+    // Returnează numărul de locații indexate
+    public int size() {
+        return ids.length;
+    }
+
+    // Găsește locația cea mai apropiată de coordonatele specificate
+    public Optional<GeoWeatherData> nearest(double latitude, double longitude) {
+        return nearest(latitude, longitude, Double.POSITIVE_INFINITY).map(Neighbor::location);
+    }
+
+    // Găsește locația cea mai apropiată aflată la cel mult maxDistanceKm
+    public Optional<Neighbor> nearest(double latitude, double longitude, double maxDistanceKm) {
+        if (ids.length == 0) {
+            return Optional.empty();
+        }
+        double[] query = toUnitVector(latitude, longitude);
+        NearestSearch search = new NearestSearch(query, chordSquared(maxDistanceKm));
+        search.visit(0, ids.length);
+        if (search.bestIndex < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new Neighbor(locations.get(ids[search.bestIndex]), toKilometers(search.bestDistance)));
+    }
+
+    // Găsește locația cea mai apropiată aflată la cel mult maxDistanceKm, folosind modul de căutare dat
+    public Optional<Neighbor> nearest(double latitude, double longitude, double maxDistanceKm, NearestStrategy strategy) {
+        NearestScan scan = strategy.scan();
+        if (scan == null || ids.length == 0) {
+            return nearest(latitude, longitude, maxDistanceKm);
+        }
+        double[] query = toUnitVector(latitude, longitude);
+        int index = scan.nearest(xs, ys, zs, query, chordSquared(maxDistanceKm)); // Ordinea punctelor nu contează
+        if (index < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new Neighbor(locations.get(ids[index]), toKilometers(chordSquaredTo(index, query))));
+    }
+
+    // Returnează toate locațiile aflate la cel mult radiusKm, sortate crescător după distanță
+    public List<Neighbor> withinRadius(double latitude, double longitude, double radiusKm) {
+        List<Neighbor> result = new ArrayList<>();
+        if (ids.length == 0 || radiusKm < 0) {
+            return result;
+        }
+        double[] query = toUnitVector(latitude, longitude);
+        collectWithin(query, chordSquared(radiusKm), 0, ids.length, result);
+        result.sort(Comparator.comparingDouble(Neighbor::distanceKm));
+        return result;
+    }
+
+    // Returnează cele mai apropiate k locații, sortate crescător după distanță
+    public List<Neighbor> kNearest(double latitude, double longitude, int k) {
+        List<Neighbor> result = new ArrayList<>();
+        if (ids.length == 0 || k <= 0) {
+            return result;
+        }
+        double[] query = toUnitVector(latitude, longitude);
+        KNearestSearch search = new KNearestSearch(query, k);
+        search.visit(0, ids.length);
+        while (!search.heap.isEmpty()) {
+            int index = search.heap.poll();
+            result.add(new Neighbor(locations.get(ids[index]), toKilometers(search.distanceTo(index))));
+        }
+        result.sort(Comparator.comparingDouble(Neighbor::distanceKm));
+        return result;
+    }
+
+    // Numără locațiile aflate la cel mult radiusKm, fără a le colecta; celulele aflate în întregime în rază sunt numărate direct
+    public int countWithin(double latitude, double longitude, double radiusKm) {
+        if (ids.length == 0 || radiusKm < 0) {
+            return 0;
+        }
+        double[] query = toUnitVector(latitude, longitude);
+        return countWithin(query, chordSquared(radiusKm), 0, ids.length, initialLow(), initialHigh());
+    }
+
+    /**
+     * Returnează o pagină de rezultate în ordinea (distanță, poziție în listă), începând după cheia dată.
+     * Căutarea parcurge doar celulele arborelui care pot conține rezultate ale paginii: cele aflate în întregime
+     * mai aproape decât cheia (deja trimise) sau mai departe decât cel mai slab candidat sunt sărite,
+     * deci o pagină nu reface căutarea și sortarea tuturor rezultatelor anterioare.
+     * @param maxDistanceKm Distanța maximă (infinit = fără limită).
+     * @param after Cheia ultimului rezultat trimis (null = de la început).
+     * @param limit Numărul maxim de rezultate din pagină.
+     */
+    public Page page(double latitude, double longitude, double maxDistanceKm, PageKey after, int limit) {
+        if (ids.length == 0 || limit <= 0 || maxDistanceKm < 0) {
+            return new Page(List.of(), null);
+        }
+        double[] query = toUnitVector(latitude, longitude);
+        PageSearch search = new PageSearch(query, chordSquared(maxDistanceKm), after, limit);
+        search.visit(0, ids.length, initialLow(), initialHigh());
+        Candidate[] sorted = search.heap.toArray(new Candidate[0]);
+        Arrays.sort(sorted, PageSearch.ORDER);
+        List<Neighbor> neighbors = new ArrayList<>(sorted.length);
+        for (Candidate candidate : sorted) {
+            neighbors.add(new Neighbor(locations.get(candidate.position()), toKilometers(candidate.chordSquared())));
+        }
+        Candidate last = sorted.length == 0 ? null : sorted[sorted.length - 1];
+        return new Page(neighbors, last == null ? null : new PageKey(last.chordSquared(), last.position()));
+    }
+
+    // Construiește recursiv arborele: mediana intervalului devine nod, axa este cea cu dispersia cea mai mare
+    private void build(int from, int to) {
+        while (to - from > LEAF_SIZE) {
+            int axis = widestAxis(from, to);
+            int mid = (from + to) >>> 1;
+            select(from, to - 1, mid, axis);
+            axes[mid] = (byte) axis;
+            build(from, mid);
+            from = mid + 1;
+        }
+    }
+
+    // Alege axa cu cea mai mare întindere în intervalul dat
+    private int widestAxis(int from, int to) {
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        double minZ = Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+            minZ = Math.min(minZ, zs[i]);
+            maxZ = Math.max(maxZ, zs[i]);
+        }
+        double spreadX = maxX - minX, spreadY = maxY - minY, spreadZ = maxZ - minZ;
+        if (spreadX >= spreadY && spreadX >= spreadZ) return 0;
+        return spreadY >= spreadZ ? 1 : 2;
+    }
+
+    // Quickselect: plasează pe poziția k elementul care ar fi acolo după sortarea pe axa dată
+    private void select(int left, int right, int k, int axis) {
+        while (right > left) {
+            double pivot = coordinate((left + right) >>> 1, axis);
+            int i = left, j = right;
+            while (i <= j) {
+                while (coordinate(i, axis) < pivot) i++;
+                while (coordinate(j, axis) > pivot) j--;
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private double coordinate(int index, int axis) {
+        return switch (axis) {
+            case 0 -> xs[index];
+            case 1 -> ys[index];
+            default -> zs[index];
+        };
+    }
+
+    private void swap(int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double t = xs[i]; xs[i] = xs[j]; xs[j] = t;
+        t = ys[i]; ys[i] = ys[j]; ys[j] = t;
+        t = zs[i]; zs[i] = zs[j]; zs[j] = t;
+    }
+
+    // Pătratul distanței coardei dintre punctul de la indexul dat și punctul căutat
+    private double chordSquaredTo(int index, double[] query) {
+        double dx = xs[index] - query[0];
+        double dy = ys[index] - query[1];
+        double dz = zs[index] - query[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // Colectează locațiile din interiorul razei, tăind subarborii care nu pot intersecta sfera căutată
+    private void collectWithin(double[] query, double limit, int from, int to, List<Neighbor> out) {
+        if (to - from <= LEAF_SIZE) {
+            for (int i = from; i < to; i++) {
+                double d = chordSquaredTo(i, query);
+                if (d <= limit) {
+                    out.add(new Neighbor(locations.get(ids[i]), toKilometers(d)));
+                }
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        double d = chordSquaredTo(mid, query);
+        if (d <= limit) {
+            out.add(new Neighbor(locations.get(ids[mid]), toKilometers(d)));
+        }
+        double delta = query[axes[mid]] - coordinate(mid, axes[mid]);
+        if (delta <= 0 || delta * delta <= limit) {
+            collectWithin(query, limit, from, mid, out);
+        }
+        if (delta >= 0 || delta * delta <= limit) {
+            collectWithin(query, limit, mid + 1, to, out);
+        }
+    }
+
+    // Numără recursiv punctele din rază; low/high sunt limitele celulei, deduse din planele de împărțire
+    private int countWithin(double[] query, double limit, int from, int to, double[] low, double[] high) {
+        if (to <= from || minChordSquared(query, low, high) > limit + BOUND_MARGIN) {
+            return 0;
+        }
+        if (maxChordSquared(query, low, high) < limit - BOUND_MARGIN) {
+            return to - from; // Toată celula este în rază
+        }
+        if (to - from <= LEAF_SIZE) {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (chordSquaredTo(i, query) <= limit) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        int mid = (from + to) >>> 1;
+        int axis = axes[mid];
+        double split = coordinate(mid, axis);
+        int count = chordSquaredTo(mid, query) <= limit ? 1 : 0;
+        double saved = high[axis];
+        high[axis] = Math.min(saved, split);
+        count += countWithin(query, limit, from, mid, low, high);
+        high[axis] = saved;
+        saved = low[axis];
+        low[axis] = Math.max(saved, split);
+        count += countWithin(query, limit, mid + 1, to, low, high);
+        low[axis] = saved;
+        return count;
+    }
+
+    // Un candidat pentru o pagină: pătratul coardei și poziția locației în listă
+    private record Candidate(double chordSquared, int position) {
+    }
+
+    // Căutarea unei pagini: cei mai apropiați limit vecini aflați după cheia dată, într-un max-heap
+    private final class PageSearch {
+        static final Comparator<Candidate> ORDER =
+                Comparator.comparingDouble(Candidate::chordSquared).thenComparingInt(Candidate::position);
+
+        private final double[] query;
+        private final double limitChord; // Pătratul coardei corespunzătoare distanței maxime
+        private final PageKey after; // Ultimul rezultat deja trimis
+        private final int limit;
+        private final PriorityQueue<Candidate> heap = new PriorityQueue<>(ORDER.reversed());
+
+        PageSearch(double[] query, double limitChord, PageKey after, int limit) {
+            this.query = query;
+            this.limitChord = limitChord;
+            this.after = after;
+            this.limit = limit;
+        }
+
+        // Distanța peste care niciun punct nu mai poate intra în pagină
+        private double bound() {
+            return heap.size() < limit ? limitChord : Math.min(limitChord, heap.peek().chordSquared());
+        }
+
+        void visit(int from, int to, double[] low, double[] high) {
+            if (to <= from || minChordSquared(query, low, high) > bound() + BOUND_MARGIN) {
+                return;
+            }
+            if (after != null && maxChordSquared(query, low, high) < after.chordSquared() - BOUND_MARGIN) {
+                return; // Toată celula a fost trimisă în paginile anterioare
+            }
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    consider(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            consider(mid);
+            int axis = axes[mid];
+            double split = coordinate(mid, axis);
+            boolean lowFirst = query[axis] < split; // Întâi partea care conține punctul căutat
+            for (int side = 0; side < 2; side++) {
+                if ((side == 0) == lowFirst) {
+                    double saved = high[axis];
+                    high[axis] = Math.min(saved, split);
+                    visit(from, mid, low, high);
+                    high[axis] = saved;
+                } else {
+                    double saved = low[axis];
+                    low[axis] = Math.max(saved, split);
+                    visit(mid + 1, to, low, high);
+                    low[axis] = saved;
+                }
+            }
+        }
+
+        private void consider(int index) {
+            double d = chordSquaredTo(index, query);
+            int position = ids[index];
+            if (d > limitChord || (after != null && (d < after.chordSquared()
+                    || (d == after.chordSquared() && position <= after.position())))) {
+                return;
+            }
+            Candidate candidate = new Candidate(d, position);
+            if (heap.size() < limit) {
+                heap.add(candidate);
+            } else if (ORDER.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+    }
+
+    // Căutarea celui mai apropiat vecin, cu limită superioară inițială
+    private final class NearestSearch {
+        private final double[] query;
+        private double bestDistance;
+        private int bestIndex = -1;
+
+        NearestSearch(double[] query, double limit) {
+            this.query = query;
+            this.bestDistance = limit;
+        }
+
+        void visit(int from, int to) {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    consider(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            consider(mid);
+            double delta = query[axes[mid]] - coordinate(mid, axes[mid]);
+            // Coboară întâi în subarborele care conține punctul căutat
+            if (delta < 0) {
+                visit(from, mid);
+                if (delta * delta <= bestDistance) visit(mid + 1, to);
+            } else {
+                visit(mid + 1, to);
+                if (delta * delta <= bestDistance) visit(from, mid);
+            }
+        }
+
+        private void consider(int index) {
+            double d = chordSquaredTo(index, query);
+            if (d <= bestDistance && (bestIndex < 0 || d < bestDistance)) {
+                bestDistance = d;
+                bestIndex = index;
+            }
+        }
+    }
+
+    // Căutarea celor mai apropiați k vecini folosind un max-heap de dimensiune k
+    private final class KNearestSearch {
+        private final double[] query;
+        private final int k;
+        private final PriorityQueue<Integer> heap;
+
+        KNearestSearch(double[] query, int k) {
+            this.query = query;
+            this.k = k;
+            this.heap = new PriorityQueue<>((a, b) -> Double.compare(distanceTo(b), distanceTo(a)));
+        }
+
+        double distanceTo(int index) {
+            return chordSquaredTo(index, query);
+        }
+
+        private double worst() {
+            return heap.size() < k ? Double.POSITIVE_INFINITY : distanceTo(heap.peek());
+        }
+
+        void visit(int from, int to) {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    consider(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            consider(mid);
+            double delta = query[axes[mid]] - coordinate(mid, axes[mid]);
+            if (delta < 0) {
+                visit(from, mid);
+                if (delta * delta <= worst()) visit(mid + 1, to);
+            } else {
+                visit(mid + 1, to);
+                if (delta * delta <= worst()) visit(from, mid);
+            }
+        }
+
+        private void consider(int index) {
+            if (heap.size() < k) {
+                heap.add(index);
+            } else if (distanceTo(index) < distanceTo(heap.peek())) {
+                heap.poll();
+                heap.add(index);
+            }
+        }
+    }
+
+    // Limitele inițiale ale celulei rădăcină (sfera unitate este inclusă în cubul [-1, 1]³)
+    private static double[] initialLow() {
+        return new double[]{-1, -1, -1};
+    }
+
+    private static double[] initialHigh() {
+        return new double[]{1, 1, 1};
+    }
+
+    // Pătratul distanței minime de la punctul căutat la o celulă
+    private static double minChordSquared(double[] query, double[] low, double[] high) {
+        double sum = 0;
+        for (int axis = 0; axis < 3; axis++) {
+            double delta = Math.max(0, Math.max(low[axis] - query[axis], query[axis] - high[axis]));
+            sum += delta * delta;
+        }
+        return sum;
+    }
+
+    // Pătratul distanței maxime de la punctul căutat la o celulă (colțul cel mai îndepărtat)
+    private static double maxChordSquared(double[] query, double[] low, double[] high) {
+        double sum = 0;
+        for (int axis = 0; axis < 3; axis++) {
+            double delta = Math.max(Math.abs(query[axis] - low[axis]), Math.abs(high[axis] - query[axis]));
+            sum += delta * delta;
+        }
+        return sum;
+    }
+
+    // Transformă coordonatele geografice într-un vector pe sfera unitate
+    private static double[] toUnitVector(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        return new double[]{cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat)};
+    }
+
+    // Convertește o distanță în kilometri în pătratul coardei echivalente pe sfera unitate
+    private static double chordSquared(double distanceKm) {
+        if (Double.isInfinite(distanceKm) || distanceKm >= Math.PI * EARTH_RADIUS) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double chord = 2 * Math.sin(distanceKm / (2 * EARTH_RADIUS));
+        return chord * chord;
+    }
+
+    // Convertește pătratul coardei în distanța de-a lungul cercului mare, în kilometri
+    private static double toKilometers(double chordSquared) {
+        double halfChord = Math.min(1.0, Math.sqrt(chordSquared) / 2);
+        return 2 * EARTH_RADIUS * Math.asin(halfChord);
+    }
+}
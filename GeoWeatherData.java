@@ -6,6 +6,7 @@ import java.util.Objects;
 
 import com.google.gson.*;
 import java.lang.reflect.Type;
+import java.time.LocalDate;
 
 import com.google.gson.reflect.TypeToken;
 
@@ -22,44 +23,113 @@ public class GeoWeatherData {
     private static final String JSON_LONGITUDE = "longitude"; // Cheie pentru longitudine
     private static final String JSON_FORECAST = "forecast"; // Cheie pentru prognoză
 
-    private final double latitude; // Latitudinea locației
-    private final double longitude; // Longitudinea locației
-    private final String city; // Orașul locației
-    private final String country; // Țara locației
-    private final List<DailyForecast> weatherList; // Lista prognozelor meteo
+    public static final long NO_EPOCH_DAY = Long.MIN_VALUE; // Data prognozei nu este în format ISO
 
-    // Constructor care inițializează obiectul GeoWeatherData
+    // Obiectul este o vedere (flyweight) asupra unui rând din stocarea pe coloane WeatherColumns
+    private final WeatherColumns columns; // Stocarea care conține locația
+    private final int row; // Rândul locației în stocare
+
+    // Constructor care inițializează obiectul GeoWeatherData (creează o stocare cu un singur rând)
     public GeoWeatherData(String city, String country, Coordinates coordinates, List<DailyForecast> weatherList) {
-        this.city = city;
-        this.country = country;
-        this.latitude = coordinates.getLatitude();
-        this.longitude = coordinates.getLongitude();
-        this.weatherList = weatherList != null ? new ArrayList<>(weatherList) : new ArrayList<>();
+        WeatherColumns.Builder builder = new WeatherColumns.Builder(1)
+                .addLocation(city, country, coordinates.getLatitude(), coordinates.getLongitude());
+        if (weatherList != null) {
+            for (DailyForecast forecast : weatherList) {
+                builder.addForecast(forecast.getDate(), forecast.getCondition(), forecast.getTemperature());
+            }
+        }
+        this.columns = builder.build();
+        this.row = 0;
+    }
+
+    // Constructor pentru vederea asupra unui rând existent
+    GeoWeatherData(WeatherColumns columns, int row) {
+        this.columns = columns;
+        this.row = row;
     }
 
     // Returnează latitudinea locației
     public double getLatitude() {
-        return latitude;
+        return columns.latitude(row);
     }
 
     // Returnează longitudinea locației
     public double getLongitude() {
-        return longitude;
+        return columns.longitude(row);
     }
 
     // Returnează numele orașului
     public String getCity() {
-        return city;
+        return columns.city(row);
     }
 
     // Returnează numele țării
     public String getCountry() {
-        return country;
+        return columns.country(row);
     }
 
-    // Returnează lista prognozelor meteo
+    // Returnează lista prognozelor meteo, în ordinea datelor (construită la fiecare apel din coloane)
     public List<DailyForecast> getWeatherList() {
-        return new ArrayList<>(weatherList);
+        int count = getForecastCount();
+        List<DailyForecast> forecasts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            forecasts.add(new DailyForecast(getForecastDate(i), getForecastCondition(i), getForecastTemperature(i)));
+        }
+        return forecasts;
+    }
+
+    // Returnează numărul prognozelor, fără să construiască lista
+    public int getForecastCount() {
+        return columns.forecastCount(row);
+    }
+
+    // Returnează data prognozei i
+    public String getForecastDate(int i) {
+        return columns.forecastDate(forecast(i));
+    }
+
+    // Returnează ziua epocii pentru prognoza i, sau NO_EPOCH_DAY dacă data nu este în format ISO
+    public long getForecastEpochDay(int i) {
+        int day = columns.forecastDay(forecast(i));
+        return day == WeatherColumns.LITERAL_DATE ? NO_EPOCH_DAY : day;
+    }
+
+    // Returnează condițiile meteo ale prognozei i
+    public String getForecastCondition(int i) {
+        return columns.forecastCondition(forecast(i));
+    }
+
+    // Returnează temperatura prognozei i, stocată ca float (textul este rotunjit de DailyForecast.toTenths)
+    public double getForecastTemperature(int i) {
+        return columns.forecastTemperature(forecast(i));
+    }
+
+    // Poziția primei prognoze din data dată sau de după ea (prognozele sunt sortate după dată; căutare binară)
+    public int getForecastIndexFrom(LocalDate date) {
+        return columns.forecastBound(row, date, false);
+    }
+
+    // Poziția primei prognoze de după data dată (căutare binară)
+    public int getForecastIndexAfter(LocalDate date) {
+        return columns.forecastBound(row, date, true);
+    }
+
+    // Rândul locației în stocare
+    int row() {
+        return row;
+    }
+
+    // Verifică dacă vederea aparține stocării date
+    boolean belongsTo(WeatherColumns columns) {
+        return this.columns == columns;
+    }
+
+    // Indexul prognozei i în coloanele stocării
+    private int forecast(int i) {
+        if (i < 0 || i >= getForecastCount()) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return columns.forecastStart(row) + i;
     }
 
     // Compară două obiecte GeoWeatherData pe baza coordonatelor și informațiilor locației
@@ -68,31 +138,30 @@ public class GeoWeatherData {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         GeoWeatherData that = (GeoWeatherData) o;
-        return Double.compare(that.latitude, latitude) == 0 &&
-                Double.compare(that.longitude, longitude) == 0 &&
-                Objects.equals(city, that.city) &&
-                Objects.equals(country, that.country);
+        return Double.compare(that.getLatitude(), getLatitude()) == 0 &&
+                Double.compare(that.getLongitude(), getLongitude()) == 0 &&
+                Objects.equals(getCity(), that.getCity()) &&
+                Objects.equals(getCountry(), that.getCountry());
     }
 
     // Returnează codul hash al obiectului pe baza coordonatelor și informațiilor locației
     @Override
     public int hashCode() {
-        return Objects.hash(latitude, longitude, city, country);
+        return Objects.hash(getLatitude(), getLongitude(), getCity(), getCountry());
     }
 
     // Formatează informațiile despre prognoza meteo într-un șir de caractere
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        sb.append(String.format(WEATHER_HEADER_FORMAT, city, country, latitude, longitude));
+        sb.append(String.format(WEATHER_HEADER_FORMAT, getCity(), getCountry(), getLatitude(), getLongitude()));
+        List<DailyForecast> weatherList = getWeatherList();
 
         if (weatherList.isEmpty()) {
             sb.append(NO_WEATHER_MESSAGE); // Adaugă mesajul pentru lipsa datelor
         } else {
-            // Sortează prognozele în ordine cronologică și le adaugă în șirul de caractere
-            weatherList.stream()
-                    .sorted((f1, f2) -> f1.getDate().compareTo(f2.getDate()))
-                    .forEach(forecast -> sb.append(forecast).append("\n"));
+            // Prognozele sunt deja în ordine cronologică (sortate la încărcare)
+            weatherList.forEach(forecast -> sb.append(forecast).append("\n"));
         }
 
         return sb.toString();
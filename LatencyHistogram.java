@@ -0,0 +1,135 @@
+package common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramă de latențe în stilul HdrHistogram: intervale log-liniare, cu SUB_BUCKETS subintervale egale
+ * pentru fiecare putere a lui 2, deci eroarea relativă a unui percentil este sub 1/SUB_BUCKETS (~3%)
+ * pe tot domeniul, de la nanosecunde la ore. Înregistrarea este fără blocare (un singur incrementAndGet);
+ * percentilele se calculează dintr-o copie a contoarelor, care poate fi ușor decalată față de înregistrările concurente.
+ * Folosită de metricile serverului și de generatorul de încărcare al clientului.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5; // log2(SUB_BUCKETS)
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // Subintervale pentru fiecare putere a lui 2
+    private static final int BUCKET_COUNT = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS; // Toate valorile long pozitive
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT); // Numărul de valori din fiecare interval
+    private final LongAdder total = new LongAdder(); // Numărul de valori
+    private final LongAdder sum = new LongAdder(); // Suma valorilor (pentru medie)
+    private final AtomicLong max = new AtomicLong(); // Valoarea maximă
+
+    /**
+     * Rezumatul histogramei; valorile sunt în aceeași unitate ca înregistrările (nanosecunde).
+     */
+    public record Summary(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+    }
+
+    // Înregistrează o valoare (valorile negative sunt tratate ca 0)
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    // Înregistrează de mai multe ori aceeași valoare
+    private void record(long value, long count) {
+        long v = Math.max(0, value);
+        counts.addAndGet(indexOf(v), count);
+        total.add(count);
+        sum.add(v * count);
+        if (v > max.get()) {
+            max.accumulateAndGet(v, Math::max);
+        }
+    }
+
+    // Adaugă valorile altei histograme (de exemplu pentru un total peste mai multe histograme)
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+                total.add(count);
+            }
+        }
+        sum.add(other.sum.sum());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    /**
+     * Copie corectată pentru omisiunea coordonată (ca HdrHistogram.copyCorrectedForCoordinatedOmission):
+     * o cerere care a durat mai mult decât intervalul așteptat dintre cereri a amânat cererile care ar fi fost
+     * trimise între timp, deci pentru fiecare astfel de valoare v se adaugă și valorile v - interval, v - 2 * interval etc.
+     * Are sens pentru măsurătorile în buclă închisă, unde clientul așteaptă răspunsul înainte de cererea următoare.
+     * @param expectedInterval Intervalul obișnuit dintre două cereri ale aceluiași client (în aceeași unitate ca valorile).
+     * @return Histograma corectată; histograma curentă nu se modifică.
+     */
+    public LatencyHistogram copyCorrectedForCoordinatedOmission(long expectedInterval) {
+        LatencyHistogram corrected = new LatencyHistogram();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i);
+            if (count == 0) {
+                continue;
+            }
+            long value = Math.min(highestValueIn(i), max.get());
+            corrected.record(value, count);
+            if (expectedInterval <= 0) {
+                continue;
+            }
+            for (long missing = value - expectedInterval; missing >= expectedInterval; missing -= expectedInterval) {
+                corrected.record(missing, count);
+            }
+        }
+        return corrected;
+    }
+
+    public Summary summary() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return new Summary(0, 0, 0, 0, 0, 0, 0);
+        }
+        long maxValue = max.get();
+        return new Summary(count, (double) sum.sum() / Math.max(1, total.sum()),
+                percentile(snapshot, count, 0.50, maxValue), percentile(snapshot, count, 0.90, maxValue),
+                percentile(snapshot, count, 0.99, maxValue), percentile(snapshot, count, 0.999, maxValue), maxValue);
+    }
+
+    // Cea mai mare valoare din intervalul în care cade rangul cerut (limitată de maxim)
+    private static long percentile(long[] snapshot, long count, double quantile, long maxValue) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    // Intervalul unei valori: valorile mici au câte un interval propriu, restul câte SUB_BUCKETS pe putere a lui 2
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value); // >= SUB_BUCKET_BITS
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS; // Biții de sub cel mai semnificativ
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    // Cea mai mare valoare care cade în intervalul dat
+    static long highestValueIn(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,277 @@
+package common;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coadă de scriere întârziată (write-behind) pentru locațiile clienților.
+ * submit() doar pune locația în coadă și revine imediat; un fir separat le scrie în loturi JDBC când se adună
+ * batchSize locații sau când cea mai veche așteaptă de flushMillis. Actualizările repetate ale aceluiași client
+ * sunt comasate (rămâne doar ultima). Când coada este plină, submit() așteaptă cel mult offerTimeoutMillis
+ * (backpressure) și apoi renunță. Un lot care eșuează este pus înapoi în coadă și reîncercat,
+ * fără să suprascrie actualizările mai noi sosite între timp.
+ */
+public final class LocationWriteQueue {
+    private static final long RETRY_DELAY_MILLIS = 1_000; // Pauza după un lot eșuat
+    private static final String WRITER_THREAD_NAME = "location-writer"; // Numele firului de scriere
+
+    private final BatchWriter writer; // Scrie un lot în baza de date
+    private final int batchSize; // Dimensiunea maximă a unui lot
+    private final long flushNanos; // Cât poate aștepta o locație în coadă
+    private final int capacity; // Numărul maxim de clienți în așteptare
+    private final long offerTimeoutNanos; // Cât așteaptă submit() când coada este plină
+    private final Thread thread; // Firul de scriere
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition(); // Semnal pentru firul de scriere
+    private final Condition spaceAvailable = lock.newCondition(); // Semnal pentru submit() blocat
+    private final Condition progress = lock.newCondition(); // Semnal pentru flush()
+    private final LinkedHashMap<String, PendingLocation> pending = new LinkedHashMap<>(); // Ultima locație a fiecărui client
+    private long oldestNanos; // Momentul în care a intrat în coadă cea mai veche locație
+    private long sequence; // Numărul de locații primite
+    private long writtenSequence; // Toate locațiile până la acest număr au fost scrise (sau comasate)
+    private boolean flushRequested; // Un apel flush() așteaptă golirea cozii
+    private boolean closed; // Nu se mai primesc locații
+    private long coalesced; // Locații înlocuite de o actualizare mai nouă
+    private long written; // Locații scrise
+    private long batches; // Loturi scrise
+    private long failures; // Loturi eșuate
+    private long rejected; // Locații refuzate (coadă plină sau închisă)
+
+    /**
+     * O locație care așteaptă să fie scrisă.
+     */
+    record PendingLocation(String clientId, String city, double latitude, double longitude) {
+    }
+
+    /**
+     * Scrie un lot de locații; o excepție înseamnă că lotul trebuie reîncercat.
+     */
+    interface BatchWriter {
+        void write(List<PendingLocation> batch) throws SQLException;
+    }
+
+    /**
+     * Statistica cozii.
+     */
+    public record Stats(int queueDepth, long submitted, long coalesced, long written, long batches, long failures,
+                        long rejected) {
+    }
+
+    LocationWriteQueue(BatchWriter writer, int batchSize, long flushMillis, int capacity, long offerTimeoutMillis) {
+        if (batchSize <= 0 || flushMillis <= 0 || capacity <= 0 || offerTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Invalid write queue configuration");
+        }
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.capacity = capacity;
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        this.thread = new Thread(this::run, WRITER_THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Pune locația în coadă, înlocuind o locație încă nescrisă a aceluiași client.
+     * @return false dacă coada a rămas plină mai mult de offerTimeoutMillis sau este închisă.
+     */
+    boolean submit(PendingLocation location) {
+        lock.lock();
+        try {
+            if (!pending.containsKey(location.clientId())) {
+                long remaining = offerTimeoutNanos;
+                while (pending.size() >= capacity && !closed) {
+                    if (remaining <= 0) {
+                        rejected++;
+                        return false;
+                    }
+                    remaining = spaceAvailable.awaitNanos(remaining);
+                }
+            } else {
+                coalesced++;
+            }
+            if (closed) {
+                rejected++;
+                return false;
+            }
+            if (pending.isEmpty()) {
+                oldestNanos = System.nanoTime();
+            }
+            pending.put(location.clientId(), location);
+            sequence++;
+            workAvailable.signal();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected++;
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Ultima locație nescrisă a unui client, sau null
+    PendingLocation pending(String clientId) {
+        lock.lock();
+        try {
+            return pending.get(clientId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Scrie imediat tot ce a fost primit până acum și așteaptă terminarea.
+     * @return true dacă toate locațiile au fost scrise în timpul dat.
+     */
+    boolean flush(long timeoutMillis) {
+        lock.lock();
+        try {
+            long target = sequence;
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (writtenSequence < target) {
+                if (remaining <= 0 || !thread.isAlive()) {
+                    return false;
+                }
+                flushRequested = true;
+                workAvailable.signal();
+                remaining = progress.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(pending.size(), sequence, coalesced, written, batches, failures, rejected);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Numărul de clienți care așteaptă să fie scriși
+    int queueDepth() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Oprește primirea locațiilor, scrie ce a rămas (cel mult timeoutMillis) și oprește firul de scriere.
+     * @return Numărul de locații care nu au putut fi scrise.
+     */
+    int close(long timeoutMillis) {
+        flush(timeoutMillis);
+        lock.lock();
+        try {
+            closed = true;
+            workAvailable.signal();
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            thread.join(Math.max(1, timeoutMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread.interrupt(); // Un lot care tot eșuează nu mai este reîncercat
+        return queueDepth();
+    }
+
+    // Bucla firului de scriere
+    private void run() {
+        while (true) {
+            List<PendingLocation> batch;
+            long batchSequence;
+            lock.lock();
+            try {
+                while (!closed && !flushRequested && pending.size() < batchSize) {
+                    if (pending.isEmpty()) {
+                        workAvailable.await();
+                        continue;
+                    }
+                    long remaining = oldestNanos + flushNanos - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    workAvailable.awaitNanos(remaining);
+                }
+                if (pending.isEmpty()) {
+                    flushRequested = false;
+                    writtenSequence = sequence;
+                    progress.signalAll();
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+                Iterator<PendingLocation> iterator = pending.values().iterator();
+                while (iterator.hasNext() && batch.size() < batchSize) {
+                    batch.add(iterator.next());
+                    iterator.remove();
+                }
+                oldestNanos = System.nanoTime(); // Locațiile rămase nu mai așteaptă un lot întreg
+                batchSequence = pending.isEmpty() ? sequence : writtenSequence;
+                spaceAvailable.signalAll();
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            boolean success;
+            try {
+                writer.write(batch);
+                success = true;
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Eroare la salvarea locațiilor: " + e.getMessage());
+                success = false;
+            }
+
+            lock.lock();
+            try {
+                if (success) {
+                    written += batch.size();
+                    batches++;
+                    writtenSequence = Math.max(writtenSequence, batchSequence);
+                    progress.signalAll();
+                } else {
+                    failures++;
+                    if (pending.isEmpty()) {
+                        oldestNanos = System.nanoTime();
+                    }
+                    for (PendingLocation location : batch) {
+                        pending.putIfAbsent(location.clientId(), location); // O actualizare mai nouă are prioritate
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (!success) {
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
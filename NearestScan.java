@@ -0,0 +1,72 @@
+package common;
+
+/**
+ * Parcurgere liniară pentru cel mai apropiat punct, peste coordonatele pe sfera unitate ale unui GeoSpatialIndex.
+ * Distanța folosită este pătratul coardei, monotonă față de distanța Haversine, deci nu necesită sin/cos per punct.
+ */
+interface NearestScan {
+    NearestScan SCALAR = new Scalar(); // Implementarea scalară
+
+    /**
+     * @param query Punctul căutat (x, y, z).
+     * @param limit Pătratul coardei maxime acceptate.
+     * @return Indexul celui mai apropiat punct aflat în limită, sau -1.
+     */
+    int nearest(double[] xs, double[] ys, double[] zs, double[] query, double limit);
+
+    // Implementarea SIMD, sau cea scalară dacă modulul jdk.incubator.vector lipsește
+    static NearestScan vector() {
+        return VectorHolder.INSTANCE;
+    }
+
+    /**
+     * Varianta scalară: un punct este comparat complet doar dacă trece de filtrul pe axa z
+     * (diferența de latitudine), care singur nu poate depăși distanța coardei.
+     */
+    final class Scalar implements NearestScan {
+        @Override
+        public int nearest(double[] xs, double[] ys, double[] zs, double[] query, double limit) {
+            double qx = query[0], qy = query[1], qz = query[2];
+            double best = Math.nextUp(limit); // d < best este echivalent cu d <= limit
+            int bestIndex = -1;
+            for (int i = 0; i < zs.length; i++) {
+                double dz = zs[i] - qz;
+                double d = dz * dz;
+                if (d >= best) {
+                    continue; // În afara benzii de latitudine
+                }
+                double dx = xs[i] - qx;
+                double dy = ys[i] - qy;
+                d += dx * dx + dy * dy;
+                if (d < best) {
+                    best = d;
+                    bestIndex = i;
+                }
+            }
+            return bestIndex;
+        }
+    }
+
+    /**
+     * Încarcă implementarea SIMD o singură dată, prin reflecție, ca restul codului să nu depindă de modulul incubator.
+     */
+    final class VectorHolder {
+        private static final String VECTOR_MODULE = "jdk.incubator.vector"; // Modulul Vector API
+        private static final String VECTOR_CLASS = "common.VectorNearestScan"; // Implementarea SIMD
+        static final NearestScan INSTANCE = load();
+
+        private VectorHolder() {
+        }
+
+        private static NearestScan load() {
+            if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+                return SCALAR;
+            }
+            try {
+                return (NearestScan) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return SCALAR;
+            }
+        }
+    }
+}
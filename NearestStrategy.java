@@ -0,0 +1,35 @@
+package common;
+
+import java.util.Locale;
+
+/**
+ * Modul de căutare a locației celei mai apropiate.
+ * TREE parcurge indexul k-d; SCALAR și VECTOR parcurg liniar coordonatele precalculate ale indexului
+ * (vectori pe sfera unitate, în tablouri separate), fără funcții trigonometrice per locație.
+ * VECTOR folosește jdk.incubator.vector dacă modulul este disponibil (--add-modules jdk.incubator.vector),
+ * altfel revine la SCALAR.
+ */
+public enum NearestStrategy {
+    TREE,   // Indexul k-d (implicit)
+    SCALAR, // Parcurgere liniară, cu filtrare după banda de latitudine
+    VECTOR; // Parcurgere liniară SIMD
+
+    // Interpretează numele modului, indiferent de majuscule
+    public static NearestStrategy parse(String value) {
+        return NearestStrategy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    // Verifică dacă modul VECTOR folosește efectiv instrucțiuni SIMD
+    public static boolean isVectorAvailable() {
+        return !(NearestScan.vector() instanceof NearestScan.Scalar);
+    }
+
+    // Implementarea parcurgerii liniare (null pentru TREE)
+    NearestScan scan() {
+        return switch (this) {
+            case TREE -> null;
+            case SCALAR -> NearestScan.SCALAR;
+            case VECTOR -> NearestScan.vector();
+        };
+    }
+}
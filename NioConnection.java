@@ -0,0 +1,424 @@
+package server;
+
+import common.BinaryWeatherCodec;
+import common.WeatherDataManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+/**
+ * Clasa NioConnection păstrează starea unei conexiuni în modul NIO.
+ * Bucla de evenimente citește octeții și îi decodează incremental în linii sau, după negocierea protocolului
+ * binar, în cadre; mesajele complete sunt procesate de ProtocolSession sau BinarySession pe un fir de lucru,
+ * astfel încât comenzile lente (de exemplu IMPORT) nu blochează bucla. Răspunsurile sunt puse într-o coadă
+ * și scrise de buclă când canalul permite. Firele de lucru sunt în număr fix, deci nu așteaptă niciodată un client
+ * lent: dacă răspunsurile din coadă depășesc HIGH_WATER_MARK, conexiunea nu mai preia comenzi noi până când
+ * bucla golește coada, apoi procesarea este reluată de buclă. Sesiunea și bufferele de răspuns sunt create abia
+ * la primul mesaj, iar blocurile de răspuns sunt eliberate după scriere, astfel încât o conexiune inactivă
+ * păstrează doar starea decodorului.
+ */
+final class NioConnection {
+    private static final int MAX_LINE_LENGTH = 64 * 1024; // Lungimea maximă a unei linii primite
+    private static final int MAX_PENDING_LINES = 1024; // Peste acest număr de linii neprocesate citirea se suspendă
+    private static final int CHUNK_SIZE = 8 * 1024; // Dimensiunea blocurilor de răspuns puse în coadă
+    private static final int HIGH_WATER_MARK = 1024 * 1024; // Peste acest număr de octeți în coadă nu se mai preiau comenzi
+    private static final String END_OF_STREAM = new String("EOF"); // Marcaj (comparat prin referință) pentru sfârșitul fluxului
+    private static final String COMMAND_FAILED_MESSAGE = "Command failed, closing connection: "; // Mesaj pentru o comandă terminată cu excepție
+
+    private final SocketChannel channel; // Canalul clientului
+    private final NioWeatherServer.EventLoop eventLoop; // Bucla de evenimente care deține canalul
+    private final Executor workers; // Executorul pentru procesarea comenzilor
+    private final WeatherDataManager weatherDataManager; // Managerul datelor meteo
+    private final ServerMetrics metrics; // Metricile serverului
+    private final ChannelOutputStream output = new ChannelOutputStream(); // Fluxul răspunsurilor
+    private ProtocolSession session; // Sesiunea protocolului text (creată de firul de lucru la prima linie)
+    private BinarySession binarySession; // Sesiunea protocolului binar (după negociere)
+    private SelectionKey key; // Cheia de înregistrare în selector
+
+    // Starea decodorului (folosită doar de bucla de evenimente)
+    private byte[] received = new byte[0]; // Octeții primiți și încă nedecodați
+    private int receivedLength; // Numărul de octeți valizi din received
+    private boolean firstLine = true; // Următoarea linie este prima (rolul sau negocierea)
+    private boolean binary; // Conexiunea folosește protocolul binar
+
+    // Starea partajată între buclă și firul de lucru (protejată de this)
+    private final ArrayDeque<Object> pendingLines = new ArrayDeque<>(); // Linii (String) sau cadre (Frame) care așteaptă procesarea
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>(); // Răspunsuri care așteaptă scrierea
+    private long outboundBytes; // Numărul de octeți din coada de răspunsuri
+    private boolean processing; // Un fir de lucru procesează liniile
+    private boolean outputBlocked; // Procesarea așteaptă golirea cozii de răspunsuri
+    private boolean readSuspended; // Citirea este suspendată din cauza liniilor neprocesate
+    private boolean flushScheduled; // Scrierea cozii este deja programată în buclă
+    private boolean closeRequested; // Canalul se închide după golirea cozii
+    private boolean closed; // Canalul a fost închis
+
+    /**
+     * Constructorul clasei NioConnection.
+     * @param channel Canalul clientului, în mod neblocant.
+     * @param eventLoop Bucla de evenimente care deține canalul.
+     * @param workers Executorul pentru procesarea comenzilor.
+     * @param weatherDataManager Instanța WeatherDataManager pentru manipularea datelor meteo.
+     * @param metrics Registrul în care sunt înregistrate conexiunea și comenzile ei.
+     */
+    NioConnection(SocketChannel channel, NioWeatherServer.EventLoop eventLoop, Executor workers, WeatherDataManager weatherDataManager,
+                  ServerMetrics metrics) {
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.workers = workers;
+        this.weatherDataManager = weatherDataManager;
+        this.metrics = metrics;
+    }
+
+    // Un cadru binar complet
+    private record Frame(byte type, byte[] payload) {
+    }
+
+    // Asociază cheia de selecție (apelat de buclă după înregistrare)
+    void attach(SelectionKey key) {
+        this.key = key;
+        metrics.connectionOpened(); // Conexiunea este numărată doar după înregistrare, pereche cu close()
+    }
+
+    /**
+     * Citește octeții disponibili și îi decodează în linii (apelat de buclă).
+     * @param readBuffer Buffer direct partajat de toate conexiunile buclei.
+     */
+    void onReadable(ByteBuffer readBuffer) {
+        int read;
+        try {
+            readBuffer.clear();
+            read = channel.read(readBuffer);
+        } catch (IOException e) {
+            close();
+            return;
+        }
+        if (read < 0) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            enqueueLine(END_OF_STREAM); // Clientul a închis fluxul de intrare
+            return;
+        }
+        readBuffer.flip();
+        appendReceived(readBuffer);
+
+        int consumed = binary ? decodeFrames(0) : decodeLines();
+        if (consumed < 0) {
+            close(); // Linie sau cadru prea lung
+            return;
+        }
+        receivedLength -= consumed;
+        System.arraycopy(received, consumed, received, 0, receivedLength);
+        if (receivedLength == 0 && received.length > CHUNK_SIZE) {
+            received = new byte[0]; // Eliberează bufferul mărit de un mesaj lung
+        }
+    }
+
+    // Adaugă octeții citiți la cei încă nedecodați
+    private void appendReceived(ByteBuffer buffer) {
+        int count = buffer.remaining();
+        if (receivedLength + count > received.length) {
+            received = Arrays.copyOf(received, Math.max(receivedLength + count, Math.max(64, received.length * 2)));
+        }
+        buffer.get(received, receivedLength, count);
+        receivedLength += count;
+    }
+
+    // Separă liniile după '\n' (ignorând '\r' final); returnează numărul de octeți consumați sau -1
+    private int decodeLines() {
+        int start = 0;
+        for (int i = 0; i < receivedLength; i++) {
+            if (received[i] != '\n') {
+                continue;
+            }
+            int length = i - start;
+            if (length > 0 && received[i - 1] == '\r') {
+                length--;
+            }
+            String line = new String(received, start, length, StandardCharsets.UTF_8);
+            start = i + 1;
+            if (firstLine && BinaryWeatherCodec.HANDSHAKE.equals(line)) {
+                // Negocierea protocolului binar: restul octeților sunt cadre
+                firstLine = false;
+                binary = true;
+                binarySession = new BinarySession(weatherDataManager, output, metrics);
+                return decodeFrames(start);
+            }
+            firstLine = false;
+            enqueueLine(line);
+        }
+        return receivedLength - start > MAX_LINE_LENGTH ? -1 : start;
+    }
+
+    // Extrage cadrele complete începând cu poziția dată; returnează numărul de octeți consumați sau -1
+    private int decodeFrames(int start) {
+        while (receivedLength - start >= BinaryWeatherCodec.FRAME_HEADER_SIZE) {
+            int length = ByteBuffer.wrap(received, start, 4).getInt();
+            if (length < 0 || length > BinaryWeatherCodec.MAX_FRAME_LENGTH) {
+                return -1;
+            }
+            if (receivedLength - start < BinaryWeatherCodec.FRAME_HEADER_SIZE + length) {
+                break; // Cadru incomplet
+            }
+            byte type = received[start + 4];
+            byte[] payload = Arrays.copyOfRange(received, start + BinaryWeatherCodec.FRAME_HEADER_SIZE,
+                    start + BinaryWeatherCodec.FRAME_HEADER_SIZE + length);
+            enqueueLine(new Frame(type, payload));
+            start += BinaryWeatherCodec.FRAME_HEADER_SIZE + length;
+        }
+        return start;
+    }
+
+    // Pune o linie sau un cadru în coadă și pornește procesarea dacă nu rulează deja
+    private void enqueueLine(Object line) {
+        boolean startWorker;
+        synchronized (this) {
+            if (closed || closeRequested) {
+                return;
+            }
+            pendingLines.add(line);
+            if (pendingLines.size() >= MAX_PENDING_LINES && !readSuspended) {
+                readSuspended = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+            startWorker = !processing && !outputBlocked;
+            processing |= startWorker;
+        }
+        if (startWorker) {
+            workers.execute(this::processLines);
+        }
+    }
+
+    // Procesează liniile din coadă pe un fir de lucru, în ordinea sosirii
+    private void processLines() {
+        while (true) {
+            Object line;
+            boolean resumeRead = false;
+            synchronized (this) {
+                if (outboundBytes > HIGH_WATER_MARK && !closed) {
+                    outputBlocked = true; // Clientul citește mai încet decât se produc răspunsurile: firul este eliberat
+                    processing = false;
+                    return;
+                }
+                line = pendingLines.poll();
+                if (line == null || closed) {
+                    processing = false;
+                    return;
+                }
+                if (readSuspended && pendingLines.size() < MAX_PENDING_LINES / 2) {
+                    readSuspended = false;
+                    resumeRead = true;
+                }
+            }
+            if (resumeRead) {
+                eventLoop.execute(this::resumeReading);
+            }
+
+            boolean keepOpen;
+            try {
+                if (line == END_OF_STREAM) {
+                    if (binarySession == null) {
+                        textSession().onEndOfStream();
+                    }
+                    keepOpen = false;
+                } else if (line instanceof Frame frame) {
+                    keepOpen = processFrame(frame);
+                } else {
+                    keepOpen = textSession().onLine((String) line);
+                }
+            } catch (RuntimeException e) {
+                System.err.println(COMMAND_FAILED_MESSAGE + e); // Comanda a eșuat; starea sesiunii nu mai este sigură
+                keepOpen = false;
+            }
+            if (!keepOpen) {
+                synchronized (this) {
+                    pendingLines.clear(); // Nicio altă linie nu mai este procesată
+                    processing = false;
+                }
+                requestClose();
+                return;
+            }
+        }
+    }
+
+    // Sesiunea protocolului text, creată la prima linie (apelat doar de firul de lucru activ)
+    private ProtocolSession textSession() {
+        if (session == null) {
+            session = new ProtocolSession(weatherDataManager, output, metrics);
+        }
+        return session;
+    }
+
+    // Procesează un cadru binar; returnează false dacă răspunsul nu mai poate fi trimis
+    private boolean processFrame(Frame frame) {
+        try {
+            binarySession.onFrame(frame.type(), ByteBuffer.wrap(frame.payload()));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Reactivează citirea (apelat de buclă)
+    private void resumeReading() {
+        if (key.isValid()) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+        }
+    }
+
+    // Cere închiderea canalului după trimiterea tuturor răspunsurilor
+    private void requestClose() {
+        synchronized (this) {
+            closeRequested = true;
+        }
+        scheduleFlush();
+    }
+
+    // Pune un bloc de răspuns în coadă (fără așteptare; limita este aplicată între comenzi, în processLines)
+    private void enqueueOutbound(ByteBuffer data) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            outbound.add(data);
+            outboundBytes += data.remaining();
+        }
+        scheduleFlush();
+    }
+
+    // Programează scrierea cozii în bucla de evenimente (cel mult o programare activă)
+    private void scheduleFlush() {
+        synchronized (this) {
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        eventLoop.execute(this::onWritable);
+    }
+
+    /**
+     * Scrie cât mai mult din coada de răspunsuri (apelat de buclă).
+     */
+    void onWritable() {
+        boolean finished;
+        boolean resumeProcessing = false;
+        synchronized (this) {
+            flushScheduled = false;
+            if (closed) {
+                return;
+            }
+            try {
+                while (!outbound.isEmpty()) {
+                    ByteBuffer head = outbound.peek();
+                    int written = channel.write(head);
+                    outboundBytes -= written;
+                    if (head.hasRemaining()) {
+                        break; // Bufferul socket-ului este plin
+                    }
+                    outbound.poll();
+                }
+            } catch (IOException e) {
+                closeLocked();
+                return;
+            }
+            if (outputBlocked && outboundBytes <= HIGH_WATER_MARK / 2) {
+                outputBlocked = false; // Coada s-a golit suficient: procesarea comenzilor este reluată
+                resumeProcessing = !pendingLines.isEmpty() && !processing;
+                processing |= resumeProcessing;
+            }
+            finished = outbound.isEmpty() && closeRequested;
+            if (!finished && key.isValid()) {
+                int ops = key.interestOps();
+                key.interestOps(outbound.isEmpty() ? ops & ~SelectionKey.OP_WRITE : ops | SelectionKey.OP_WRITE);
+            }
+        }
+        if (finished) {
+            close();
+        } else if (resumeProcessing) {
+            workers.execute(this::processLines);
+        }
+    }
+
+    /**
+     * Închide canalul; liniile și răspunsurile din coadă sunt abandonate.
+     */
+    synchronized void close() {
+        closeLocked();
+    }
+
+    private void closeLocked() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        metrics.connectionClosed();
+        outbound.clear();
+        pendingLines.clear();
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Canalul este deja închis
+        }
+    }
+
+    /**
+     * Flux de ieșire care pune răspunsurile în coada conexiunii în blocuri de CHUNK_SIZE octeți.
+     * Blocul este alocat la prima scriere și predat cozii la flush, deci între răspunsuri fluxul nu ține memorie.
+     */
+    private final class ChannelOutputStream extends OutputStream {
+        private byte[] buffer; // Octeții încă netrimiși în coadă (null până la următoarea scriere)
+        private int count; // Numărul de octeți valizi din buffer
+
+        @Override
+        public void write(int b) {
+            ensureBuffer();
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            while (length > 0) {
+                ensureBuffer();
+                int chunk = Math.min(length, buffer.length - count);
+                System.arraycopy(bytes, offset, buffer, count, chunk);
+                count += chunk;
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (count == 0) {
+                return;
+            }
+            enqueueOutbound(ByteBuffer.wrap(buffer, 0, count));
+            buffer = null; // Bufferul aparține acum cozii și este eliberat după scriere
+            count = 0;
+        }
+
+        // Alocă un bloc nou dacă nu există unul sau dacă cel curent este plin
+        private void ensureBuffer() {
+            if (buffer != null && count == buffer.length) {
+                flush();
+            }
+            if (buffer == null) {
+                buffer = new byte[CHUNK_SIZE];
+            }
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+    }
+}
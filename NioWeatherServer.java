@@ -0,0 +1,212 @@
+package server;
+
+import common.WeatherDataManager;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Clasa NioWeatherServer este varianta neblocantă a serverului, bazată pe java.nio.
+ * Un fir acceptă conexiunile și le distribuie circular unui număr fix de bucle de evenimente;
+ * fiecare buclă are propriul Selector și un singur buffer direct pentru citire, astfel încât
+ * conexiunile inactive nu consumă fire și aproape deloc memorie. Comenzile rulează pe un pool fix de fire de lucru,
+ * deci numărul total de fire nu depinde de numărul de conexiuni. Protocolul este identic cu cel
+ * al serverului blocant, deci clienții existenți funcționează fără modificări.
+ */
+final class NioWeatherServer implements AutoCloseable {
+    // Constante
+    private static final int READ_BUFFER_SIZE = 64 * 1024; // Dimensiunea bufferului direct de citire al fiecărei bucle
+    private static final String EVENT_LOOP_THREAD_NAME = "nio-event-loop-"; // Prefixul numelui firelor buclelor
+    private static final String WORKER_THREAD_NAME = "nio-worker-"; // Prefixul numelui firelor de lucru
+    private static final String EVENT_LOOP_ERROR_MESSAGE = "Event loop error: "; // Mesaj pentru eroare în buclă
+    private static final String CONNECTION_ERROR_MESSAGE = "Connection error, closing it: "; // Mesaj pentru eroarea unei conexiuni
+
+    private final int port; // Portul pe care serverul ascultă
+    private final WeatherDataManager weatherDataManager; // Managerul datelor meteo
+    private final ServerMetrics metrics; // Metricile serverului
+    private final EventLoop[] eventLoops; // Buclele de evenimente
+    private final ExecutorService workers; // Pool-ul fix de fire pentru comenzi
+    private volatile ServerSocketChannel serverChannel; // Canalul pe care se acceptă conexiunile (null înainte de serve)
+    private volatile boolean running = true; // Serverul rulează
+
+    /**
+     * Constructorul clasei NioWeatherServer.
+     * @param port Portul pe care serverul ascultă.
+     * @param weatherDataManager Instanța WeatherDataManager pentru manipularea datelor meteo.
+     * @param eventLoopCount Numărul de bucle de evenimente.
+     * @param workerCount Numărul de fire care rulează comenzile.
+     * @param metrics Registrul în care sunt înregistrate conexiunile și comenzile.
+     */
+    NioWeatherServer(int port, WeatherDataManager weatherDataManager, int eventLoopCount, int workerCount,
+                     ServerMetrics metrics) throws IOException {
+        this.port = port;
+        this.weatherDataManager = weatherDataManager;
+        this.metrics = metrics;
+        AtomicInteger workerIndex = new AtomicInteger();
+        // Coada este nelimitată: sarcinile vin din bucle și nu pot fi respinse; NioConnection limitează câte linii așteaptă
+        this.workers = new ThreadPoolExecutor(Math.max(1, workerCount), Math.max(1, workerCount), 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, WORKER_THREAD_NAME + workerIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.eventLoops = new EventLoop[Math.max(1, eventLoopCount)];
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new EventLoop();
+            Thread thread = new Thread(eventLoops[i], EVENT_LOOP_THREAD_NAME + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Acceptă conexiuni până la oprirea serverului (blochează firul apelant); close() deblochează accept().
+     * @param onAccepted Apelat pentru fiecare conexiune acceptată (de exemplu pentru jurnalizare).
+     */
+    void serve(Consumer<SocketChannel> onAccepted) throws IOException {
+        try (ServerSocketChannel channel = ServerSocketChannel.open()) {
+            serverChannel = channel;
+            if (!running) {
+                return; // close() a fost apelat înainte ca acest canal să existe
+            }
+            channel.bind(new InetSocketAddress(port));
+            int next = 0;
+            while (running) {
+                SocketChannel client;
+                try {
+                    client = channel.accept(); // Acceptă blocant conexiunea unui client
+                } catch (ClosedChannelException e) {
+                    if (running) {
+                        throw e;
+                    }
+                    return; // Oprit prin close()
+                }
+                onAccepted.accept(client);
+                eventLoops[next].register(client);
+                next = (next + 1) % eventLoops.length;
+            }
+        }
+    }
+
+    /**
+     * Oprește acceptarea conexiunilor, buclele de evenimente și executorul comenzilor; poate fi apelată din orice fir.
+     */
+    @Override
+    public void close() {
+        running = false;
+        ServerSocketChannel channel = serverChannel;
+        if (channel != null) {
+            try {
+                channel.close(); // Deblochează accept()
+            } catch (IOException e) {
+                // Canalul este deja închis
+            }
+        }
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.stop();
+        }
+        workers.shutdown();
+    }
+
+    /**
+     * O buclă de evenimente: un fir, un Selector și o coadă de sarcini trimise din alte fire.
+     */
+    final class EventLoop implements Runnable {
+        private final Selector selector; // Selectorul buclei
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>(); // Sarcini de rulat pe firul buclei
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE); // Buffer de citire partajat
+        private volatile boolean active = true; // Bucla rulează
+
+        EventLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        // Rulează o sarcină pe firul buclei
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        // Înregistrează un canal nou în selectorul buclei
+        void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    channel.configureBlocking(false);
+                    NioConnection connection = new NioConnection(channel, this, workers, weatherDataManager, metrics);
+                    connection.attach(channel.register(selector, SelectionKey.OP_READ, connection));
+                } catch (IOException e) {
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {
+                        // Canalul este deja închis
+                    }
+                }
+            });
+        }
+
+        void stop() {
+            active = false;
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (active) {
+                    selector.select();
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        try {
+                            task.run();
+                        } catch (RuntimeException e) {
+                            System.err.println(EVENT_LOOP_ERROR_MESSAGE + e); // O sarcină eșuată nu oprește bucla
+                        }
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        NioConnection connection = (NioConnection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) {
+                                connection.onReadable(readBuffer);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.onWritable();
+                            }
+                        } catch (RuntimeException e) {
+                            // De exemplu CancelledKeyException, dacă un fir de lucru a închis canalul între isValid() și
+                            // isReadable(): se închide doar această conexiune, bucla continuă cu celelalte
+                            if (!(e instanceof CancelledKeyException)) {
+                                System.err.println(CONNECTION_ERROR_MESSAGE + e);
+                            }
+                            connection.close();
+                        }
+                    }
+                }
+                for (SelectionKey key : selector.keys()) {
+                    ((NioConnection) key.attachment()).close();
+                }
+                selector.close();
+            } catch (IOException e) {
+                System.err.println(EVENT_LOOP_ERROR_MESSAGE + e.getMessage()); // Mesaj pentru eroare în buclă
+            }
+        }
+    }
+}
@@ -3,12 +3,12 @@ package client;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionListener;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.net.Socket;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.io.File;
 import common.DatabaseManager;
 
@@ -26,6 +26,32 @@ public class PinkWeatherApp {
 
     private static final String SERVER_HOST = "127.0.0.1";
     private static final int SERVER_PORT = 12346;
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000; // Timpul maxim pentru conectarea la server
+    private static final int READ_TIMEOUT_MILLIS = 15_000; // Timpul maxim de așteptare a unei linii de răspuns
+    private static final int ADMIN_READ_TIMEOUT_MILLIS = 120_000; // Importul unui fișier mare răspunde mai târziu
+
+    // Mesaje de stare
+    private static final String STATUS_IDLE = "Gata.";
+    private static final String STATUS_SENDING = "Se trimite cererea...";
+    private static final String STATUS_RECEIVING = "Se primesc date (%d linii)...";
+    private static final String STATUS_DONE = "Terminat în %d ms.";
+    private static final String STATUS_CANCELLED = "Cerere anulată.";
+    private static final String STATUS_QUEUED = "Cererea va fi trimisă după cea curentă.";
+    private static final String ERROR_TIMEOUT = "Eroare: Serverul nu a răspuns la timp.";
+    private static final String NO_LOCATION_FOUND = "Nicio locație apropiată găsită.";
+
+    // Afișarea răspunsului pe măsură ce sosește: liniile sunt adăugate în zona de răspuns în loturi
+    private static final int CHUNK_LINES = 64; // Numărul maxim de linii dintr-un lot
+    private static final long CHUNK_NANOS = 50_000_000; // Vârsta maximă a unui lot (50 ms)
+
+    // Emoji-urile pentru condițiile meteo și expresia care le găsește, compilată o singură dată
+    private static final Map<String, String> EMOJI_MAP = Map.of(
+            "Sunny", "☀️",
+            "Rainy", "🌧️",
+            "Cloudy", "☁️",
+            "Snow", "❄️",
+            "Foggy", "🌫️");
+    private static final Pattern CONDITION_PATTERN = Pattern.compile(String.join("|", EMOJI_MAP.keySet()));
 
     // Variabile de instanță
     private JFrame frame;
@@ -39,11 +65,23 @@ public class PinkWeatherApp {
     private String selectedFilePath;
 
     private DatabaseManager databaseManager;
+    private JButton cancelButton;
+    private JProgressBar progressBar;
+    private JLabel statusLabel;
+
     private String currentRole;
+    private volatile WeatherServerConnection connection; // Conexiunea persistentă către server (folosită de firul cererii)
+    private RequestWorker activeRequest; // Cererea în desfășurare (accesată doar pe EDT)
+    private RequestInput pendingRequest; // Ultima cerere trimisă cât timp alta era în desfășurare (doar pe EDT)
+
+    // Datele formularului, citite pe EDT în momentul trimiterii
+    private record RequestInput(String role, String city, String latitude, String longitude, String radius, String filePath) {
+    }
 
     // Constructor: initializare app + interfata
     public PinkWeatherApp() {
         databaseManager = new DatabaseManager();
+        Runtime.getRuntime().addShutdownHook(new Thread(databaseManager::close)); // Închide conexiunile la ieșire
 
         // Configurare interfata
         frame = new JFrame(APP_TITLE);
@@ -61,7 +99,7 @@ public class PinkWeatherApp {
         headerPanel.add(headerLabel);
 
         // Formular de intrare pentru informațiile orașului și coordonatelor
-        JPanel inputPanel = new JPanel(new GridLayout(7, 2, 10, 10));
+        JPanel inputPanel = new JPanel(new GridLayout(8, 2, 10, 10));
         cityField = new JTextField();
         latitudeField = new JTextField();
         longitudeField = new JTextField();
@@ -89,6 +127,19 @@ public class PinkWeatherApp {
         inputPanel.add(new JLabel());
         inputPanel.add(submitButton);
 
+        // Starea cererii curente și butonul de anulare
+        statusLabel = new JLabel(STATUS_IDLE);
+        progressBar = new JProgressBar();
+        progressBar.setVisible(false);
+        JPanel statusPanel = new JPanel(new BorderLayout(5, 0));
+        statusPanel.add(statusLabel, BorderLayout.CENTER);
+        statusPanel.add(progressBar, BorderLayout.SOUTH);
+        cancelButton = new JButton("Anulează");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> cancelRequest());
+        inputPanel.add(statusPanel);
+        inputPanel.add(cancelButton);
+
         // Zona de raspuns pentru afisarea informatiilor meteo sau erorilor
         responseArea = new JTextArea();
         responseArea.setEditable(false);
@@ -148,112 +199,258 @@ public class PinkWeatherApp {
         }
     }
 
-    // Trimite o cerere catre server pe baza rolului curent (USER sau ADMIN)
-    private void sendRequest(String role) {
-        try (Socket socket = new Socket(SERVER_HOST, SERVER_PORT);
-             PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()), true);
-             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+    // Citește formularul pentru rolul dat
+    private RequestInput readInput(String role) {
+        return new RequestInput(role, cityField.getText().trim(), latitudeField.getText().trim(),
+                longitudeField.getText().trim(), radiusField.getText().trim(), selectedFilePath);
+    }
 
-            writer.println(role); // Trimite rolul către server
+    // Trimite cererea pe un fir separat; dacă o cerere este deja în desfășurare, aceasta este reținută
+    // și trimisă după ea (apăsările repetate sunt comasate, rămâne doar ultima)
+    private void submitRequest(RequestInput input) {
+        if (activeRequest != null) {
+            pendingRequest = input;
+            statusLabel.setText(STATUS_QUEUED);
+            return;
+        }
+        responseArea.setText(""); // Răspunsul nou este adăugat pe măsură ce sosește
+        activeRequest = new RequestWorker(input);
+        cancelButton.setEnabled(true);
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(true);
+        statusLabel.setText(STATUS_SENDING);
+        activeRequest.execute();
+    }
 
-            if ("USER".equals(role)) {
-                handleUserRequest(writer, reader);
-            } else if ("ADMIN".equals(role)) {
-                handleAdminRequest(writer, reader);
+    // Anulează cererea în desfășurare și pe cea reținută; închide socket-ul ca citirea blocată să se termine
+    private void cancelRequest() {
+        pendingRequest = null;
+        if (activeRequest != null) {
+            activeRequest.cancel(true);
+            WeatherServerConnection current = connection;
+            if (current != null) {
+                current.abort();
             }
+            finishRequest(STATUS_CANCELLED);
+        }
+    }
 
-        } catch (Exception ex) {
-            responseArea.setText("Eroare: " + ex.getMessage());
+    // Readuce interfața în starea inițială și pornește cererea reținută, dacă există
+    private void finishRequest(String status) {
+        activeRequest = null;
+        cancelButton.setEnabled(false);
+        progressBar.setIndeterminate(false);
+        progressBar.setVisible(false);
+        statusLabel.setText(status);
+        if (pendingRequest != null) {
+            RequestInput next = pendingRequest;
+            pendingRequest = null;
+            submitRequest(next);
         }
     }
 
-    // Gestioneaza cererile specifice utilizatorului si afisează informayiile meteo
-    private void handleUserRequest(PrintWriter writer, BufferedReader reader) throws Exception {
-        String city = cityField.getText().trim();
+    // Adaugă un lot de linii în zona de răspuns, dacă cererea care l-a produs este încă cea curentă
+    private void appendChunk(RequestWorker worker, String text, int totalLines) {
+        if (activeRequest == worker) {
+            responseArea.append(text);
+            statusLabel.setText(String.format(STATUS_RECEIVING, totalLines));
+        }
+    }
 
-        if (!city.isEmpty()) {
-            // Cautare dupa numele orasului
-            writer.println("GET_WEATHER_BY_CITY");
-            writer.println(city);
+    /**
+     * Execută o cerere în afara EDT: conectarea, citirea răspunsului și salvarea locației.
+     * Liniile decorate sunt trimise către EDT în loturi (prima linie imediat, apoi la CHUNK_LINES linii
+     * sau după CHUNK_NANOS), prin invokeLater, deci ajung înaintea lui done().
+     * done() afișează doar mesajele finale (erori sau lipsa rezultatelor).
+     */
+    private class RequestWorker extends SwingWorker<String, Void> {
+        private final RequestInput input;
+        private final long startNanos = System.nanoTime();
+        private final Matcher conditionMatcher = CONDITION_PATTERN.matcher(""); // Refolosit pentru fiecare linie
+        private final StringBuilder chunk = new StringBuilder(); // Lotul în curs (doar pe firul cererii)
+        private int chunkLines; // Liniile din lotul în curs
+        private int lines; // Liniile primite până acum
+        private long chunkStartNanos; // Momentul primei linii din lotul în curs
+
+        RequestWorker(RequestInput input) {
+            this.input = input;
+        }
 
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(parseWeatherWithEmoji(line)).append("\n");
+        @Override
+        protected String doInBackground() throws Exception {
+            WeatherServerConnection previous = connection;
+            WeatherServerConnection serverConnection = getConnection(input.role());
+            try {
+                return send(serverConnection);
+            } catch (IOException ex) {
+                discardConnection(serverConnection); // Următoarea cerere deschide o conexiune nouă
+                if (serverConnection != previous || lines > 0 || isCancelled() || ex instanceof SocketTimeoutException) {
+                    throw ex;
+                }
+                // Serverul a închis conexiunea refolosită cât a fost inactivă, înainte de a primi cererea: se reia o dată
+                serverConnection = getConnection(input.role());
+                try {
+                    return send(serverConnection);
+                } catch (Exception retryEx) {
+                    discardConnection(serverConnection);
+                    throw retryEx;
+                }
+            } catch (Exception ex) {
+                discardConnection(serverConnection); // Următoarea cerere deschide o conexiune nouă
+                throw ex;
             }
+        }
+
+        // Trimite cererea pe conexiunea dată, conform rolului
+        private String send(WeatherServerConnection serverConnection) throws Exception {
+            if ("ADMIN".equals(input.role())) {
+                return handleAdminRequest(serverConnection, input, this);
+            }
+            return handleUserRequest(serverConnection, input, this);
+        }
+
+        // Apelată pe firul cererii pentru fiecare linie primită (deja decorată)
+        void lineReceived(String text) {
+            long now = System.nanoTime();
+            if (chunkLines == 0) {
+                chunkStartNanos = now;
+            }
+            chunk.append(text).append("\n");
+            chunkLines++;
+            lines++;
+            if (lines == 1 || chunkLines >= CHUNK_LINES || now - chunkStartNanos >= CHUNK_NANOS) {
+                flushChunk();
+            }
+        }
+
+        // Trimite lotul în curs către EDT
+        void flushChunk() {
+            if (chunkLines == 0) {
+                return;
+            }
+            String text = chunk.toString();
+            int totalLines = lines;
+            chunk.setLength(0);
+            chunkLines = 0;
+            SwingUtilities.invokeLater(() -> appendChunk(this, text, totalLines));
+        }
+
+        // Adaugă emoji-ul condiției meteo, folosind matcher-ul acestei cereri
+        String decorate(String line) {
+            return parseWeatherWithEmoji(line, conditionMatcher);
+        }
+
+        int lines() {
+            return lines;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() || activeRequest != this) {
+                return; // Interfața a fost deja readusă la starea inițială de cancelRequest
+            }
+            try {
+                String message = get();
+                if (message != null) {
+                    responseArea.setText(message);
+                }
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                responseArea.setText(cause instanceof SocketTimeoutException ? ERROR_TIMEOUT : "Eroare: " + cause.getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            finishRequest(String.format(STATUS_DONE, (System.nanoTime() - startNanos) / 1_000_000));
+        }
+    }
+
+    // Returnează conexiunea persistentă către server, deschizând-o dacă este nevoie
+    private synchronized WeatherServerConnection getConnection(String role) throws IOException {
+        if (connection == null || !connection.isOpen()) {
+            closeConnection();
+            int readTimeout = "ADMIN".equals(role) ? ADMIN_READ_TIMEOUT_MILLIS : READ_TIMEOUT_MILLIS;
+            connection = new WeatherServerConnection(SERVER_HOST, SERVER_PORT, role, // Trimite rolul către server
+                    CONNECT_TIMEOUT_MILLIS, readTimeout);
+        }
+        return connection;
+    }
+
+    // Închide o conexiune care a eșuat; o conexiune deschisă între timp de altă cerere nu este atinsă
+    private synchronized void discardConnection(WeatherServerConnection failed) {
+        if (connection == failed) {
+            closeConnection();
+        } else {
+            failed.abort();
+        }
+    }
+
+    // Închide conexiunea persistentă, dacă există
+    private synchronized void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (IOException ignored) {
+                // Conexiunea este deja închisă
+            }
+            connection = null;
+        }
+    }
+
+    // Gestioneaza cererile specifice utilizatorului si returnează informațiile meteo
+    private String handleUserRequest(WeatherServerConnection serverConnection, RequestInput input, RequestWorker worker)
+            throws Exception {
+        String city = input.city();
+
+        if (!city.isEmpty()) {
+            // Cautare dupa numele orasului
+            serverConnection.request(line -> worker.lineReceived(worker.decorate(line)), "GET_WEATHER_BY_CITY", city);
+            worker.flushChunk();
 
-            responseArea.setText(response.toString());
             databaseManager.saveOrUpdateLocation(city, 0.0, 0.0); // Salvează locația în baza de date
+            return null; // Răspunsul a fost deja afișat
 
         } else {
             // Cautare dupa coordonate daca numele orasului nu este completat
-            String latitudeText = latitudeField.getText().trim();
-            String longitudeText = longitudeField.getText().trim();
-            String radiusText = radiusField.getText().trim();
+            String latitudeText = input.latitude();
+            String longitudeText = input.longitude();
+            String radiusText = input.radius();
 
             if (latitudeText.isEmpty() || longitudeText.isEmpty() || radiusText.isEmpty()) {
-                responseArea.setText("Eroare: Introduceți numele orașului sau coordonate valide.");
-                return;
+                return "Eroare: Introduceți numele orașului sau coordonate valide.";
             }
 
             double latitude = Double.parseDouble(latitudeText);
             double longitude = Double.parseDouble(longitudeText);
             double radius = Double.parseDouble(radiusText);
 
-            writer.println("GET_WEATHER");
-            writer.println(latitude);
-            writer.println(longitude);
-            writer.println(radius);
-
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(parseWeatherWithEmoji(line)).append("\n");
-            }
-
-            if (response.toString().isEmpty()) {
-                responseArea.setText("Nicio locație apropiată găsită.");
-            } else {
-                responseArea.setText(response.toString());
-            }
+            serverConnection.request(line -> worker.lineReceived(worker.decorate(line)),
+                    "GET_WEATHER", String.valueOf(latitude), String.valueOf(longitude), String.valueOf(radius));
+            worker.flushChunk();
 
             // Salvează locația curentă în baza de date
             databaseManager.saveOrUpdateLocation("Necunoscut", latitude, longitude);
+
+            return worker.lines() == 0 ? NO_LOCATION_FOUND : null;
         }
     }
 
     // Gestioneaza cererile specifice adminului pentru importul datelor
-    private void handleAdminRequest(PrintWriter writer, BufferedReader reader) throws Exception {
-        if (selectedFilePath == null || selectedFilePath.isEmpty()) {
-            responseArea.setText("Eroare: Niciun fișier JSON selectat.");
-            return;
+    private String handleAdminRequest(WeatherServerConnection serverConnection, RequestInput input, RequestWorker worker)
+            throws Exception {
+        if (input.filePath() == null || input.filePath().isEmpty()) {
+            return "Eroare: Niciun fișier JSON selectat.";
         }
 
-        writer.println("IMPORT");
-        writer.println(selectedFilePath); // Trimite calea fișierului către server
+        serverConnection.request(worker::lineReceived, "IMPORT", input.filePath()); // Trimite calea fișierului către server
+        worker.flushChunk();
 
-        StringBuilder response = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            response.append(line).append("\n");
-        }
-
-        responseArea.setText(response.toString()); // Afișează răspunsul serverului
+        return null; // Răspunsul serverului a fost deja afișat
     }
 
     // Interpreteaza informațiile meteo și adauga emoji-uri pentru lizibilitate
-    private String parseWeatherWithEmoji(String line) {
-        Map<String, String> emojiMap = new HashMap<>();
-        emojiMap.put("Sunny", "☀️");
-        emojiMap.put("Rainy", "🌧️");
-        emojiMap.put("Cloudy", "☁️");
-        emojiMap.put("Snow", "❄️");
-        emojiMap.put("Foggy", "🌫️");
-
-        for (Map.Entry<String, String> entry : emojiMap.entrySet()) {
-            if (line.contains(entry.getKey())) {
-                return line + " " + entry.getValue();
-            }
+    private static String parseWeatherWithEmoji(String line, Matcher conditionMatcher) {
+        if (conditionMatcher.reset(line).find()) {
+            return line + " " + EMOJI_MAP.get(conditionMatcher.group());
         }
         return line; // Returneaza linia originala dacă nu se gasește o conditie potrivita
     }
@@ -261,10 +458,8 @@ public class PinkWeatherApp {
     // Returneaza listener-ul pentru butonul de trimitere, care gestioneaza cererile utilizatorului/adminului
     private ActionListener getSubmitListener() {
         return e -> {
-            if ("USER".equals(currentRole)) {
-                sendRequest("USER");
-            } else if ("ADMIN".equals(currentRole)) {
-                sendRequest("ADMIN");
+            if ("USER".equals(currentRole) || "ADMIN".equals(currentRole)) {
+                submitRequest(readInput(currentRole));
             }
         };
     }
@@ -1,9 +1,13 @@
 package server;
 
+import common.NearestStrategy;
+import common.QueryCache;
 import common.WeatherDataManager;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketException;
 import java.io.IOException;
+import java.io.PrintWriter;
 
 /**
  * Clasa PinkWeatherServer reprezintă serverul principal al aplicației de prognoză meteo.
@@ -17,16 +21,129 @@ public class PinkWeatherServer {
     private static final String CLIENT_CONNECTED_MESSAGE = "New client connected: "; // Mesaj pentru client conectat
     private static final String CLIENT_ERROR_MESSAGE = "Error handling client connection: "; // Mesaj pentru eroare conexiune client
     private static final String SERVER_FAIL_MESSAGE = "Failed to start server: "; // Mesaj pentru eroare la pornirea serverului
+    private static final String EXECUTION_MODE_MESSAGE = "Connection execution mode: %s (pool size %d, queue capacity %d)%n"; // Mesaj pentru modul de execuție
+    private static final String CLIENT_REJECTED_MESSAGE = "Server busy, connection rejected: "; // Mesaj pentru conexiune respinsă
+    private static final String MESSAGE_SERVER_BUSY = "Server busy. Please try again later."; // Răspuns trimis clientului respins
+    private static final String IDLE_TIMEOUT_MESSAGE = "Idle connections are closed after %d ms%n"; // Mesaj pentru limita de inactivitate
+    private static final String SERVER_STOPPED_MESSAGE = "Server stopped."; // Mesaj la oprirea serverului
+
+    // Proprietăți de sistem pentru configurarea modelului de execuție
+    private static final String PROPERTY_EXECUTION_MODE = "pinkweather.executor"; // thread, virtual sau pool
+    private static final String PROPERTY_POOL_SIZE = "pinkweather.poolSize"; // Numărul de fire pentru modul pool
+    private static final String PROPERTY_QUEUE_CAPACITY = "pinkweather.queueCapacity"; // Capacitatea cozii pentru modul pool
+    private static final String PROPERTY_IDLE_TIMEOUT = "pinkweather.idleTimeoutMillis"; // Închide conexiunile inactive (0 = niciodată)
+    private static final String PROPERTY_SERVER_MODE = "pinkweather.serverMode"; // blocking sau nio
+    private static final String PROPERTY_EVENT_LOOPS = "pinkweather.eventLoops"; // Numărul de bucle de evenimente pentru modul nio
+    private static final String PROPERTY_NIO_WORKERS = "pinkweather.nioWorkers"; // Numărul de fire care rulează comenzile în modul nio
+    private static final String PROPERTY_SNAPSHOT_FILE = "pinkweather.snapshotFile"; // Calea instantaneului binar sau "none"
+    private static final String SNAPSHOT_DISABLED = "none"; // Valoare care dezactivează instantaneul
+    private static final String PROPERTY_SNAPSHOT_INTERVAL = "pinkweather.snapshotIntervalMillis"; // Intervalul minim între rescrierile instantaneului
+    private static final String PROPERTY_CACHE_ENTRIES = "pinkweather.cache.maxEntries"; // Intrări în cache-ul căutărilor după coordonate (0 = dezactivat)
+    private static final String PROPERTY_CACHE_GRID = "pinkweather.cache.gridDegrees"; // Rezoluția grilei cache-ului, în grade
+    private static final String PROPERTY_CACHE_TTL = "pinkweather.cache.ttlMillis"; // Vârsta maximă a unei intrări din cache
+    private static final int DEFAULT_CACHE_ENTRIES = 100_000; // Numărul implicit de intrări
+    private static final String DEFAULT_CACHE_GRID = "0.001"; // Rezoluția implicită (aproximativ 110 m)
+    private static final long DEFAULT_CACHE_TTL = 300_000; // Vârsta maximă implicită (5 minute)
+    private static final String CACHE_MESSAGE = "Query cache: %d entries, grid %s degrees, ttl %d ms%n"; // Mesaj pentru configurația cache-ului
+    private static final String PROPERTY_NEAREST = "pinkweather.nearest"; // tree, scalar sau vector
+    private static final String NEAREST_MESSAGE = "Nearest-location search: %s%s%n"; // Mesaj pentru modul de căutare
+    private static final String VECTOR_UNAVAILABLE = " (jdk.incubator.vector not available, using scalar scan)"; // Modulul Vector API lipsește
+    private static final String PROPERTY_WATCH = "pinkweather.watch"; // true = fișierul bazei de date este urmărit
+    private static final String PROPERTY_UPDATE_DIR = "pinkweather.updateDir"; // Directorul de actualizări (implică urmărirea)
+    private static final String WATCH_ERROR_MESSAGE = "Failed to watch for updates: "; // Mesaj pentru eroare la urmărire
+    private static final String PROPERTY_STATS_INTERVAL = "pinkweather.stats.intervalSeconds"; // Intervalul afișării periodice a statisticii (0 = dezactivată)
+    private static final String STATS_MESSAGE = "Statistics dump every %d s%n"; // Mesaj pentru afișarea periodică
+    private static final String PROPERTY_LOG_CONNECTIONS = "pinkweather.logConnections"; // true = fiecare conexiune nouă sau respinsă este afișată (STATS le numără oricum: CONNECTIONS, dispatcher.rejected)
+    private static final String DEFAULT_EXECUTION_MODE = "virtual"; // Modul implicit
+    private static final String SERVER_MODE_NIO = "nio"; // Modul neblocant
+    private static final int DEFAULT_EVENT_LOOPS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2); // Numărul implicit de bucle
+    private static final int DEFAULT_NIO_WORKERS = Runtime.getRuntime().availableProcessors() * 4; // Numărul implicit de fire de lucru
+    private static final String NIO_MODE_MESSAGE = "Server mode: nio (%d event loops, %d workers)%n"; // Mesaj pentru modul neblocant
+    private static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 8; // Numărul implicit de fire
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024; // Capacitatea implicită a cozii
+    private static final int DEFAULT_POOL_IDLE_TIMEOUT = 30_000; // Limita implicită de inactivitate în modul pool, unde firele sunt limitate
     private static final String DEFAULT_DB_FILE_PATH = "D:\\Facultate\\Anul2Sem1\\MIP\\vreme\\WeatherApp\\src\\main\\resources\\pink_weather.json"; // Calea implicită pentru fișierul bazei de date
 
     private final WeatherDataManager weatherDataManager; // Managerul de date meteo
+    private final ConnectionDispatcher connectionDispatcher; // Modelul de execuție pentru conexiuni
+    private final int idleTimeoutMillis; // Limita de inactivitate a conexiunilor blocante (0 = fără limită)
+    private final boolean logConnections = Boolean.getBoolean(PROPERTY_LOG_CONNECTIONS); // Afișează fiecare conexiune nouă sau respinsă
+    private volatile ServerSocket serverSocket; // Socket-ul pe care se acceptă conexiunile (null înainte de pornire)
+    private volatile NioWeatherServer nioServer; // Serverul neblocant (doar în modul nio)
+    private volatile boolean stopped; // stop() a fost apelat
+    private final ServerMetrics metrics = new ServerMetrics(); // Latențele comenzilor, conexiunile și indicatorii
 
     /**
-     * Constructorul clasei PinkWeatherServer.
+     * Constructorul clasei PinkWeatherServer; modelul de execuție este citit din proprietățile de sistem.
      * @param dbFilePath Calea către fișierul json
      */
     public PinkWeatherServer(String dbFilePath) {
-        this.weatherDataManager = new WeatherDataManager(dbFilePath);
+        String snapshotPath = System.getProperty(PROPERTY_SNAPSHOT_FILE, dbFilePath + WeatherDataManager.SNAPSHOT_SUFFIX);
+        this.weatherDataManager = new WeatherDataManager(dbFilePath,
+                SNAPSHOT_DISABLED.equalsIgnoreCase(snapshotPath) ? null : snapshotPath);
+        weatherDataManager.setSnapshotInterval(
+                Long.getLong(PROPERTY_SNAPSHOT_INTERVAL, WeatherDataManager.DEFAULT_SNAPSHOT_INTERVAL_MILLIS));
+        configureQueryCache();
+        configureUpdateWatcher();
+        NearestStrategy nearest = NearestStrategy.parse(System.getProperty(PROPERTY_NEAREST, NearestStrategy.TREE.name()));
+        weatherDataManager.setNearestStrategy(nearest);
+        System.out.printf(NEAREST_MESSAGE, nearest,
+                nearest == NearestStrategy.VECTOR && !NearestStrategy.isVectorAvailable() ? VECTOR_UNAVAILABLE : "");
+        int poolSize = Integer.getInteger(PROPERTY_POOL_SIZE, DEFAULT_POOL_SIZE);
+        int queueCapacity = Integer.getInteger(PROPERTY_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY);
+        ConnectionDispatcher.Mode mode = ConnectionDispatcher.Mode.parse(System.getProperty(PROPERTY_EXECUTION_MODE, DEFAULT_EXECUTION_MODE));
+        this.connectionDispatcher = new ConnectionDispatcher(mode, poolSize, queueCapacity);
+        System.out.printf(EXECUTION_MODE_MESSAGE, mode, poolSize, queueCapacity); // Mesaj pentru modul de execuție
+        // În modul pool, fiecare conexiune persistentă ține un fir până la QUIT; fără limită, clienții inactivi ar ocupa tot pool-ul
+        this.idleTimeoutMillis = Integer.getInteger(PROPERTY_IDLE_TIMEOUT,
+                mode == ConnectionDispatcher.Mode.POOL ? DEFAULT_POOL_IDLE_TIMEOUT : 0);
+        if (idleTimeoutMillis > 0) {
+            System.out.printf(IDLE_TIMEOUT_MESSAGE, idleTimeoutMillis);
+        }
+        configureMetrics();
+    }
+
+    // Înregistrează indicatorii serverului și pornește afișarea periodică, conform proprietăților de sistem
+    private void configureMetrics() {
+        metrics.registerGauge("locations", weatherDataManager::getLocationCount);
+        metrics.registerGauge("dispatcher.active", connectionDispatcher::getActiveConnections);
+        metrics.registerGauge("dispatcher.queued", connectionDispatcher::getQueuedConnections);
+        metrics.registerGauge("dispatcher.accepted", connectionDispatcher::getAcceptedConnections);
+        metrics.registerGauge("dispatcher.rejected", connectionDispatcher::getRejectedConnections);
+        metrics.registerGauge("cache.hits", () -> weatherDataManager.getQueryCacheStats().map(QueryCache.Stats::hits).orElse(0L));
+        metrics.registerGauge("cache.misses", () -> weatherDataManager.getQueryCacheStats().map(QueryCache.Stats::misses).orElse(0L));
+        metrics.registerGauge("cache.evictions", () -> weatherDataManager.getQueryCacheStats().map(QueryCache.Stats::evictions).orElse(0L));
+        metrics.registerGauge("cache.size", () -> weatherDataManager.getQueryCacheStats().map(QueryCache.Stats::size).orElse(0));
+        long interval = Long.getLong(PROPERTY_STATS_INTERVAL, 0);
+        if (interval > 0) {
+            metrics.startPeriodicDump(interval);
+            System.out.printf(STATS_MESSAGE, interval);
+        }
+    }
+
+    // Activează cache-ul căutărilor după coordonate, conform proprietăților de sistem
+    private void configureQueryCache() {
+        int maxEntries = Integer.getInteger(PROPERTY_CACHE_ENTRIES, DEFAULT_CACHE_ENTRIES);
+        if (maxEntries <= 0) {
+            return; // Cache dezactivat
+        }
+        String grid = System.getProperty(PROPERTY_CACHE_GRID, DEFAULT_CACHE_GRID);
+        long ttl = Long.getLong(PROPERTY_CACHE_TTL, DEFAULT_CACHE_TTL);
+        weatherDataManager.setQueryCache(new QueryCache(Double.parseDouble(grid), maxEntries, ttl));
+        System.out.printf(CACHE_MESSAGE, maxEntries, grid, ttl);
+    }
+
+    // Pornește aplicarea incrementală a modificărilor, conform proprietăților de sistem
+    private void configureUpdateWatcher() {
+        String updateDirectory = System.getProperty(PROPERTY_UPDATE_DIR);
+        if (updateDirectory == null && !Boolean.getBoolean(PROPERTY_WATCH)) {
+            return;
+        }
+        try {
+            weatherDataManager.watchForUpdates(updateDirectory);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(WATCH_ERROR_MESSAGE + e.getMessage());
+        }
     }
 
     /**
@@ -34,31 +151,133 @@ public class PinkWeatherServer {
      */
     public void start() {
         System.out.println(SERVER_START_MESSAGE + PORT); // Mesaj la pornire
+        if (SERVER_MODE_NIO.equalsIgnoreCase(System.getProperty(PROPERTY_SERVER_MODE))) {
+            startNio();
+            return;
+        }
 
-        try (ServerSocket serverSocket = new ServerSocket(PORT)) { // Creează un server socket
+        try (ServerSocket socket = new ServerSocket(PORT); // Creează un server socket
+             ConnectionDispatcher dispatcher = connectionDispatcher) { // Oprit la ieșirea din buclă
+            serverSocket = socket;
+            if (stopped) {
+                return; // stop() a fost apelat înainte ca socket-ul să existe
+            }
             System.out.println(SERVER_RUNNING_MESSAGE + PORT); // Mesaj că serverul rulează
 
-            while (true) {
+            while (!socket.isClosed()) {
                 try {
-                    Socket clientSocket = serverSocket.accept(); // Acceptă conexiunea unui client
-                    System.out.println(CLIENT_CONNECTED_MESSAGE + clientSocket.getInetAddress()); // Mesaj despre client conectat
-                    new Thread(new ConnectionHandler(clientSocket, weatherDataManager)).start(); // Creează un thread pentru client
+                    Socket clientSocket = socket.accept(); // Acceptă conexiunea unui client
+                    if (logConnections) {
+                        System.out.println(CLIENT_CONNECTED_MESSAGE + clientSocket.getInetAddress()); // Mesaj despre client conectat
+                    }
+                    if (!dispatcher.dispatch(new ConnectionHandler(clientSocket, weatherDataManager, metrics, idleTimeoutMillis))) {
+                        rejectConnection(clientSocket); // Coada este plină
+                    }
+                } catch (SocketException e) {
+                    if (!socket.isClosed()) {
+                        System.err.println(CLIENT_ERROR_MESSAGE + e.getMessage()); // Mesaj pentru eroare conexiune client
+                    }
                 } catch (IOException e) {
                     System.err.println(CLIENT_ERROR_MESSAGE + e.getMessage()); // Mesaj pentru eroare conexiune client
                 }
             }
+            System.out.println(SERVER_STOPPED_MESSAGE); // Mesaj la oprire
         } catch (IOException e) {
             System.err.println(SERVER_FAIL_MESSAGE + e.getMessage()); // Mesaj pentru eroare la pornirea serverului
             e.printStackTrace(); // Afișează detaliile erorii
         }
     }
 
+    /**
+     * Oprește acceptarea conexiunilor; start() se întoarce, iar executorul conexiunilor este oprit
+     * (conexiunile în curs își termină procesarea). În modul nio sunt oprite și buclele de evenimente.
+     * Modificările datelor care nu au ajuns încă în instantaneu sunt scrise înainte de întoarcere.
+     * Poate fi apelată din orice fir.
+     */
+    public void stop() {
+        stopped = true;
+        NioWeatherServer nio = nioServer;
+        if (nio != null) {
+            nio.close(); // Deblochează serve()
+        }
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            try {
+                socket.close(); // Deblochează accept()
+            } catch (IOException e) {
+                System.err.println(CLIENT_ERROR_MESSAGE + e.getMessage());
+            }
+        }
+        weatherDataManager.flushSnapshot(); // Modificările încă nescrise ajung în instantaneu
+    }
+
+    /**
+     * Pornirea serverului în modul neblocant (NIO), cu un număr fix de bucle de evenimente.
+     */
+    private void startNio() {
+        int eventLoops = Integer.getInteger(PROPERTY_EVENT_LOOPS, DEFAULT_EVENT_LOOPS);
+        int workers = Integer.getInteger(PROPERTY_NIO_WORKERS, DEFAULT_NIO_WORKERS);
+        try (NioWeatherServer server = new NioWeatherServer(PORT, weatherDataManager, eventLoops, workers, metrics)) {
+            nioServer = server;
+            if (stopped) {
+                return; // stop() a fost apelat înainte ca serverul să existe
+            }
+            System.out.printf(NIO_MODE_MESSAGE, eventLoops, workers); // Mesaj pentru modul neblocant
+            System.out.println(SERVER_RUNNING_MESSAGE + PORT); // Mesaj că serverul rulează
+            server.serve(channel -> {
+                if (logConnections) {
+                    System.out.println(CLIENT_CONNECTED_MESSAGE + channel.socket().getInetAddress()); // Mesaj despre client conectat
+                }
+            });
+            System.out.println(SERVER_STOPPED_MESSAGE); // Mesaj la oprire
+        } catch (IOException e) {
+            System.err.println(SERVER_FAIL_MESSAGE + e.getMessage()); // Mesaj pentru eroare la pornirea serverului
+            e.printStackTrace(); // Afișează detaliile erorii
+        }
+    }
+
+    /**
+     * Informează clientul că serverul este ocupat și închide conexiunea. Respingerile sunt numărate de dispecer
+     * (indicatorul dispatcher.rejected din STATS); sub suprasarcină o linie de consolă pentru fiecare ar încetini
+     * firul care acceptă conexiuni, deci este afișată doar cu pinkweather.logConnections.
+     * @param clientSocket Socket-ul clientului respins.
+     */
+    private void rejectConnection(Socket clientSocket) {
+        if (logConnections) {
+            System.err.println(CLIENT_REJECTED_MESSAGE + clientSocket.getInetAddress()); // Mesaj pentru conexiune respinsă
+        }
+        try (Socket socket = clientSocket;
+             PrintWriter outputWriter = new PrintWriter(socket.getOutputStream(), true)) {
+            outputWriter.println(MESSAGE_SERVER_BUSY);
+        } catch (IOException e) {
+            System.err.println(CLIENT_ERROR_MESSAGE + e.getMessage()); // Mesaj pentru eroare conexiune client
+        }
+    }
+
+    /**
+     * Returnează modelul de execuție al conexiunilor, împreună cu contoarele sale.
+     * @return Instanța ConnectionDispatcher folosită de server.
+     */
+    ConnectionDispatcher getConnectionDispatcher() {
+        return connectionDispatcher;
+    }
+
+    /**
+     * Returnează registrul metricilor serverului.
+     * @return Instanța ServerMetrics folosită de conexiuni.
+     */
+    ServerMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Punctul de intrare al aplicației server.
      * @param args Argumente opționale pentru linia de comandă.
      */
     public static void main(String[] args) {
         String dbFilePath = DEFAULT_DB_FILE_PATH; // Utilizează calea implicită pentru baza de date
-        new PinkWeatherServer(dbFilePath).start(); // Pornește serverul
+        PinkWeatherServer server = new PinkWeatherServer(dbFilePath);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop)); // Oprire ordonată la închiderea JVM-ului
+        server.start(); // Pornește serverul
     }
 }
@@ -0,0 +1,612 @@
+package server;
+
+import common.BulkImportService;
+import common.DailyForecast;
+import common.GeoSpatialIndex;
+import common.GeoWeatherData;
+import common.WeatherDataManager;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Clasa ProtocolSession implementează protocolul text al serverului pentru o singură conexiune.
+ * Primește liniile trimise de client una câte una, indiferent dacă provin dintr-un socket blocant
+ * sau dintr-un canal NIO, și scrie răspunsurile în PrintWriter-ul primit.
+ * Prima linie este rolul (USER sau ADMIN), urmată de o comandă și de parametrii ei, câte unul pe linie.
+ * Dacă rolul este urmat de opțiunea PERSISTENT (de exemplu "USER PERSISTENT"), conexiunea rămâne deschisă:
+ * fiecare răspuns se termină cu linia END_OF_RESPONSE, iar clientul poate trimite mai multe comenzi una după alta,
+ * fără să aștepte răspunsurile (pipelining). Comanda QUIT închide o astfel de conexiune.
+ * Durata fiecărei comenzi (până la trimiterea răspunsului) și erorile sunt înregistrate în ServerMetrics.
+ */
+final class ProtocolSession {
+    // Mesaje constante pentru diverse scenarii
+    private static final String MESSAGE_ROLE_NOT_PROVIDED = "Role not provided. Connection closed."; // Rol nedefinit
+    private static final String MESSAGE_INVALID_ROLE = "Invalid role. Connection closed."; // Rol invalid
+    private static final String MESSAGE_DATABASE_UPDATED = "Database successfully updated."; // Baza de date actualizată cu succes
+    private static final String MESSAGE_DATABASE_UPDATE_FAILED = "Failed to update database."; // Eșec la actualizarea bazei de date
+    private static final String MESSAGE_INVALID_JSON_FILE = "Invalid JSON file."; // Fișier JSON invalid
+    private static final String UPDATE_FORMAT = "Database updated: %d changed, %d added, %d unchanged."; // Rezultatul unei actualizări incrementale
+    private static final String MESSAGE_UNKNOWN_ADMIN_COMMAND = "Unknown admin command."; // Comandă necunoscută pentru admin
+    private static final String MESSAGE_UNKNOWN_USER_COMMAND = "Error: Unknown user command."; // Comandă necunoscută pentru utilizator
+    private static final String MESSAGE_CITY_NOT_FOUND = "Error: City not found in database."; // Oraș negăsit
+    private static final String MESSAGE_INVALID_COORDINATES = "Error: Invalid coordinates or radius."; // Coordonate/rază invalide
+    private static final String MESSAGE_INVALID_QUERY = "Error: Invalid coordinates, radius, count, limit or cursor."; // Parametri invalizi pentru căutări multiple
+
+    // Prefixe pentru răspunsurile cu mai multe locații
+    private static final String RESULTS_PREFIX = "RESULTS:"; // Numărul total de locații găsite
+    private static final String LOCATION_FORMAT = "LOCATION:%s, %s (%.1f km)"; // Antetul fiecărei locații
+    private static final String NEXT_CURSOR_PREFIX = "NEXT_CURSOR:"; // Cursorul pentru pagina următoare
+    private static final String CURSOR_SEPARATOR = "."; // Separatorul câmpurilor cursorului
+
+    // Prognoze pe un interval de date
+    private static final String RANGE_LOCATION_FORMAT = "LOCATION:%s, %s"; // Locația găsită
+    private static final String DAYS_PREFIX = "DAYS:"; // Numărul de zile din interval
+    private static final String MESSAGE_INVALID_DATE_RANGE = "Error: Invalid date range."; // Dată invalidă sau interval inversat
+
+    // Cereri în lot
+    private static final String BATCH_PREFIX = "BATCH:"; // Numărul de rezultate din lot
+    private static final String BATCH_ITEM_PREFIX = "#"; // Antetul fiecărui rezultat, urmat de poziția cererii
+    private static final String MESSAGE_INVALID_BATCH_SIZE = "Error: Invalid batch size."; // Dimensiune de lot invalidă
+    private static final int MAX_BATCH_SIZE = 100_000; // Numărul maxim de cereri dintr-un lot
+    private static final int BATCH_CHUNK_SIZE = 1024; // Cereri evaluate în paralel înainte de a fi trimise
+    private static final String JOB_FORMAT = "JOB:%d %s %d/%d files done, %d locations added"; // Starea unei lucrări de import
+    private static final String FILE_FORMAT = "FILE:%s %s loaded=%d skipped=%d ms=%d"; // Progresul unui fișier importat
+    private static final String ERROR_SUFFIX = " error="; // Motivul eșecului unei lucrări sau al unui fișier
+    private static final String MESSAGE_UNKNOWN_IMPORT_JOB = "Error: Unknown import job."; // Lucrare de import necunoscută
+    private static final String UNKNOWN_COMMAND = "UNKNOWN"; // Numele sub care sunt înregistrate comenzile necunoscute
+    private static final String LINE_SEPARATOR = System.lineSeparator(); // Separatorul folosit de println
+    private static final int BUFFER_SIZE = 8192; // Dimensiunea bufferului de ieșire
+
+    // Roluri și opțiuni de conexiune
+    private static final String ROLE_ADMIN = "ADMIN"; // Rol pentru administrator
+    private static final String ROLE_USER = "USER"; // Rol pentru utilizator
+    private static final String OPTION_PERSISTENT = "PERSISTENT"; // Conexiune persistentă, cu mai multe comenzi
+    private static final String COMMAND_QUIT = "QUIT"; // Închide o conexiune persistentă
+    static final String END_OF_RESPONSE = "<END>"; // Marcajul de final al fiecărui răspuns pe o conexiune persistentă
+
+    private final WeatherDataManager weatherDataManager; // Managerul datelor meteo
+    private final ResponseStream output; // Octeții răspunsurilor, trimiși la finalul fiecărui răspuns
+    private final PrintWriter outputWriter; // Textul răspunsurilor, codificat UTF-8 în output
+    private final ServerMetrics metrics; // Latențele și erorile comenzilor
+
+    private String role; // Rolul clientului (null până la prima linie)
+    private boolean persistent; // Conexiunea rămâne deschisă după fiecare răspuns
+    private String command; // Comanda care își așteaptă parametrii
+    private final List<String> arguments = new ArrayList<>(); // Parametrii primiți pentru comanda curentă
+    private boolean failed; // Comanda curentă a răspuns cu un mesaj de eroare
+    private boolean closeAfterResponse; // Liniile următoare nu mai pot fi interpretate (lot invalid): conexiunea se închide
+
+    /**
+     * Constructorul clasei ProtocolSession.
+     * @param weatherDataManager Instanța WeatherDataManager pentru manipularea datelor meteo.
+     * @param outputStream Destinația răspunsurilor; este golită (flush) după fiecare răspuns.
+     * @param metrics Registrul în care sunt înregistrate comenzile.
+     */
+    ProtocolSession(WeatherDataManager weatherDataManager, OutputStream outputStream, ServerMetrics metrics) {
+        this.weatherDataManager = weatherDataManager;
+        this.metrics = metrics;
+        this.output = new ResponseStream(outputStream);
+        this.outputWriter = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Procesează o linie primită de la client.
+     * @param line Linia, fără terminator.
+     * @return true dacă sesiunea așteaptă alte linii, false dacă conexiunea trebuie închisă.
+     */
+    boolean onLine(String line) {
+        if (role == null) {
+            String[] roleLine = line.trim().toUpperCase(Locale.ROOT).split("\\s+");
+            role = roleLine[0]; // Rolul utilizatorului
+            persistent = roleLine.length == 2 && OPTION_PERSISTENT.equals(roleLine[1]);
+            if ((!ROLE_ADMIN.equals(role) && !ROLE_USER.equals(role)) || (roleLine.length > 1 && !persistent)) {
+                return respondAndClose(MESSAGE_INVALID_ROLE); // Mesaj pentru rol invalid
+            }
+            return true;
+        }
+
+        if (command == null) {
+            command = line.toUpperCase(Locale.ROOT);
+            arguments.clear();
+        } else {
+            arguments.add(line);
+        }
+
+        if (persistent && COMMAND_QUIT.equals(command)) {
+            send();
+            return false; // Clientul închide conexiunea persistentă
+        }
+
+        int required = requiredArguments(command, arguments);
+        if (required < 0) {
+            command = null;
+            metrics.record(UNKNOWN_COMMAND, 0, true); // Numele necunoscute nu primesc histograme proprii
+            // Mesaj pentru comandă necunoscută
+            outputWriter.println(ROLE_ADMIN.equals(role) ? MESSAGE_UNKNOWN_ADMIN_COMMAND : MESSAGE_UNKNOWN_USER_COMMAND);
+            return finishResponse();
+        }
+        if (arguments.size() < required) {
+            return true; // Se așteaptă restul parametrilor
+        }
+
+        String executed = command;
+        command = null;
+        failed = false;
+        long startNanos = System.nanoTime();
+        try {
+            execute(executed, arguments);
+            return finishResponse();
+        } catch (RuntimeException e) {
+            failed = true;
+            throw e;
+        } finally {
+            metrics.record(executed, System.nanoTime() - startNanos, failed);
+        }
+    }
+
+    // Încheie răspunsul curent; doar conexiunile persistente rămân deschise
+    private boolean finishResponse() {
+        if (persistent) {
+            outputWriter.println(END_OF_RESPONSE); // Marcajul de final al răspunsului
+        }
+        send();
+        return persistent && !closeAfterResponse;
+    }
+
+    /**
+     * Semnalează că clientul a închis fluxul de intrare.
+     */
+    void onEndOfStream() {
+        if (role == null) {
+            outputWriter.println(MESSAGE_ROLE_NOT_PROVIDED); // Mesaj pentru lipsa rolului
+        }
+        send();
+    }
+
+    // Trimite un mesaj și cere închiderea conexiunii
+    private boolean respondAndClose(String message) {
+        outputWriter.println(message);
+        send();
+        return false;
+    }
+
+    // Scrie un mesaj de eroare și marchează comanda curentă ca eșuată
+    private void error(String message) {
+        failed = true;
+        outputWriter.println(message);
+    }
+
+    // Trimite tot ce s-a scris din răspunsul curent
+    private void send() {
+        outputWriter.flush();
+        try {
+            output.send();
+        } catch (IOException e) {
+            // Ca la PrintWriter, erorile de scriere sunt ignorate; conexiunea închisă este observată la citire
+        }
+    }
+
+    // Scrie octeți deja codificați UTF-8 după textul scris până acum, fără să golească conexiunea
+    private void writeEncoded(byte[] bytes) {
+        outputWriter.flush(); // Textul anterior ajunge în buffer, nu pe conexiune
+        try {
+            output.write(bytes);
+        } catch (IOException e) {
+            // Conexiunea a fost închisă; eroarea este observată la citire
+        }
+    }
+
+    /**
+     * Returnează numărul de parametri necesari comenzii, pe baza celor primiți până acum.
+     * @param command Comanda, cu majuscule.
+     * @param received Parametrii primiți până acum.
+     * @return Numărul de parametri, sau -1 dacă rolul curent nu cunoaște comanda.
+     */
+    private int requiredArguments(String command, List<String> received) {
+        if (ROLE_ADMIN.equals(role)) {
+            return switch (command) {
+                case "IMPORT", "IMPORT_STATUS", "UPDATE" -> 1;
+                case "STATS" -> 0;
+                case "IMPORT_BULK" -> received.isEmpty() ? 1 : 1 + Math.max(0, batchSize(received.get(0)));
+                default -> -1;
+            };
+        }
+        return switch (command) {
+            case "GET_WEATHER_BY_CITY" -> 1;
+            case "GET_WEATHER", "GET_FORECAST_RANGE" -> 3;
+            case "GET_WEATHER_WITHIN", "GET_WEATHER_NEAREST" -> 5;
+            case "GET_WEATHER_BATCH", "GET_WEATHER_BY_CITY_BATCH" -> received.isEmpty() ? 1 : 1 + Math.max(0, batchSize(received.get(0)));
+            default -> -1;
+        };
+    }
+
+    // Interpretează dimensiunea unui lot; returnează -1 pentru o valoare invalidă (eroarea este raportată la execuție)
+    private static int batchSize(String value) {
+        try {
+            int size = Integer.parseInt(value.trim());
+            return size >= 0 && size <= MAX_BATCH_SIZE ? size : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Răspunde la un lot cu dimensiune invalidă: liniile lotului nu pot fi delimitate, deci conexiunea se închide
+    private void rejectBatch() {
+        error(MESSAGE_INVALID_BATCH_SIZE);
+        closeAfterResponse = true;
+    }
+
+    // Execută o comandă completă
+    private void execute(String command, List<String> args) {
+        switch (command) {
+            case "IMPORT" -> importDatabase(args.get(0));
+            case "IMPORT_BULK" -> importBulk(args); // Import în paralel, returnează imediat lucrarea
+            case "IMPORT_STATUS" -> importStatus(args.get(0)); // Progresul unei lucrări de import
+            case "UPDATE" -> updateDatabase(args.get(0)); // Actualizare incrementală a prognozelor
+            case "STATS" -> metrics.report().forEach(outputWriter::println); // Latențele comenzilor și indicatorii serverului
+            case "GET_WEATHER_BY_CITY" -> weatherByCity(args.get(0));
+            case "GET_WEATHER" -> weatherByCoordinates(args.get(0), args.get(1), args.get(2));
+            case "GET_FORECAST_RANGE" -> forecastRange(args.get(0), args.get(1), args.get(2)); // Prognozele dintre două date
+            case "GET_WEATHER_WITHIN" -> streamNearbyLocations(args, true); // Toate locațiile din rază
+            case "GET_WEATHER_NEAREST" -> streamNearbyLocations(args, false); // Cele mai apropiate k locații
+            case "GET_WEATHER_BATCH" -> streamBatch(args, this::renderWeatherByCoordinates);
+            case "GET_WEATHER_BY_CITY_BATCH" -> streamBatch(args, this::renderWeatherByCity);
+            default -> throw new IllegalStateException("Unhandled command: " + command);
+        }
+    }
+
+    /**
+     * Importă locațiile dintr-un fișier JSON (comandă de admin).
+     * @param filePath Calea fișierului JSON.
+     */
+    private void importDatabase(String filePath) {
+        if (weatherDataManager.validateJsonFile(filePath)) {
+            if (weatherDataManager.importDatabase(filePath)) {
+                outputWriter.println(MESSAGE_DATABASE_UPDATED); // Mesaj pentru actualizare reușită
+            } else {
+                error(MESSAGE_DATABASE_UPDATE_FAILED); // Mesaj pentru actualizare eșuată
+            }
+        } else {
+            error(MESSAGE_INVALID_JSON_FILE); // Mesaj pentru fișier JSON invalid
+        }
+    }
+
+    /**
+     * Aplică incremental un fișier JSON: prognozele schimbate sunt înlocuite, locațiile noi adăugate (comandă de admin).
+     * @param filePath Calea fișierului JSON.
+     */
+    private void updateDatabase(String filePath) {
+        if (!weatherDataManager.validateJsonFile(filePath)) {
+            error(MESSAGE_INVALID_JSON_FILE); // Mesaj pentru fișier JSON invalid
+            return;
+        }
+        Optional<WeatherDataManager.UpdateResult> result = weatherDataManager.applyUpdates(filePath);
+        if (result.isEmpty()) {
+            error(MESSAGE_DATABASE_UPDATE_FAILED); // Mesaj pentru actualizare eșuată
+            return;
+        }
+        outputWriter.println(String.format(UPDATE_FORMAT, result.get().changed(), result.get().added(), result.get().unchanged()));
+    }
+
+    /**
+     * Pornește un import în paralel și trimite imediat starea lucrării create (comandă de admin).
+     * @param args Numărul de căi, apoi câte o cale de fișier sau director pe linie.
+     */
+    private void importBulk(List<String> args) {
+        int size = batchSize(args.get(0));
+        if (size < 0) {
+            rejectBatch();
+            return;
+        }
+        if (size == 0) {
+            error(MESSAGE_INVALID_BATCH_SIZE);
+            return;
+        }
+        writeImportJob(weatherDataManager.submitBulkImport(args.subList(1, args.size())), false);
+    }
+
+    /**
+     * Trimite starea unei lucrări de import și progresul fiecărui fișier (comandă de admin).
+     * @param jobIdText Identificatorul lucrării.
+     */
+    private void importStatus(String jobIdText) {
+        Optional<BulkImportService.ImportJob> job;
+        try {
+            job = weatherDataManager.findImportJob(Long.parseLong(jobIdText.trim()));
+        } catch (NumberFormatException e) {
+            job = Optional.empty();
+        }
+        if (job.isEmpty()) {
+            error(MESSAGE_UNKNOWN_IMPORT_JOB);
+            return;
+        }
+        writeImportJob(job.get(), true);
+    }
+
+    // Scrie linia JOB și, la cerere, câte o linie FILE pentru fiecare fișier
+    private void writeImportJob(BulkImportService.ImportJob job, boolean withFiles) {
+        List<BulkImportService.FileStatus> files = job.files();
+        String line = String.format(JOB_FORMAT, job.id(), job.state(), job.finishedFiles(), files.size(), job.added());
+        outputWriter.println(job.error() == null ? line : line + ERROR_SUFFIX + job.error());
+        if (!withFiles) {
+            return;
+        }
+        for (BulkImportService.FileStatus file : files) {
+            line = String.format(FILE_FORMAT, file.path(), file.state(), file.loaded(), file.skipped(), file.durationMillis());
+            outputWriter.println(file.error() == null ? line : line + ERROR_SUFFIX + file.error());
+        }
+    }
+
+    /**
+     * Trimite prognoza pentru un oraș.
+     * @param city Numele orașului.
+     */
+    private void weatherByCity(String city) {
+        byte[] body = weatherDataManager.getEncodedCityReply(city); // Corpul răspunsului, gata codificat
+        if (body == null) {
+            error(MESSAGE_CITY_NOT_FOUND); // Mesaj pentru oraș negăsit
+            return;
+        }
+        outputWriter.print("Weather for " + city + ':' + LINE_SEPARATOR); // Mesaj pentru prognoză
+        writeEncoded(body);
+    }
+
+    /**
+     * Construiește răspunsul pentru un oraș, cu aceleași linii ca răspunsul comenzii GET_WEATHER_BY_CITY.
+     * @param city Numele orașului.
+     * @return Textul răspunsului, terminat cu separatorul de linie, și dacă este un mesaj de eroare.
+     */
+    private BatchItem renderWeatherByCity(String city) {
+        byte[] body = weatherDataManager.getEncodedCityReply(city);
+        if (body == null) {
+            return BatchItem.error(MESSAGE_CITY_NOT_FOUND); // Mesaj pentru oraș negăsit
+        }
+        return new BatchItem("Weather for " + city + ':' + LINE_SEPARATOR + new String(body, StandardCharsets.UTF_8), false);
+    }
+
+    /**
+     * Trimite prognoza pentru locația cea mai apropiată de coordonate.
+     * @param latitudeText Latitudinea.
+     * @param longitudeText Longitudinea.
+     * @param radiusText Raza de căutare în kilometri.
+     */
+    private void weatherByCoordinates(String latitudeText, String longitudeText, String radiusText) {
+        try {
+            double latitude = Double.parseDouble(latitudeText);
+            double longitude = Double.parseDouble(longitudeText);
+            double radius = Double.parseDouble(radiusText);
+
+            writeEncoded(weatherDataManager.getEncodedWeather(latitude, longitude, radius)); // Răspunsul gata codificat
+            outputWriter.println();
+        } catch (NumberFormatException e) {
+            error(MESSAGE_INVALID_COORDINATES); // Mesaj pentru coordonate/raza invalide
+        }
+    }
+
+    /**
+     * Trimite prognozele unei locații dintre două date, inclusiv. Prognozele sunt sortate după dată la încărcare,
+     * deci capetele intervalului se găsesc prin căutare binară și sunt trimise doar zilele din interval.
+     * @param target Numele orașului sau "latitudine,longitudine" (locația cea mai apropiată, fără limită de distanță).
+     * @param fromText Prima dată (ISO, de exemplu 2025-01-01); linia goală înseamnă fără limită.
+     * @param toText Ultima dată (ISO); linia goală înseamnă fără limită.
+     */
+    private void forecastRange(String target, String fromText, String toText) {
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = fromText.isBlank() ? null : LocalDate.parse(fromText.trim());
+            to = toText.isBlank() ? null : LocalDate.parse(toText.trim());
+        } catch (DateTimeParseException e) {
+            error(MESSAGE_INVALID_DATE_RANGE); // Mesaj pentru dată invalidă
+            return;
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            error(MESSAGE_INVALID_DATE_RANGE); // Mesaj pentru interval inversat
+            return;
+        }
+        Optional<GeoWeatherData> found = findForecastLocation(target);
+        if (found.isEmpty()) {
+            error(MESSAGE_CITY_NOT_FOUND); // Mesaj pentru oraș negăsit
+            return;
+        }
+        GeoWeatherData location = found.get();
+        int start = from == null ? 0 : location.getForecastIndexFrom(from);
+        int end = to == null ? location.getForecastCount() : location.getForecastIndexAfter(to);
+        outputWriter.println(String.format(RANGE_LOCATION_FORMAT, location.getCity(), location.getCountry()));
+        outputWriter.println(DAYS_PREFIX + Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            outputWriter.println(new DailyForecast(location.getForecastDate(i), location.getForecastCondition(i),
+                    location.getForecastTemperature(i)));
+        }
+    }
+
+    // Locația pentru GET_FORECAST_RANGE: coordonate "latitudine,longitudine" sau numele orașului
+    private Optional<GeoWeatherData> findForecastLocation(String target) {
+        String[] parts = target.split(",");
+        if (parts.length == 2) {
+            try {
+                double latitude = Double.parseDouble(parts[0].trim());
+                double longitude = Double.parseDouble(parts[1].trim());
+                return weatherDataManager.findClosestLocation(latitude, longitude);
+            } catch (NumberFormatException e) {
+                // Nu sunt coordonate: numele orașului conține o virgulă
+            }
+        }
+        return weatherDataManager.findLocationByCity(target);
+    }
+
+    // Variantă pentru loturi: o cerere pe o linie, sub forma "latitudine,longitudine,rază"
+    private BatchItem renderWeatherByCoordinates(String query) {
+        String[] parts = query.split(",");
+        if (parts.length != 3) {
+            return BatchItem.error(MESSAGE_INVALID_COORDINATES);
+        }
+        return renderWeatherByCoordinates(parts[0].trim(), parts[1].trim(), parts[2].trim());
+    }
+
+    /**
+     * Construiește răspunsul pentru coordonate, cu aceleași linii ca răspunsul comenzii GET_WEATHER.
+     * @return Textul răspunsului, terminat cu separatorul de linie, și dacă este un mesaj de eroare.
+     */
+    private BatchItem renderWeatherByCoordinates(String latitudeText, String longitudeText, String radiusText) {
+        try {
+            double latitude = Double.parseDouble(latitudeText);
+            double longitude = Double.parseDouble(longitudeText);
+            double radius = Double.parseDouble(radiusText);
+
+            return new BatchItem(weatherDataManager.getWeather(latitude, longitude, radius) + LINE_SEPARATOR, false); // Obține prognoza
+        } catch (NumberFormatException e) {
+            return BatchItem.error(MESSAGE_INVALID_COORDINATES); // Mesaj pentru coordonate/raza invalide
+        }
+    }
+
+    /**
+     * Rezultatul unei cereri dintr-un lot. Este construit pe firele ForkJoinPool, deci nu modifică starea sesiunii;
+     * firul sesiunii marchează comanda ca eșuată dacă un element este un mesaj de eroare.
+     * @param text Textul răspunsului, terminat cu separatorul de linie.
+     * @param failed Răspunsul este un mesaj de eroare.
+     */
+    private record BatchItem(String text, boolean failed) {
+        static BatchItem error(String message) {
+            return new BatchItem(message + LINE_SEPARATOR, true);
+        }
+    }
+
+    /**
+     * Evaluează în paralel cererile unui lot și trimite rezultatele în ordinea cererilor.
+     * Primul parametru este numărul de cereri, urmat de câte o cerere pe linie. Cererile sunt evaluate
+     * în blocuri de BATCH_CHUNK_SIZE pe ForkJoinPool-ul comun; fiecare bloc este trimis imediat ce este gata.
+     * @param args Parametrii comenzii.
+     * @param renderer Construiește răspunsul pentru o singură cerere.
+     */
+    private void streamBatch(List<String> args, Function<String, BatchItem> renderer) {
+        int size = batchSize(args.get(0));
+        if (size < 0) {
+            rejectBatch(); // Mesaj pentru dimensiune invalidă
+            return;
+        }
+
+        List<String> queries = args.subList(1, 1 + size);
+        outputWriter.println(BATCH_PREFIX + size);
+        for (int chunkStart = 0; chunkStart < size; chunkStart += BATCH_CHUNK_SIZE) {
+            int chunkEnd = Math.min(size, chunkStart + BATCH_CHUNK_SIZE);
+            BatchItem[] results = IntStream.range(chunkStart, chunkEnd)
+                    .parallel()
+                    .mapToObj(i -> renderer.apply(queries.get(i)))
+                    .toArray(BatchItem[]::new);
+            for (int i = 0; i < results.length; i++) {
+                outputWriter.println(BATCH_ITEM_PREFIX + (chunkStart + i));
+                outputWriter.print(results[i].text());
+                if (results[i].failed()) {
+                    failed = true; // Elementele invalide apar ca erori în STATS
+                }
+            }
+        }
+    }
+
+    /**
+     * Trimite incremental locațiile din jurul unui punct, sortate după distanță (la distanțe egale, după poziția în bază).
+     * Parametrii: latitudine, longitudine, rază (km) sau număr de locații, limită, cursor.
+     * Limita și cursorul pot fi linii goale. Cursorul este valoarea NEXT_CURSOR a paginii anterioare și conține
+     * câte rezultate au fost trimise și cheia ultimului rezultat (distanța exactă și poziția), astfel încât pagina
+     * următoare continuă căutarea de acolo în loc să refacă și să sorteze toate rezultatele. Totalul nu face parte
+     * din cursor; este recalculat de server la fiecare pagină.
+     * @param args Parametrii comenzii.
+     * @param byRadius true pentru căutare în rază, false pentru cele mai apropiate k locații.
+     */
+    private void streamNearbyLocations(List<String> args, boolean byRadius) {
+        double latitude;
+        double longitude;
+        double maxDistance;
+        int limit;
+        int total;
+        int returned = 0;
+        GeoSpatialIndex.PageKey after = null;
+        try {
+            latitude = Double.parseDouble(args.get(0)); // Latitudinea
+            longitude = Double.parseDouble(args.get(1)); // Longitudinea
+            String extent = args.get(2); // Raza sau numărul de locații
+            limit = parseOptionalCount(args.get(3)); // Limita (0 = fără limită)
+            maxDistance = byRadius ? Double.parseDouble(extent) : Double.POSITIVE_INFINITY;
+            int count = byRadius ? 0 : Math.max(0, Integer.parseInt(extent.trim()));
+            String cursor = args.get(4).trim(); // Cursorul (linie goală = de la început)
+            if (!cursor.isEmpty()) {
+                String[] fields = cursor.split("\\" + CURSOR_SEPARATOR);
+                if (fields.length != 3) {
+                    throw new NumberFormatException("Invalid cursor: " + cursor);
+                }
+                returned = parseOptionalCount(fields[0]);
+                after = new GeoSpatialIndex.PageKey(Double.longBitsToDouble(Long.parseUnsignedLong(fields[1], 16)),
+                        parseOptionalCount(fields[2]));
+            }
+            total = byRadius
+                    ? weatherDataManager.countLocationsWithinRadius(latitude, longitude, maxDistance)
+                    : Math.min(count, weatherDataManager.getLocationCount());
+        } catch (NumberFormatException e) {
+            error(MESSAGE_INVALID_QUERY); // Mesaj pentru parametri invalizi
+            return;
+        }
+
+        int remaining = Math.max(0, total - returned);
+        GeoSpatialIndex.Page page = weatherDataManager.findLocationPage(latitude, longitude, maxDistance, after,
+                remaining == 0 ? 0 : (limit > 0 ? Math.min(limit, remaining) : remaining));
+        List<GeoSpatialIndex.Neighbor> neighbors = page.neighbors();
+        outputWriter.println(RESULTS_PREFIX + total);
+        for (GeoSpatialIndex.Neighbor neighbor : neighbors) {
+            GeoWeatherData location = neighbor.location();
+            outputWriter.println(String.format(Locale.ROOT, LOCATION_FORMAT, location.getCity(), location.getCountry(),
+                    neighbor.distanceKm()));
+            location.getWeatherList().forEach(forecast -> outputWriter.println(forecast.toString())); // Afișează prognozele
+        }
+        returned += neighbors.size();
+        if (returned < total && page.last() != null) { // Mai există rezultate
+            outputWriter.println(NEXT_CURSOR_PREFIX + returned + CURSOR_SEPARATOR
+                    + Long.toHexString(Double.doubleToLongBits(page.last().chordSquared())) + CURSOR_SEPARATOR
+                    + page.last().position());
+        }
+    }
+
+    // Interpretează o valoare întreagă opțională; linia goală înseamnă 0
+    private static int parseOptionalCount(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        int count = Integer.parseInt(value.trim());
+        if (count < 0) {
+            throw new NumberFormatException("Negative value: " + value);
+        }
+        return count;
+    }
+
+    /**
+     * Buffer de ieșire care ignoră golirile intermediare (de exemplu cele ale PrintWriter-ului), astfel încât textul
+     * și octeții deja codificați ajung împreună pe conexiune, la send().
+     */
+    private static final class ResponseStream extends BufferedOutputStream {
+        ResponseStream(OutputStream out) {
+            super(out, BUFFER_SIZE);
+        }
+
+        @Override
+        public void flush() {
+            // Golirea efectivă se face doar prin send()
+        }
+
+        void send() throws IOException {
+            super.flush();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package common;
+
+import java.util.LinkedHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache pentru răspunsurile căutărilor după coordonate (getWeather).
+ * Cheia este celula grilei în care cad coordonatele (rezoluție configurabilă, în grade) împreună cu raza;
+ * toate cererile dintr-o celulă primesc răspunsul calculat pentru prima dintre ele.
+ * Cache-ul este împărțit în segmente LRU, fiecare cu propriul lacăt, și are limită de dimensiune și de vârstă.
+ * Fiecare intrare reține versiunea datelor pentru care a fost calculată, deci după un import nu mai este folosită;
+ * după o actualizare care schimbă doar prognozele, intrările rândurilor neschimbate sunt mutate în versiunea nouă (revalidate).
+ */
+public final class QueryCache {
+    private static final int SEGMENTS = 16; // Numărul de segmente (putere a lui 2)
+
+    private final double gridDegrees; // Latura unei celule a grilei, în grade
+    private final long ttlNanos; // Vârsta maximă a unei intrări
+    private final Segment[] segments = new Segment[SEGMENTS]; // Segmentele cache-ului
+    private final LongAdder hits = new LongAdder(); // Cereri servite din cache
+    private final LongAdder misses = new LongAdder(); // Cereri calculate
+    private final LongAdder evictions = new LongAdder(); // Intrări eliminate din lipsă de spațiu sau expirate
+
+    /**
+     * Statistica cache-ului.
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    // Cheia unei cereri: celula grilei și raza
+    private record Key(long cell, double radius) {
+    }
+
+    // Valoarea unei intrări; row este rândul locației din răspuns, sau -1 dacă nu s-a găsit nicio locație
+    private record Entry(byte[] reply, int row, long dataVersion, long expiresAt) {
+    }
+
+    /**
+     * @param gridDegrees Latura celulei grilei, în grade (de exemplu 0.001 ≈ 110 m).
+     * @param maxEntries Numărul maxim de intrări.
+     * @param ttlMillis Vârsta maximă a unei intrări, în milisecunde.
+     */
+    public QueryCache(double gridDegrees, int maxEntries, long ttlMillis) {
+        if (!(gridDegrees > 0) || maxEntries <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Invalid cache configuration");
+        }
+        this.gridDegrees = gridDegrees;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        int perSegment = Math.max(1, maxEntries / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Caută răspunsul pentru o cerere.
+     * @param dataVersion Versiunea curentă a datelor; intrările calculate pentru alte versiuni sunt ignorate.
+     * @return Răspunsul, sau null dacă nu există o intrare validă.
+     */
+    byte[] get(double latitude, double longitude, double radius, long dataVersion) {
+        Key key = key(latitude, longitude, radius);
+        Segment segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            Entry entry = segment.entries.get(key);
+            if (entry != null && entry.dataVersion == dataVersion && entry.expiresAt - System.nanoTime() > 0) {
+                hits.increment();
+                return entry.reply;
+            }
+            if (entry != null) {
+                segment.entries.remove(key); // Intrare expirată sau dintr-o versiune veche
+                evictions.increment();
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        misses.increment();
+        return null;
+    }
+
+    // Reține răspunsul calculat pentru o cerere
+    void put(double latitude, double longitude, double radius, long dataVersion, int row, byte[] reply) {
+        Key key = key(latitude, longitude, radius);
+        Segment segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.entries.put(key, new Entry(reply, row, dataVersion, System.nanoTime() + ttlNanos));
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    // Golește cache-ul (de exemplu după un import)
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.entries.clear();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Trece în versiunea nouă intrările calculate pentru versiunea veche, cu excepția celor ale rândurilor modificate.
+     * Este corect doar dacă versiunea nouă are aceleași coordonate (locația cea mai apropiată nu se schimbă).
+     * @param changedRow Rândurile ale căror răspunsuri nu mai sunt valabile.
+     */
+    void revalidate(long oldVersion, long newVersion, IntPredicate changedRow) {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                Iterator<Map.Entry<Key, Entry>> iterator = segment.entries.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Key, Entry> mapping = iterator.next();
+                    Entry entry = mapping.getValue();
+                    if (entry.dataVersion == oldVersion && (entry.row < 0 || !changedRow.test(entry.row))) {
+                        mapping.setValue(new Entry(entry.reply, entry.row, newVersion, entry.expiresAt));
+                    } else if (entry.dataVersion != newVersion) {
+                        iterator.remove(); // Răspuns al unui rând modificat, sau dintr-o versiune mai veche
+                        evictions.increment();
+                    }
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    public Stats stats() {
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.entries.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    // Celula grilei în care cad coordonatele
+    private Key key(double latitude, double longitude, double radius) {
+        long row = (long) Math.floor(latitude / gridDegrees);
+        long column = (long) Math.floor(longitude / gridDegrees);
+        return new Key((row << 32) ^ (column & 0xFFFFFFFFL), radius);
+    }
+
+    private Segment segmentFor(Key key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Un segment LRU: LinkedHashMap în ordinea accesului, care elimină cea mai veche intrare la depășirea limitei.
+     */
+    private final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<Key, Entry> entries;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
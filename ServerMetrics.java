@@ -0,0 +1,124 @@
+package server;
+
+import common.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Registrul metricilor serverului: pentru fiecare comandă numărul de execuții, numărul de erori și histograma
+ * latențelor (LatencyHistogram), plus conexiunile deschise și indicatori (gauge) înregistrați de server,
+ * de exemplu coada executorului sau cache-ul căutărilor. Înregistrarea nu folosește blocări, deci poate fi
+ * apelată la fiecare comandă; raportul text este trimis de comanda de admin STATS și, opțional, afișat periodic.
+ */
+final class ServerMetrics {
+    private static final String UPTIME_FORMAT = "UPTIME:%d s"; // Timpul de funcționare
+    private static final String CONNECTIONS_FORMAT = "CONNECTIONS: active=%d total=%d"; // Conexiunile serverului
+    private static final String COMMAND_FORMAT =
+            "COMMAND:%s count=%d errors=%d rate=%.1f/s mean=%.3f p50=%.3f p90=%.3f p99=%.3f p999=%.3f max=%.3f ms"; // Latențele unei comenzi
+    private static final String GAUGE_FORMAT = "GAUGE:%s=%d"; // Un indicator înregistrat
+    private static final String DUMP_HEADER = "--- Server statistics ---"; // Antetul afișării periodice
+    private static final String DUMP_THREAD_NAME = "metrics-dump"; // Numele firului de afișare
+    private static final double NANOS_PER_MILLI = 1_000_000.0; // Conversia latențelor în milisecunde
+
+    private final long startNanos = System.nanoTime(); // Momentul pornirii
+    private final Map<String, CommandMetrics> commands = new ConcurrentHashMap<>(); // Metricile fiecărei comenzi
+    private final AtomicInteger activeConnections = new AtomicInteger(); // Conexiunile deschise acum
+    private final LongAdder totalConnections = new LongAdder(); // Conexiunile deschise de la pornire
+    private final List<Gauge> gauges = new CopyOnWriteArrayList<>(); // Indicatorii, în ordinea înregistrării
+
+    /**
+     * Metricile unei comenzi.
+     */
+    private static final class CommandMetrics {
+        private final LongAdder errors = new LongAdder(); // Execuții terminate cu eroare
+        private final LatencyHistogram latency = new LatencyHistogram(); // Durata execuțiilor, în nanosecunde
+    }
+
+    // Un indicator citit la fiecare raport
+    private record Gauge(String name, LongSupplier value) {
+    }
+
+    /**
+     * Înregistrează execuția unei comenzi.
+     * @param command Numele comenzii.
+     * @param nanos Durata, inclusiv trimiterea răspunsului.
+     * @param failed Comanda a răspuns cu un mesaj de eroare.
+     */
+    void record(String command, long nanos, boolean failed) {
+        CommandMetrics metrics = commands.get(command);
+        if (metrics == null) {
+            metrics = commands.computeIfAbsent(command, name -> new CommandMetrics());
+        }
+        metrics.latency.record(nanos);
+        if (failed) {
+            metrics.errors.increment();
+        }
+    }
+
+    // Apelat când se deschide o conexiune
+    void connectionOpened() {
+        activeConnections.incrementAndGet();
+        totalConnections.increment();
+    }
+
+    // Apelat când se închide o conexiune
+    void connectionClosed() {
+        activeConnections.decrementAndGet();
+    }
+
+    // Adaugă un indicator la raport
+    void registerGauge(String name, LongSupplier value) {
+        gauges.add(new Gauge(name, value));
+    }
+
+    /**
+     * Construiește raportul text: timpul de funcționare, conexiunile, comenzile (ordonate după nume) și indicatorii.
+     * @return Liniile raportului.
+     */
+    List<String> report() {
+        double uptimeSeconds = Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, UPTIME_FORMAT, (long) uptimeSeconds));
+        lines.add(String.format(Locale.ROOT, CONNECTIONS_FORMAT, activeConnections.get(), totalConnections.sum()));
+        commands.keySet().stream().sorted().forEach(name -> {
+            CommandMetrics metrics = commands.get(name);
+            LatencyHistogram.Summary summary = metrics.latency.summary();
+            lines.add(String.format(Locale.ROOT, COMMAND_FORMAT, name, summary.count(), metrics.errors.sum(),
+                    summary.count() / uptimeSeconds, summary.mean() / NANOS_PER_MILLI,
+                    summary.p50() / NANOS_PER_MILLI, summary.p90() / NANOS_PER_MILLI, summary.p99() / NANOS_PER_MILLI,
+                    summary.p999() / NANOS_PER_MILLI, summary.max() / NANOS_PER_MILLI));
+        });
+        for (Gauge gauge : gauges) {
+            lines.add(String.format(Locale.ROOT, GAUGE_FORMAT, gauge.name(), gauge.value().getAsLong()));
+        }
+        return lines;
+    }
+
+    /**
+     * Afișează raportul la consolă la intervale regulate, pe un fir daemon.
+     * @param intervalSeconds Intervalul dintre afișări.
+     */
+    void startPeriodicDump(long intervalSeconds) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, DUMP_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            StringBuilder dump = new StringBuilder(DUMP_HEADER).append(System.lineSeparator());
+            report().forEach(line -> dump.append(line).append(System.lineSeparator()));
+            System.out.print(dump);
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+}
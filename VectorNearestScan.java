@@ -0,0 +1,52 @@
+package common;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Varianta SIMD a parcurgerii liniare (Vector API). Distanțele sunt calculate pe câte SPECIES.length() puncte odată;
+ * doar blocurile în care o distanță bate rezultatul curent sunt examinate element cu element.
+ * Necesită --add-modules jdk.incubator.vector la compilare și la rulare; este încărcată doar prin NearestScan.vector().
+ */
+final class VectorNearestScan implements NearestScan {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED; // Lățimea preferată a registrelor
+
+    @Override
+    public int nearest(double[] xs, double[] ys, double[] zs, double[] query, double limit) {
+        DoubleVector qx = DoubleVector.broadcast(SPECIES, query[0]);
+        DoubleVector qy = DoubleVector.broadcast(SPECIES, query[1]);
+        DoubleVector qz = DoubleVector.broadcast(SPECIES, query[2]);
+        double[] lanes = new double[SPECIES.length()];
+        double best = Math.nextUp(limit); // d < best este echivalent cu d <= limit
+        int bestIndex = -1;
+        int length = zs.length;
+        int upperBound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < upperBound; i += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, xs, i).sub(qx);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, ys, i).sub(qy);
+            DoubleVector dz = DoubleVector.fromArray(SPECIES, zs, i).sub(qz);
+            DoubleVector d = dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz));
+            // Comparația rămâne în registre; blocul este examinat element cu element doar dacă bate rezultatul curent
+            if (d.compare(VectorOperators.LT, best).anyTrue()) {
+                d.intoArray(lanes, 0);
+                for (int lane = 0; lane < lanes.length; lane++) {
+                    if (lanes[lane] < best) {
+                        best = lanes[lane];
+                        bestIndex = i + lane;
+                    }
+                }
+            }
+        }
+        for (; i < length; i++) { // Restul care nu umple un registru
+            double dx = xs[i] - query[0], dy = ys[i] - query[1], dz = zs[i] - query[2];
+            double d = dx * dx + dy * dy + dz * dz;
+            if (d < best) {
+                best = d;
+                bestIndex = i;
+            }
+        }
+        return bestIndex;
+    }
+}
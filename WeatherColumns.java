@@ -0,0 +1,553 @@
+package common;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Stocare pe coloane (struct-of-arrays) a locațiilor și prognozelor.
+ * Fiecare locație este un rând: latitudine și longitudine în double, oraș și țară ca referințe (țările sunt partajate),
+ * iar prognozele ei ocupă un interval continuu în coloanele de prognoze: ziua epocii în int, codul condiției
+ * în short (tabela condițiilor este comună) și temperatura în float. Datele care nu sunt în format ISO canonic
+ * sunt păstrate separat, ca text. Coloanele numerice sunt buffere: fie tablouri din heap (Builder, withUpdatedRows),
+ * fie vederi direct peste fișierul instantaneului mapat în memorie (WeatherSnapshotFile), fără copiere. Ele sunt citite
+ * doar cu operații absolute, care nu modifică poziția buffer-ului, deci pot fi partajate între fire. Prognozele fiecărei locații sunt sortate după dată la construire (Builder),
+ * deci pot fi parcurse în ordine și căutate binar (forecastBound). Obiectele GeoWeatherData sunt vederi (flyweight) peste un rând.
+ * Instanțele sunt imutabile; append și withUpdatedRows construiesc o instanță nouă.
+ */
+final class WeatherColumns {
+    static final int LITERAL_DATE = Integer.MIN_VALUE; // Data prognozei este păstrată ca text în literalDates
+    private static final short NULL_CONDITION = -1; // Condiție lipsă
+
+    private final int size; // Numărul de locații
+    private final DoubleBuffer latitudes; // Latitudinile
+    private final DoubleBuffer longitudes; // Longitudinile
+    private final String[] cities; // Orașele
+    private final String[] countries; // Țările (instanțe partajate)
+    private final IntBuffer forecastOffsets; // Începutul prognozelor fiecărei locații (size + 1 elemente)
+    private final IntBuffer forecastDays; // Ziua epocii pentru fiecare prognoză, sau LITERAL_DATE
+    private final ShortBuffer forecastConditions; // Codul condiției pentru fiecare prognoză
+    private final FloatBuffer forecastTemperatures; // Temperatura pentru fiecare prognoză
+    private final String[] conditionTable; // Numele condițiilor, după cod
+    private final Map<Integer, String> literalDates; // Datele necanonice, după indexul prognozei
+
+    private WeatherColumns(Builder builder) {
+        this.size = builder.size;
+        this.latitudes = DoubleBuffer.wrap(Arrays.copyOf(builder.latitudes, size));
+        this.longitudes = DoubleBuffer.wrap(Arrays.copyOf(builder.longitudes, size));
+        this.cities = Arrays.copyOf(builder.cities, size);
+        this.countries = Arrays.copyOf(builder.countries, size);
+        this.forecastOffsets = IntBuffer.wrap(Arrays.copyOf(builder.forecastOffsets, size + 1));
+        int forecastCount = builder.forecastCount;
+        this.forecastDays = IntBuffer.wrap(Arrays.copyOf(builder.forecastDays, forecastCount));
+        this.forecastConditions = ShortBuffer.wrap(Arrays.copyOf(builder.forecastConditions, forecastCount));
+        this.forecastTemperatures = FloatBuffer.wrap(Arrays.copyOf(builder.forecastTemperatures, forecastCount));
+        this.conditionTable = builder.conditionCodes.keySet().toArray(new String[0]);
+        for (Map.Entry<String, Short> entry : builder.conditionCodes.entrySet()) {
+            conditionTable[entry.getValue()] = entry.getKey();
+        }
+        this.literalDates = builder.literalDates.isEmpty() ? Map.of() : new HashMap<>(builder.literalDates);
+    }
+
+    /**
+     * Construiește o stocare peste coloane existente, fără să le copieze (folosit și pentru vederile peste fișierul mapat).
+     * Numărul de prognoze este limita buffer-ului forecastDays; codurile condițiilor sunt indecși în conditionTable.
+     */
+    WeatherColumns(int size, DoubleBuffer latitudes, DoubleBuffer longitudes, String[] cities, String[] countries,
+                   IntBuffer forecastOffsets, IntBuffer forecastDays, ShortBuffer forecastConditions,
+                   FloatBuffer forecastTemperatures, String[] conditionTable, Map<Integer, String> literalDates) {
+        this.size = size;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.cities = cities;
+        this.countries = countries;
+        this.forecastOffsets = forecastOffsets;
+        this.forecastDays = forecastDays;
+        this.forecastConditions = forecastConditions;
+        this.forecastTemperatures = forecastTemperatures;
+        this.conditionTable = conditionTable;
+        this.literalDates = literalDates;
+    }
+
+    // Construiește stocarea dintr-o listă de locații; o listă care este deja o vedere completă este refolosită
+    static WeatherColumns of(List<GeoWeatherData> locations) {
+        if (locations instanceof LocationList view && view.columns.size == locations.size()) {
+            return view.columns;
+        }
+        Builder builder = new Builder(locations.size());
+        for (GeoWeatherData location : locations) {
+            builder.add(location);
+        }
+        return builder.build();
+    }
+
+    // Returnează o stocare nouă care conține și locațiile date
+    WeatherColumns append(List<GeoWeatherData> newLocations) {
+        Builder builder = new Builder(this, size + newLocations.size());
+        for (GeoWeatherData location : newLocations) {
+            builder.add(location);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returnează o stocare nouă în care coordonatele și prognozele rândurilor date sunt înlocuite cu cele ale surselor.
+     * Orașele și țările sunt partajate cu stocarea curentă, iar coordonatele doar dacă nu s-a schimbat niciuna;
+     * prognozele celorlalte rânduri sunt copiate în blocuri continue (operații get în bloc), fără a fi decodificate.
+     * @param rows Rândurile actualizate, în ordine strict crescătoare.
+     * @param sources Datele noi, câte una pentru fiecare rând.
+     */
+    WeatherColumns withUpdatedRows(int[] rows, List<GeoWeatherData> sources) {
+        DoubleBuffer newLatitudes = latitudes;
+        DoubleBuffer newLongitudes = longitudes;
+        int forecastTotal = forecastDays.limit();
+        for (int i = 0; i < rows.length; i++) {
+            GeoWeatherData source = sources.get(i);
+            forecastTotal += source.getForecastCount() - forecastCount(rows[i]);
+            if (Double.compare(source.getLatitude(), latitudes.get(rows[i])) != 0
+                    || Double.compare(source.getLongitude(), longitudes.get(rows[i])) != 0) {
+                if (newLatitudes == latitudes) {
+                    newLatitudes = copy(latitudes);
+                    newLongitudes = copy(longitudes);
+                }
+                newLatitudes.put(rows[i], source.getLatitude());
+                newLongitudes.put(rows[i], source.getLongitude());
+            }
+        }
+
+        int[] offsets = new int[size + 1];
+        int[] days = new int[forecastTotal];
+        short[] conditions = new short[forecastTotal];
+        float[] temperatures = new float[forecastTotal];
+        Map<String, Short> conditionCodes = new HashMap<>();
+        for (short code = 0; code < conditionTable.length; code++) {
+            conditionCodes.put(conditionTable[code], code);
+        }
+        Map<Integer, String> literals = new HashMap<>();
+
+        int target = 0; // Următoarea poziție liberă în coloanele noi de prognoze
+        int nextRow = 0; // Primul rând încă necopiat
+        for (int i = 0; i <= rows.length; i++) {
+            int updatedRow = i < rows.length ? rows[i] : size;
+            // Rândurile neschimbate dinaintea celui actualizat sunt copiate dintr-o singură bucată
+            int from = forecastOffsets.get(nextRow);
+            int length = forecastOffsets.get(updatedRow) - from;
+            forecastDays.get(from, days, target, length);
+            forecastConditions.get(from, conditions, target, length);
+            forecastTemperatures.get(from, temperatures, target, length);
+            for (int row = nextRow; row < updatedRow; row++) {
+                offsets[row] = forecastOffsets.get(row) - from + target;
+            }
+            target += length;
+            if (i == rows.length) {
+                break;
+            }
+            GeoWeatherData source = sources.get(i);
+            offsets[updatedRow] = target;
+            for (int j = 0; j < source.getForecastCount(); j++, target++) {
+                String date = source.getForecastDate(j);
+                int day = Builder.epochDay(date);
+                if (day == LITERAL_DATE && date != null) {
+                    literals.put(target, date);
+                }
+                days[target] = day;
+                conditions[target] = Builder.conditionCode(conditionCodes, source.getForecastCondition(j));
+                temperatures[target] = (float) source.getForecastTemperature(j);
+            }
+            nextRow = updatedRow + 1;
+        }
+        offsets[size] = target;
+
+        // Datele necanonice ale rândurilor neschimbate își păstrează poziția relativă în rând
+        for (Map.Entry<Integer, String> entry : literalDates.entrySet()) {
+            int row = rowOfForecast(entry.getKey());
+            if (Arrays.binarySearch(rows, row) < 0) {
+                literals.put(entry.getKey() - forecastOffsets.get(row) + offsets[row], entry.getValue());
+            }
+        }
+
+        String[] table = conditionTable;
+        if (conditionCodes.size() != conditionTable.length) {
+            table = new String[conditionCodes.size()];
+            for (Map.Entry<String, Short> entry : conditionCodes.entrySet()) {
+                table[entry.getValue()] = entry.getKey();
+            }
+        }
+        return new WeatherColumns(size, newLatitudes, newLongitudes, cities, countries, IntBuffer.wrap(offsets),
+                IntBuffer.wrap(days), ShortBuffer.wrap(conditions), FloatBuffer.wrap(temperatures), table,
+                literals.isEmpty() ? Map.of() : literals);
+    }
+
+    // Copie în heap a unei coloane, care poate fi apoi modificată
+    private static DoubleBuffer copy(DoubleBuffer column) {
+        double[] values = new double[column.limit()];
+        column.get(0, values);
+        return DoubleBuffer.wrap(values);
+    }
+
+    /**
+     * Căutare binară în prognozele sortate ale unei locații.
+     * @param date Data căutată.
+     * @param after false pentru prima prognoză din data dată sau de după ea, true pentru prima de după ea.
+     * @return Poziția prognozei în cadrul locației (între 0 și forecastCount(row)).
+     */
+    int forecastBound(int row, LocalDate date, boolean after) {
+        long day = date.toEpochDay();
+        String text = date.toString();
+        int start = forecastOffsets.get(row);
+        int low = start;
+        int high = forecastOffsets.get(row + 1);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int comparison = compareDate(mid, day, text);
+            if (comparison < 0 || (after && comparison == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - start;
+    }
+
+    // Compară data unei prognoze cu o dată dată atât ca zi a epocii, cât și ca text (pentru datele necanonice)
+    private int compareDate(int forecast, long day, String text) {
+        int forecastDay = forecastDays.get(forecast);
+        if (forecastDay != LITERAL_DATE) {
+            return Long.compare(forecastDay, day);
+        }
+        String literal = literalDates.get(forecast);
+        return literal == null ? -1 : literal.compareTo(text);
+    }
+
+    // Rândul căruia îi aparține o prognoză (căutare binară în deplasamente)
+    private int rowOfForecast(int forecast) {
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (forecastOffsets.get(mid) <= forecast) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double latitude(int row) {
+        return latitudes.get(row);
+    }
+
+    double longitude(int row) {
+        return longitudes.get(row);
+    }
+
+    String city(int row) {
+        return cities[row];
+    }
+
+    String country(int row) {
+        return countries[row];
+    }
+
+    // Indexul primei prognoze a locației
+    int forecastStart(int row) {
+        return forecastOffsets.get(row);
+    }
+
+    int forecastCount(int row) {
+        return forecastOffsets.get(row + 1) - forecastOffsets.get(row);
+    }
+
+    // Numărul total de prognoze
+    int forecastTotal() {
+        return forecastDays.limit();
+    }
+
+    // Ziua epocii pentru prognoza dată, sau LITERAL_DATE
+    int forecastDay(int forecast) {
+        return forecastDays.get(forecast);
+    }
+
+    // Data prognozei, ca text
+    String forecastDate(int forecast) {
+        int day = forecastDays.get(forecast);
+        return day == LITERAL_DATE ? literalDates.get(forecast) : LocalDate.ofEpochDay(day).toString();
+    }
+
+    String forecastCondition(int forecast) {
+        short code = forecastConditions.get(forecast);
+        return code == NULL_CONDITION ? null : conditionTable[code];
+    }
+
+    // Codul condiției prognozei (indice în tabela condițiilor), sau -1 pentru condiție lipsă
+    short forecastConditionCode(int forecast) {
+        return forecastConditions.get(forecast);
+    }
+
+    // Numărul de condiții distincte
+    int conditionCount() {
+        return conditionTable.length;
+    }
+
+    // Numele condiției cu codul dat
+    String conditionName(int code) {
+        return conditionTable[code];
+    }
+
+    float forecastTemperature(int forecast) {
+        return forecastTemperatures.get(forecast);
+    }
+
+    // Vederea asupra unui rând
+    GeoWeatherData location(int row) {
+        return new GeoWeatherData(this, row);
+    }
+
+    // Lista tuturor locațiilor, ca vederi create la acces
+    List<GeoWeatherData> locations() {
+        return new LocationList(this);
+    }
+
+    /**
+     * Listă nemodificabilă de vederi peste rândurile unei stocări.
+     */
+    private static final class LocationList extends AbstractList<GeoWeatherData> implements RandomAccess {
+        private final WeatherColumns columns;
+
+        LocationList(WeatherColumns columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public GeoWeatherData get(int index) {
+            if (index < 0 || index >= columns.size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return columns.location(index);
+        }
+
+        @Override
+        public int size() {
+            return columns.size;
+        }
+    }
+
+    /**
+     * Construiește o stocare rând cu rând; coloanele cresc prin dublare.
+     * Prognozele unei locații sunt sortate după dată (stabil) când locația este încheiată, adică la adăugarea
+     * următoarei locații sau la build(); datele ISO sunt comparate ca zile ale epocii, iar cele necanonice ca text,
+     * ceea ce dă aceeași ordine ca sortarea după textul datei.
+     */
+    static final class Builder {
+        private int size; // Locațiile adăugate
+        private int sortedSize; // Locațiile ale căror prognoze sunt deja sortate
+        private int forecastCount; // Prognozele adăugate
+        private double[] latitudes;
+        private double[] longitudes;
+        private String[] cities;
+        private String[] countries;
+        private int[] forecastOffsets;
+        private int[] forecastDays;
+        private short[] forecastConditions;
+        private float[] forecastTemperatures;
+        private final Map<String, Short> conditionCodes = new HashMap<>(); // Codul fiecărei condiții
+        private final Map<String, String> countryNames = new HashMap<>(); // Instanța partajată a fiecărei țări
+        private final Map<Integer, String> literalDates = new HashMap<>(); // Datele necanonice
+
+        Builder(int expectedLocations) {
+            int capacity = Math.max(1, expectedLocations);
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+            cities = new String[capacity];
+            countries = new String[capacity];
+            forecastOffsets = new int[capacity + 1];
+            forecastDays = new int[capacity];
+            forecastConditions = new short[capacity];
+            forecastTemperatures = new float[capacity];
+        }
+
+        // Pornește de la conținutul unei stocări existente
+        Builder(WeatherColumns base, int expectedLocations) {
+            this(Math.max(expectedLocations, base.size));
+            size = base.size;
+            forecastCount = base.forecastTotal();
+            base.latitudes.get(0, latitudes, 0, size);
+            base.longitudes.get(0, longitudes, 0, size);
+            System.arraycopy(base.cities, 0, cities, 0, size);
+            System.arraycopy(base.countries, 0, countries, 0, size);
+            base.forecastOffsets.get(0, forecastOffsets, 0, size + 1);
+            ensureForecastCapacity(forecastCount);
+            base.forecastDays.get(0, forecastDays, 0, forecastCount);
+            base.forecastConditions.get(0, forecastConditions, 0, forecastCount);
+            base.forecastTemperatures.get(0, forecastTemperatures, 0, forecastCount);
+            for (short code = 0; code < base.conditionTable.length; code++) {
+                conditionCodes.put(base.conditionTable[code], code);
+            }
+            for (int i = 0; i < size; i++) {
+                if (countries[i] != null) {
+                    countryNames.putIfAbsent(countries[i], countries[i]);
+                }
+            }
+            literalDates.putAll(base.literalDates);
+            sortedSize = size;
+        }
+
+        // Adaugă o locație fără prognoze; prognozele se adaugă apoi cu addForecast
+        Builder addLocation(String city, String country, double latitude, double longitude) {
+            sortLastLocation();
+            if (size == latitudes.length) {
+                int capacity = size * 2;
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+                cities = Arrays.copyOf(cities, capacity);
+                countries = Arrays.copyOf(countries, capacity);
+                forecastOffsets = Arrays.copyOf(forecastOffsets, capacity + 1);
+            }
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            cities[size] = city;
+            countries[size] = country == null ? null : countryNames.computeIfAbsent(country, name -> name);
+            size++;
+            forecastOffsets[size] = forecastCount;
+            return this;
+        }
+
+        // Adaugă o prognoză ultimei locații adăugate
+        Builder addForecast(String date, String condition, double temperature) {
+            ensureForecastCapacity(forecastCount + 1);
+            int day = epochDay(date);
+            if (day == LITERAL_DATE && date != null) {
+                literalDates.put(forecastCount, date);
+            }
+            forecastDays[forecastCount] = day;
+            forecastConditions[forecastCount] = conditionCode(conditionCodes, condition);
+            forecastTemperatures[forecastCount] = (float) temperature;
+            forecastCount++;
+            forecastOffsets[size] = forecastCount;
+            return this;
+        }
+
+        // Copiază o locație, citind direct din coloane dacă este o vedere
+        Builder add(GeoWeatherData location) {
+            addLocation(location.getCity(), location.getCountry(), location.getLatitude(), location.getLongitude());
+            for (int i = 0; i < location.getForecastCount(); i++) {
+                addForecast(location.getForecastDate(i), location.getForecastCondition(i), location.getForecastTemperature(i));
+            }
+            return this;
+        }
+
+        WeatherColumns build() {
+            sortLastLocation();
+            return new WeatherColumns(this);
+        }
+
+        // Sortează prognozele ultimei locații după dată, dacă nu sunt deja în ordine
+        private void sortLastLocation() {
+            if (sortedSize == size) {
+                return;
+            }
+            sortedSize = size;
+            int start = forecastOffsets[size - 1];
+            int count = forecastCount - start;
+            int unsorted = start + 1;
+            while (unsorted < forecastCount && compareDates(unsorted - 1, unsorted) <= 0) {
+                unsorted++;
+            }
+            if (unsorted >= forecastCount) {
+                return; // Cazul obișnuit: datele sunt deja în ordine
+            }
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = start + i;
+            }
+            Arrays.sort(order, this::compareDates); // Sortare stabilă: zilele egale își păstrează ordinea
+            int[] days = new int[count];
+            short[] conditions = new short[count];
+            float[] temperatures = new float[count];
+            String[] literals = new String[count];
+            for (int i = 0; i < count; i++) {
+                days[i] = forecastDays[order[i]];
+                conditions[i] = forecastConditions[order[i]];
+                temperatures[i] = forecastTemperatures[order[i]];
+                literals[i] = days[i] == LITERAL_DATE ? literalDates.get(order[i]) : null;
+            }
+            for (int i = 0; i < count; i++) {
+                forecastDays[start + i] = days[i];
+                forecastConditions[start + i] = conditions[i];
+                forecastTemperatures[start + i] = temperatures[i];
+                if (literals[i] != null) {
+                    literalDates.put(start + i, literals[i]);
+                } else {
+                    literalDates.remove(start + i);
+                }
+            }
+        }
+
+        // Compară datele a două prognoze adăugate; o dată lipsă este considerată prima
+        private int compareDates(int first, int second) {
+            int firstDay = forecastDays[first];
+            int secondDay = forecastDays[second];
+            if (firstDay != LITERAL_DATE && secondDay != LITERAL_DATE) {
+                return Integer.compare(firstDay, secondDay);
+            }
+            String firstDate = firstDay == LITERAL_DATE ? literalDates.get(first) : LocalDate.ofEpochDay(firstDay).toString();
+            String secondDate = secondDay == LITERAL_DATE ? literalDates.get(second) : LocalDate.ofEpochDay(secondDay).toString();
+            if (firstDate == null || secondDate == null) {
+                return firstDate == null ? (secondDate == null ? 0 : -1) : 1;
+            }
+            return firstDate.compareTo(secondDate);
+        }
+
+        private void ensureForecastCapacity(int required) {
+            if (required > forecastDays.length) {
+                int capacity = Math.max(required, forecastDays.length * 2);
+                forecastDays = Arrays.copyOf(forecastDays, capacity);
+                forecastConditions = Arrays.copyOf(forecastConditions, capacity);
+                forecastTemperatures = Arrays.copyOf(forecastTemperatures, capacity);
+            }
+        }
+
+        // Codul unei condiții, adăugând-o în tabelă dacă este nouă
+        private static short conditionCode(Map<String, Short> conditionCodes, String condition) {
+            if (condition == null) {
+                return NULL_CONDITION;
+            }
+            Short code = conditionCodes.get(condition);
+            if (code == null) {
+                if (conditionCodes.size() == Short.MAX_VALUE) {
+                    throw new IllegalStateException("Too many distinct weather conditions");
+                }
+                code = (short) conditionCodes.size();
+                conditionCodes.put(condition, code);
+            }
+            return code;
+        }
+
+        // Ziua epocii pentru o dată ISO canonică (aaaa-ll-zz); altfel LITERAL_DATE
+        private static int epochDay(String date) {
+            if (date == null || date.length() != 10) {
+                return LITERAL_DATE;
+            }
+            try {
+                LocalDate parsed = LocalDate.parse(date);
+                return parsed.toString().equals(date) ? (int) parsed.toEpochDay() : LITERAL_DATE;
+            } catch (DateTimeParseException e) {
+                return LITERAL_DATE;
+            }
+        }
+    }
+}
@@ -1,21 +1,22 @@
 package common;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
-
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class WeatherDataManager {
-    // Constante generale
-    private static final int EARTH_RADIUS = 6371; // Raza Pământului în kilometri
-
     // Mesaje
     private static final String DATABASE_EMPTY_MESSAGE = "Database is empty or failed to load."; // Mesaj pentru baza de date goală
     private static final String DATABASE_LOADED_MESSAGE = "Database loaded successfully with %d locations."; // Mesaj pentru baza de date încărcată
@@ -24,28 +25,160 @@ public class WeatherDataManager {
     private static final String NO_LOCATIONS_FOUND_MESSAGE = "No locations found in the file."; // Mesaj pentru lipsa locațiilor
     private static final String DATABASE_UPDATED_MESSAGE = "Database updated successfully with %d new locations."; // Mesaj pentru baza de date actualizată
     private static final String NO_LOCATION_RADIUS_MESSAGE = "No location found within the specified radius."; // Mesaj pentru lipsa locațiilor în rază
-    private static final String CLOSEST_LOCATION_MESSAGE = "Closest location: %s, %s\n"; // Mesaj pentru locația cea mai apropiată
+    private static final String LOAD_PROGRESS_MESSAGE = "Loading... %d locations read, %d skipped."; // Mesaj pentru progresul încărcării
+    private static final String SKIPPED_RECORDS_MESSAGE = "Skipped %d malformed records in %s."; // Mesaj pentru înregistrările invalide
+    private static final int LOAD_PROGRESS_INTERVAL = 100_000; // Numărul de înregistrări între două mesaje de progres
+    private static final int LOAD_INITIAL_CAPACITY = 1024; // Capacitatea inițială a coloanelor la încărcare
+    private static final String SNAPSHOT_LOADED_MESSAGE = "Loaded %d locations from snapshot %s in %d ms."; // Mesaj pentru încărcarea din instantaneu
+    private static final String SNAPSHOT_ERROR_MESSAGE = "Error using snapshot %s: %s"; // Mesaj de eroare pentru instantaneu
+    private static final String SNAPSHOT_IN_USE_MESSAGE = "Snapshot %s is still mapped and cannot be replaced; retrying later."; // Instantaneul nu poate fi înlocuit încă
+    private static final String DATABASE_DELTA_MESSAGE = "Database updated from %s: %d changed, %d added, %d unchanged."; // Mesaj pentru actualizarea incrementală
+    public static final String SNAPSHOT_SUFFIX = ".snapshot"; // Sufixul implicit al fișierului instantaneu
+    public static final long DEFAULT_SNAPSHOT_INTERVAL_MILLIS = 60_000; // Intervalul minim implicit între două rescrieri ale instantaneului
+    private static final byte[] NO_LOCATION_RADIUS_BYTES = NO_LOCATION_RADIUS_MESSAGE.getBytes(StandardCharsets.UTF_8); // Varianta codificată
+
+    // Versiunea curentă a datelor; cititorii o obțin printr-o singură citire volatilă, fără blocare
+    private volatile WeatherSnapshot snapshot;
+    private BulkImportService bulkImportService; // Serviciul pentru importuri în paralel (creat la prima utilizare)
+    private WeatherUpdateWatcher updateWatcher; // Urmărirea fișierului bazei de date și a directorului de actualizări
+    private volatile QueryCache queryCache; // Cache-ul căutărilor după coordonate (null = dezactivat)
+    private volatile NearestStrategy nearestStrategy = NearestStrategy.TREE; // Modul de căutare a locației celei mai apropiate
 
-    private final List<GeoWeatherData> locationData; // Lista locațiilor meteo
+    private final Path sourceFile; // Fișierul JSON al bazei de date
+    private final Path snapshotFile; // Instantaneul binar al bazei de date (null = dezactivat)
+    private final ScheduledExecutorService snapshotWriter; // Firul care scrie instantaneul în fundal
+    private final AtomicBoolean snapshotScheduled = new AtomicBoolean(); // O scriere a instantaneului este deja programată
+    private volatile long snapshotIntervalMillis = DEFAULT_SNAPSHOT_INTERVAL_MILLIS; // Intervalul minim între două rescrieri
+    private volatile long lastSnapshotMillis; // Momentul ultimei scrieri a instantaneului
+    private long persistedVersion; // Ultima versiune scrisă în instantaneu (folosită doar de snapshotWriter)
 
-    // Constructor: Încarcă baza de date dintr-un fișier JSON specificat
+    // Constructor: Încarcă baza de date dintr-un fișier JSON specificat, prin instantaneul implicit
     public WeatherDataManager(String filePath) {
-        locationData = loadDatabase(filePath); // Încarcă locațiile
-        if (locationData.isEmpty()) {
+        this(filePath, filePath + SNAPSHOT_SUFFIX);
+    }
+
+    // Constructor: Încarcă baza de date din instantaneu dacă acesta corespunde fișierului JSON, altfel din JSON
+    // Instantaneul este rescris după încărcarea din JSON și după importuri și actualizări, cel mult o dată pe interval;
+    // snapshotPath null îl dezactivează
+    public WeatherDataManager(String filePath, String snapshotPath) {
+        this.sourceFile = Paths.get(filePath);
+        this.snapshotFile = snapshotPath != null ? Paths.get(snapshotPath) : null;
+        this.snapshotWriter = snapshotFile != null ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+
+        List<GeoWeatherData> snapshotLocations = loadSnapshot();
+        if (snapshotLocations != null) {
+            snapshot = WeatherSnapshot.of(snapshotLocations);
+        } else {
+            snapshot = WeatherSnapshot.of(loadDatabase(filePath)); // Încarcă locațiile și construiește indexurile
+            if (!snapshot.locations().isEmpty()) {
+                persistSnapshot();
+            }
+        }
+        if (snapshot.locations().isEmpty()) {
             System.out.println(DATABASE_EMPTY_MESSAGE); // Mesaj dacă baza de date este goală
         } else {
-            System.out.printf(DATABASE_LOADED_MESSAGE + "\n", locationData.size()); // Mesaj dacă baza de date a fost încărcată
+            System.out.printf(DATABASE_LOADED_MESSAGE + "\n", snapshot.locations().size()); // Mesaj dacă baza de date a fost încărcată
+        }
+    }
+
+    // Returnează numărul de locații din versiunea curentă
+    public int getLocationCount() {
+        return snapshot.locations().size();
+    }
+
+    // Returnează numărul versiunii curente a datelor
+    public long getDataVersion() {
+        return snapshot.version();
+    }
+
+    // Încarcă locațiile din instantaneu; returnează null dacă acesta lipsește, este vechi sau invalid
+    private List<GeoWeatherData> loadSnapshot() {
+        if (snapshotFile == null) {
+            return null;
+        }
+        long startTime = System.nanoTime();
+        try {
+            Optional<List<GeoWeatherData>> locations = WeatherSnapshotFile.read(snapshotFile, sourceFile);
+            if (locations.isPresent()) {
+                System.out.printf(SNAPSHOT_LOADED_MESSAGE + "\n", locations.get().size(), snapshotFile,
+                        (System.nanoTime() - startTime) / 1_000_000);
+                return locations.get();
+            }
+        } catch (IOException e) {
+            System.err.printf(SNAPSHOT_ERROR_MESSAGE + "\n", snapshotFile, e.getMessage());
+        }
+        return null;
+    }
+
+    // Programează scrierea versiunii curente în instantaneu, la cel puțin snapshotIntervalMillis după scrierea anterioară
+    // Toate versiunile publicate până la scriere se reduc la una singură, deci actualizările dese nu rescriu fișierul de fiecare dată
+    private void persistSnapshot() {
+        if (snapshotWriter == null || !snapshotScheduled.compareAndSet(false, true)) {
+            return; // Dezactivat, sau scrierea deja programată va prelua versiunea curentă
         }
+        long delay = Math.max(0, lastSnapshotMillis + snapshotIntervalMillis - System.currentTimeMillis());
+        snapshotWriter.schedule(this::writeSnapshot, delay, TimeUnit.MILLISECONDS);
     }
 
-    // Încarcă locațiile meteo dintr-un fișier JSON
+    // Scrie versiunea curentă în instantaneu, dacă nu a fost deja scrisă (rulează pe firul snapshotWriter)
+    private void writeSnapshot() {
+        snapshotScheduled.set(false); // Versiunile publicate de acum înainte programează o scriere nouă
+        WeatherSnapshot current = snapshot;
+        if (current.version() == persistedVersion) {
+            return; // Versiunea curentă a fost deja scrisă
+        }
+        boolean retry = false;
+        try {
+            if (WeatherSnapshotFile.write(snapshotFile, sourceFile, current.locations())) {
+                persistedVersion = current.version();
+            } else {
+                // Pe Windows fișierul vechi rămâne blocat cât timp o versiune mapată este încă folosită
+                System.err.printf(SNAPSHOT_IN_USE_MESSAGE + "\n", snapshotFile);
+                retry = true;
+            }
+        } catch (IOException e) {
+            System.err.printf(SNAPSHOT_ERROR_MESSAGE + "\n", snapshotFile, e.getMessage());
+        }
+        lastSnapshotMillis = System.currentTimeMillis();
+        if (retry) {
+            persistSnapshot(); // Reîncearcă după interval
+        }
+    }
+
+    // Stabilește intervalul minim dintre două rescrieri ale instantaneului (0 = după fiecare modificare)
+    public void setSnapshotInterval(long millis) {
+        this.snapshotIntervalMillis = Math.max(0, millis);
+    }
+
+    // Scrie imediat versiunea curentă în instantaneu, dacă nu a fost deja scrisă (de exemplu la oprirea serverului)
+    public void flushSnapshot() {
+        if (snapshotWriter == null) {
+            return;
+        }
+        try {
+            snapshotWriter.submit(this::writeSnapshot).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.printf(SNAPSHOT_ERROR_MESSAGE + "\n", snapshotFile, e.getCause());
+        }
+    }
+
+    // Încarcă locațiile meteo dintr-un fișier JSON, în flux, sărind înregistrările invalide
     private List<GeoWeatherData> loadDatabase(String filePath) {
+        WeatherColumns.Builder columns = new WeatherColumns.Builder(LOAD_INITIAL_CAPACITY); // Locațiile sunt stocate direct pe coloane
+        WeatherJsonLoader loader = new WeatherJsonLoader(
+                (loaded, skipped) -> System.out.printf(LOAD_PROGRESS_MESSAGE + "\n", loaded, skipped), LOAD_PROGRESS_INTERVAL);
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            Type listType = new TypeToken<List<GeoWeatherData>>() {}.getType();
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(GeoWeatherData.class, new GeoWeatherData.GeoWeatherDataDeserializer())
-                    .create();
-            return gson.fromJson(reader, listType); // Returnează lista locațiilor
+            WeatherJsonLoader.LoadStats stats = loader.load(reader, columns);
+            if (stats.skipped() > 0) {
+                System.out.printf(SKIPPED_RECORDS_MESSAGE + "\n", stats.skipped(), filePath); // Mesaj pentru înregistrările sărite
+            }
+            return columns.build().locations(); // Returnează lista locațiilor
         } catch (IOException e) {
             System.err.println("Error loading database: " + e.getMessage()); // Mesaj de eroare la încărcare
             return new ArrayList<>();
@@ -53,38 +186,92 @@ public class WeatherDataManager {
     }
 
     // Returnează informațiile meteo pentru o locație pe baza coordonatelor și razei de căutare
+    // O rază nepozitivă înseamnă căutare fără limită de distanță
     public String getWeather(double latitude, double longitude, double searchRadius) {
-        Optional<GeoWeatherData> closestLocation = findClosestLocation(latitude, longitude); // Caută locația cea mai apropiată
-        if (closestLocation.isPresent()) {
-            GeoWeatherData location = closestLocation.get();
-            StringBuilder result = new StringBuilder();
-            result.append(String.format(CLOSEST_LOCATION_MESSAGE, location.getCity(), location.getCountry())); // Adaugă locația cea mai apropiată
-            for (DailyForecast forecast : location.getWeatherList()) {
-                result.append(forecast.toString()).append("\n"); // Adaugă prognozele meteo
+        return new String(getEncodedWeather(latitude, longitude, searchRadius), StandardCharsets.UTF_8);
+    }
+
+    // Varianta codificată UTF-8 a lui getWeather; răspunsul fiecărei locații este construit o singură dată
+    // Tabloul returnat este partajat și nu trebuie modificat
+    public byte[] getEncodedWeather(double latitude, double longitude, double searchRadius) {
+        WeatherSnapshot current = snapshot;
+        QueryCache cache = queryCache;
+        if (cache != null) {
+            byte[] cached = cache.get(latitude, longitude, searchRadius, current.version()); // Cereri apropiate recente
+            if (cached != null) {
+                return cached;
             }
-            return result.toString();
+        }
+
+        byte[] reply;
+        int row = -1;
+        double maxDistance = searchRadius > 0 ? searchRadius : Double.POSITIVE_INFINITY;
+        Optional<GeoSpatialIndex.Neighbor> closestLocation =
+                current.spatialIndex().nearest(latitude, longitude, maxDistance, nearestStrategy); // Caută locația cea mai apropiată
+        if (closestLocation.isPresent()) {
+            reply = current.closestReply(closestLocation.get().location()); // Răspunsul gata codificat
+            row = closestLocation.get().location().row();
         } else {
-            return NO_LOCATION_RADIUS_MESSAGE; // Mesaj dacă nu se găsește nicio locație
+            reply = NO_LOCATION_RADIUS_BYTES; // Mesaj dacă nu se găsește nicio locație
         }
+        if (cache != null) {
+            cache.put(latitude, longitude, searchRadius, current.version(), row, reply);
+        }
+        return reply;
+    }
+
+    // Alege modul de căutare a locației celei mai apropiate (index k-d, parcurgere scalară sau SIMD)
+    public void setNearestStrategy(NearestStrategy nearestStrategy) {
+        this.nearestStrategy = nearestStrategy;
+    }
+
+    // Activează (sau, cu null, dezactivează) cache-ul căutărilor după coordonate folosit de getWeather
+    public void setQueryCache(QueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    // Returnează statistica cache-ului căutărilor după coordonate, dacă este activ
+    public Optional<QueryCache.Stats> getQueryCacheStats() {
+        QueryCache cache = queryCache;
+        return cache == null ? Optional.empty() : Optional.of(cache.stats());
+    }
+
+    // Corpul codificat UTF-8 al răspunsului după oraș (prognozele și coordonatele), sau null dacă orașul nu există
+    // Tabloul returnat este partajat și nu trebuie modificat
+    public byte[] getEncodedCityReply(String city) {
+        return snapshot.cityReplyBody(city);
     }
 
     // Găsește locația cea mai apropiată de coordonatele specificate
     public Optional<GeoWeatherData> findClosestLocation(double latitude, double longitude) {
-        return locationData.stream()
-                .min((loc1, loc2) -> Double.compare(
-                        haversineDistance(latitude, longitude, loc1.getLatitude(), loc1.getLongitude()),
-                        haversineDistance(latitude, longitude, loc2.getLatitude(), loc2.getLongitude())
-                )); // Returnează locația cu distanța minimă
+        return snapshot.spatialIndex().nearest(latitude, longitude); // Returnează locația cu distanța minimă
     }
 
-    // Calculează distanța Haversine între două puncte geografice
-    private double haversineDistance(double lat1, double lon1, double lat2, double lon2) {
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        return EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a)); // Returnează distanța în kilometri
+    // Găsește locația cea mai apropiată aflată în raza de căutare (rază nepozitivă = fără limită)
+    public Optional<GeoWeatherData> findClosestLocation(double latitude, double longitude, double searchRadius) {
+        double maxDistance = searchRadius > 0 ? searchRadius : Double.POSITIVE_INFINITY;
+        return snapshot.spatialIndex().nearest(latitude, longitude, maxDistance, nearestStrategy).map(GeoSpatialIndex.Neighbor::location);
+    }
+
+    // Returnează toate locațiile din raza specificată, sortate crescător după distanță
+    public List<GeoSpatialIndex.Neighbor> findLocationsWithinRadius(double latitude, double longitude, double searchRadius) {
+        return snapshot.spatialIndex().withinRadius(latitude, longitude, searchRadius);
+    }
+
+    // Returnează cele mai apropiate k locații, sortate crescător după distanță
+    public List<GeoSpatialIndex.Neighbor> findNearestLocations(double latitude, double longitude, int count) {
+        return snapshot.spatialIndex().kNearest(latitude, longitude, count);
+    }
+
+    // Numără locațiile din raza specificată, fără a le colecta
+    public int countLocationsWithinRadius(double latitude, double longitude, double searchRadius) {
+        return snapshot.spatialIndex().countWithin(latitude, longitude, searchRadius);
+    }
+
+    // Returnează o pagină de locații în ordinea distanței, care continuă după cheia dată (null = de la început)
+    public GeoSpatialIndex.Page findLocationPage(double latitude, double longitude, double maxDistance,
+                                                 GeoSpatialIndex.PageKey after, int limit) {
+        return snapshot.spatialIndex().page(latitude, longitude, maxDistance, after, limit);
     }
 
     // Validează dacă un fișier JSON este valid
@@ -100,12 +287,16 @@ public class WeatherDataManager {
 
     // Caută o locație pe baza numelui orașului
     public Optional<GeoWeatherData> findLocationByCity(String city) {
-        return locationData.stream()
-                .filter(location -> location.getCity().equalsIgnoreCase(city)) // Filtrează locațiile care corespund numelui orașului
-                .findFirst(); // Returnează prima locație găsită
+        return snapshot.findByCity(city); // Returnează prima locație găsită
+    }
+
+    // Caută o locație pe baza numelui orașului și al țării
+    public Optional<GeoWeatherData> findLocationByCity(String city, String country) {
+        return snapshot.findByCity(city, country);
     }
 
     // Importează locații noi în baza de date dintr-un fișier JSON
+    // Fișierul este citit fără blocare; doar publicarea versiunii noi este serializată între importuri
     public boolean importDatabase(String filePath) {
         try {
             List<GeoWeatherData> newLocations = loadDatabase(filePath); // Încarcă locațiile din fișier
@@ -115,12 +306,8 @@ public class WeatherDataManager {
                 return false;
             }
 
-            // Elimină locațiile deja existente
-            newLocations.removeIf(newLoc -> locationData.stream()
-                    .anyMatch(existingLoc -> existingLoc.getCity().equalsIgnoreCase(newLoc.getCity())));
-
-            locationData.addAll(newLocations); // Adaugă locațiile noi
-            System.out.printf(DATABASE_UPDATED_MESSAGE + "\n", newLocations.size()); // Mesaj pentru locațiile adăugate
+            int added = importLocations(newLocations);
+            System.out.printf(DATABASE_UPDATED_MESSAGE + "\n", added); // Mesaj pentru locațiile adăugate
             return true;
 
         } catch (Exception e) {
@@ -128,4 +315,99 @@ public class WeatherDataManager {
             return false;
         }
     }
+
+    // Adaugă locațiile ale căror orașe nu există deja și returnează numărul celor adăugate
+    // Versiunea nouă se construiește separat și se publică atomic; cititorii nu sunt blocați
+    public synchronized int importLocations(List<GeoWeatherData> newLocations) {
+        WeatherSnapshot current = snapshot;
+        // Elimină locațiile deja existente (verificare în timp constant prin indexul orașelor)
+        List<GeoWeatherData> added = new ArrayList<>(newLocations);
+        added.removeIf(newLoc -> current.containsCity(newLoc.getCity()));
+
+        snapshot = current.withAdded(added); // Publică versiunea care conține locațiile noi
+        QueryCache cache = queryCache;
+        if (cache != null) {
+            cache.clear(); // Rezultatele vechi nu mai sunt folosite (au altă versiune); memoria lor este eliberată
+        }
+        if (!added.isEmpty()) {
+            persistSnapshot();
+        }
+        return added.size();
+    }
+
+    /**
+     * Rezultatul unei actualizări incrementale.
+     * @param changed Locații existente ale căror coordonate sau prognoze au fost înlocuite.
+     * @param added Locații noi.
+     * @param unchanged Locații identice cu cele existente (sau ignorate).
+     */
+    public record UpdateResult(int changed, int added, int unchanged) {
+    }
+
+    // Aplică incremental locațiile dintr-un fișier JSON: prognozele schimbate sunt înlocuite, locațiile noi adăugate
+    // Fișierul este citit fără blocare; returnează Optional.empty() dacă fișierul nu conține nicio locație
+    public Optional<UpdateResult> applyUpdates(String filePath) {
+        List<GeoWeatherData> incoming = loadDatabase(filePath);
+        if (incoming.isEmpty()) {
+            System.out.println(NO_LOCATIONS_FOUND_MESSAGE); // Mesaj pentru lipsa locațiilor
+            return Optional.empty();
+        }
+        UpdateResult result = applyLocationUpdates(incoming);
+        System.out.printf(DATABASE_DELTA_MESSAGE + "\n", filePath, result.changed(), result.added(), result.unchanged());
+        return Optional.of(result);
+    }
+
+    // Compară locațiile primite cu versiunea curentă și publică doar diferențele
+    // Fără diferențe nu se creează o versiune nouă; dacă nu se schimbă nicio coordonată și nu se adaugă nicio locație,
+    // intrările din cache ale rândurilor neschimbate rămân valabile
+    public synchronized UpdateResult applyLocationUpdates(List<GeoWeatherData> incoming) {
+        WeatherSnapshot current = snapshot;
+        WeatherSnapshot.Delta delta = current.diff(incoming);
+        UpdateResult result = new UpdateResult(delta.changedRows().length, delta.added().size(), delta.unchanged());
+        if (delta.isEmpty()) {
+            return result;
+        }
+        WeatherSnapshot updated = current.withDelta(delta);
+        snapshot = updated; // Publică versiunea nouă
+        QueryCache cache = queryCache;
+        if (cache != null) {
+            if (delta.coordinatesChanged() || !delta.added().isEmpty()) {
+                cache.clear(); // Locația cea mai apropiată se poate schimba pentru orice cerere
+            } else {
+                int[] changedRows = delta.changedRows();
+                cache.revalidate(current.version(), updated.version(),
+                        row -> Arrays.binarySearch(changedRows, row) >= 0);
+            }
+        }
+        persistSnapshot();
+        return result;
+    }
+
+    // Pornește urmărirea fișierului bazei de date și, opțional, a unui director de actualizări (null = fără director)
+    // Modificările sunt aplicate incremental, prin applyUpdates; directorul bazei de date nu poate fi director de actualizări
+    public synchronized void watchForUpdates(String dropDirectory) throws IOException {
+        if (updateWatcher != null) {
+            return;
+        }
+        updateWatcher = new WeatherUpdateWatcher(this, sourceFile, dropDirectory == null ? null : Paths.get(dropDirectory));
+        updateWatcher.start();
+    }
+
+    // Pornește un import în paralel din mai multe fișiere sau directoare și returnează lucrarea creată
+    public BulkImportService.ImportJob submitBulkImport(List<String> paths) {
+        return bulkImportService().submit(paths);
+    }
+
+    // Caută o lucrare de import după identificator
+    public Optional<BulkImportService.ImportJob> findImportJob(long jobId) {
+        return bulkImportService().findJob(jobId);
+    }
+
+    // Creează la prima utilizare serviciul pentru importuri în paralel
+    private synchronized BulkImportService bulkImportService() {
+        if (bulkImportService == null) {
+            bulkImportService = new BulkImportService(this);
+        }
+        return bulkImportService;
+    }
 }
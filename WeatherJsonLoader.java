@@ -0,0 +1,249 @@
+package common;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Încărcător JSON în flux pentru fișierele de date meteo.
+ * Citește tablou cu tablou și obiect cu obiect prin JsonReader, construind direct obiectele GeoWeatherData,
+ * fără arborele intermediar de JsonElement. Înregistrările incomplete sau cu tipuri greșite sunt sărite;
+ * doar o eroare de sintaxă JSON oprește încărcarea.
+ */
+public class WeatherJsonLoader {
+    // Chei JSON
+    private static final String JSON_CITY = "city"; // Cheie pentru oraș
+    private static final String JSON_COUNTRY = "country"; // Cheie pentru țară
+    private static final String JSON_COORDINATES = "coordinates"; // Cheie pentru coordonate
+    private static final String JSON_LATITUDE = "latitude"; // Cheie pentru latitudine
+    private static final String JSON_LONGITUDE = "longitude"; // Cheie pentru longitudine
+    private static final String JSON_FORECAST = "forecast"; // Cheie pentru prognoză
+    private static final String JSON_DATE = "date"; // Cheie pentru data prognozei
+    private static final String JSON_CONDITION = "condition"; // Cheie pentru condițiile meteo
+    private static final String JSON_TEMPERATURE = "temperature"; // Cheie pentru temperatură
+
+    private static final int DEFAULT_PROGRESS_INTERVAL = 100_000; // Numărul de înregistrări între două rapoarte de progres
+    private static final int INITIAL_CAPACITY = 1024; // Capacitatea inițială a coloanelor
+
+    /**
+     * Primește rapoarte periodice despre încărcare.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long loaded, long skipped);
+    }
+
+    /**
+     * Rezultatul unei încărcări: numărul de locații încărcate și de înregistrări sărite.
+     */
+    public record LoadStats(long loaded, long skipped) {
+    }
+
+    private final ProgressListener progressListener; // Destinația rapoartelor de progres (poate fi null)
+    private final int progressInterval; // Numărul de înregistrări între două rapoarte
+
+    // Constructor fără raportarea progresului
+    public WeatherJsonLoader() {
+        this(null, DEFAULT_PROGRESS_INTERVAL);
+    }
+
+    // Constructor cu raportarea progresului la fiecare progressInterval înregistrări
+    public WeatherJsonLoader(ProgressListener progressListener, int progressInterval) {
+        this.progressListener = progressListener;
+        this.progressInterval = Math.max(1, progressInterval);
+    }
+
+    /**
+     * Încarcă toate locațiile valide într-o listă, stocată pe coloane.
+     * @param source Sursa JSON (un tablou de locații).
+     * @return Locațiile încărcate.
+     */
+    public List<GeoWeatherData> loadAll(Reader source) throws IOException {
+        WeatherColumns.Builder columns = new WeatherColumns.Builder(INITIAL_CAPACITY);
+        load(source, columns);
+        return columns.build().locations();
+    }
+
+    /**
+     * Încarcă locațiile valide direct în coloanele unei stocări, fără obiecte GeoWeatherData intermediare.
+     * @param source Sursa JSON (un tablou de locații).
+     * @param columns Stocarea în construcție.
+     * @return Statistica încărcării.
+     */
+    LoadStats load(Reader source, WeatherColumns.Builder columns) throws IOException {
+        return loadInto(source, record -> {
+            columns.addLocation(record.city(), record.country(), record.latitude(), record.longitude());
+            for (DailyForecast forecast : record.forecast()) {
+                columns.addForecast(forecast.getDate(), forecast.getCondition(), forecast.getTemperature());
+            }
+        });
+    }
+
+    /**
+     * Citește locațiile una câte una și le transmite consumatorului, fără să le păstreze.
+     * @param source Sursa JSON (un tablou de locații).
+     * @param sink Primește fiecare locație validă.
+     * @return Statistica încărcării.
+     */
+    public LoadStats load(Reader source, Consumer<GeoWeatherData> sink) throws IOException {
+        return loadInto(source, record -> sink.accept(new GeoWeatherData(record.city(), record.country(),
+                new GeoWeatherData.Coordinates(record.latitude(), record.longitude()), record.forecast())));
+    }
+
+    // Înregistrarea validă a unei locații, înainte de a fi stocată
+    private record LocationRecord(String city, String country, double latitude, double longitude,
+                                  List<DailyForecast> forecast) {
+    }
+
+    // Destinația înregistrărilor valide
+    @FunctionalInterface
+    private interface RecordSink {
+        void accept(LocationRecord record);
+    }
+
+    // Parcurge tabloul de locații și transmite fiecare înregistrare validă
+    private LoadStats loadInto(Reader source, RecordSink sink) throws IOException {
+        long loaded = 0;
+        long skipped = 0;
+        JsonReader reader = new JsonReader(source);
+        if (reader.peek() == JsonToken.END_DOCUMENT) {
+            return new LoadStats(0, 0); // Fișier gol
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            LocationRecord location = readLocation(reader);
+            if (location != null) {
+                sink.accept(location);
+                loaded++;
+            } else {
+                skipped++;
+            }
+            if (progressListener != null && (loaded + skipped) % progressInterval == 0) {
+                progressListener.onProgress(loaded, skipped);
+            }
+        }
+        reader.endArray();
+        return new LoadStats(loaded, skipped);
+    }
+
+    // Citește o locație; returnează null (după ce consumă înregistrarea) dacă aceasta este invalidă
+    private LocationRecord readLocation(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String city = null;
+        String country = null;
+        double[] coordinates = null;
+        List<DailyForecast> forecast = new ArrayList<>();
+        boolean valid = true;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case JSON_CITY -> city = readString(reader);
+                case JSON_COUNTRY -> country = readString(reader);
+                case JSON_COORDINATES -> coordinates = readCoordinates(reader);
+                case JSON_FORECAST -> valid &= readForecast(reader, forecast);
+                default -> reader.skipValue(); // Câmp necunoscut
+            }
+        }
+        reader.endObject();
+
+        if (!valid || city == null || country == null || coordinates == null) {
+            return null;
+        }
+        return new LocationRecord(city, country, coordinates[0], coordinates[1], forecast);
+    }
+
+    // Citește coordonatele; returnează null dacă lipsește latitudinea sau longitudinea
+    private double[] readCoordinates(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        Double latitude = null;
+        Double longitude = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case JSON_LATITUDE -> latitude = readDouble(reader);
+                case JSON_LONGITUDE -> longitude = readDouble(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return latitude == null || longitude == null ? null : new double[]{latitude, longitude};
+    }
+
+    // Citește lista de prognoze; returnează false dacă lista sau una dintre prognoze este invalidă
+    private boolean readForecast(JsonReader reader, List<DailyForecast> forecast) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return true;
+        }
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return false;
+        }
+        boolean valid = true;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                valid = false;
+                continue;
+            }
+            String date = null;
+            String condition = null;
+            Double temperature = 0.0;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case JSON_DATE -> date = readString(reader);
+                    case JSON_CONDITION -> condition = readString(reader);
+                    case JSON_TEMPERATURE -> temperature = readDouble(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (temperature == null) {
+                valid = false;
+            } else {
+                forecast.add(new DailyForecast(date, condition, temperature));
+            }
+        }
+        reader.endArray();
+        return valid;
+    }
+
+    // Citește un șir (sau un număr ca șir); returnează null pentru alte tipuri
+    private static String readString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    // Citește un număr (sau un șir numeric); returnează null pentru alte tipuri
+    private static Double readDouble(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+            String value = reader.nextString();
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        reader.skipValue();
+        return null;
+    }
+}
@@ -0,0 +1,528 @@
+package client;
+
+import common.GeoWeatherData;
+import common.LatencyHistogram;
+import common.WeatherJsonLoader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Generator de încărcare fără interfață pentru PinkWeatherServer, pornit din WeatherBuddyClient cu argumentul "load".
+ * Fiecare client virtual rulează pe un fir virtual și își păstrează conexiunea persistentă (WeatherServerConnection);
+ * cererile sunt alese aleator după ponderile din amestec (by-city, by-coordinate, batch, import).
+ * <p>
+ * În modul open, cererile sunt programate la o rată constantă, indiferent de răspunsuri: fiecare client are
+ * propriul orar (rate / clients cereri pe secundă), iar latența este măsurată de la momentul programat, nu de la
+ * trimiterea efectivă, deci o cerere întârziată de un răspuns lent este numărată cu întârzierea ei (fără omisiune
+ * coordonată). În modul closed, fiecare client trimite cererea următoare imediat după răspuns (plus o pauză
+ * opțională); latențele corectate se obțin prin LatencyHistogram.copyCorrectedForCoordinatedOmission.
+ * Raportul conține, pentru fiecare tip de cerere, percentilele latenței corectate și ale duratei de servire.
+ * <p>
+ * Argumente (--nume=valoare): host, port, mode (open sau closed), clients, rate (cereri pe secundă, mod open),
+ * duration și warmup (secunde), mix (de exemplu city:70,coordinates:25,batch:4,import:1), dataset (fișier JSON
+ * din care se iau orașele și coordonatele), cities (listă separată prin virgulă, dacă nu există dataset),
+ * radius (km), batchSize, importFile (obligatoriu pentru cererile import), thinkMillis și expectedIntervalMicros (mod closed).
+ */
+public final class WeatherLoadGenerator {
+    // Valori implicite
+    private static final String DEFAULT_HOST = "127.0.0.1"; // Adresa serverului
+    private static final int DEFAULT_PORT = 12346; // Portul serverului
+    private static final String DEFAULT_MODE = "closed"; // Modul implicit
+    private static final int DEFAULT_CLIENTS = 100; // Clienți virtuali
+    private static final double DEFAULT_RATE = 1000; // Cereri pe secundă (mod open)
+    private static final long DEFAULT_DURATION_SECONDS = 30; // Durata măsurătorii
+    private static final long DEFAULT_WARMUP_SECONDS = 5; // Încălzirea, exclusă din rezultate
+    private static final String DEFAULT_MIX = "city:70,coordinates:30"; // Amestecul implicit
+    private static final String DEFAULT_CITIES = "Bucharest"; // Orașele cerute fără dataset
+    private static final double DEFAULT_RADIUS_KM = 50; // Raza cererilor după coordonate
+    private static final int DEFAULT_BATCH_SIZE = 10; // Cereri într-un lot
+    private static final double COORDINATE_JITTER_DEGREES = 0.05; // Deplasarea aleatoare în jurul locațiilor din dataset
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000; // Timpul maxim de conectare
+    private static final int READ_TIMEOUT_MILLIS = 60_000; // Timpul maxim de așteptare a unui răspuns
+    private static final long RECONNECT_DELAY_MILLIS = 100; // Pauza înainte de reconectare după o eroare
+    private static final double NANOS_PER_MILLI = 1_000_000.0; // Conversia latențelor în milisecunde
+
+    // Protocol
+    private static final String ROLE_USER = "USER"; // Rol pentru cererile meteo
+    private static final String ROLE_ADMIN = "ADMIN"; // Rol pentru import
+    private static final String[] ERROR_PREFIXES = {"Error", "Invalid", "Failed", "Unknown", "Server busy"}; // Răspunsuri de eroare
+
+    // Mesaje
+    private static final String USAGE = "Usage: WeatherBuddyClient load [--host=127.0.0.1] [--port=12346] [--mode=open|closed] "
+            + "[--clients=100] [--rate=1000] [--duration=30] [--warmup=5] [--mix=city:70,coordinates:30,batch:0,import:0] "
+            + "[--dataset=file.json | --cities=A,B] [--radius=50] [--batchSize=10] [--importFile=path] "
+            + "[--thinkMillis=0] [--expectedIntervalMicros=0]"; // Mesaj de utilizare
+    private static final String START_FORMAT = "Load: mode %s, %d clients, %s, %d s warmup + %d s measured, mix %s%n"; // Configurația
+    private static final String RATE_FORMAT = "rate %.0f req/s"; // Rata (mod open)
+    private static final String THINK_FORMAT = "think time %d ms"; // Pauza (mod closed)
+    private static final String CONNECTED_FORMAT = "Connected %d/%d clients in %d ms%n"; // Conexiunile deschise
+    private static final String SUMMARY_FORMAT = "Completed %d requests, %d errors in %.1f s: %.1f req/s%s%n"; // Rezultatul general
+    private static final String TARGET_FORMAT = " (target %.0f req/s)"; // Rata cerută (mod open)
+    private static final String CORRECTION_FORMAT = "Closed-loop correction: expected interval %.3f ms%n"; // Corecția aplicată
+    private static final String HEADER_FORMAT = "%-12s %-9s %10s %8s %10s %10s %10s %10s %10s %10s%n"; // Antetul tabelului
+    private static final String ROW_FORMAT = "%-12s %-9s %10d %8d %10.3f %10.3f %10.3f %10.3f %10.3f %10.3f%n"; // Un rând al tabelului
+    private static final String LATENCY_CORRECTED = "corrected"; // Latența corectată
+    private static final String LATENCY_SERVICE = "service"; // Durata de servire
+    private static final String TOTAL = "TOTAL"; // Toate cererile
+    private static final String ERROR_ARGUMENT = "Invalid argument: "; // Argument necunoscut sau invalid
+    private static final String ERROR_NO_IMPORT_FILE = "The import workload requires --importFile."; // Lipsește fișierul de import
+    private static final String ERROR_NO_TARGETS = "No cities or locations to query."; // Nu există orașe de cerut
+    private static final String ERROR_DATASET = "Failed to read dataset: "; // Eroare la citirea setului de date
+    private static final String CLIENT_ERROR_FORMAT = "Client %d: %s%n"; // Prima eroare a unui client
+
+    /**
+     * Tipurile de cereri din amestec.
+     */
+    enum Operation {
+        CITY("city", ROLE_USER), // GET_WEATHER_BY_CITY
+        COORDINATES("coordinates", ROLE_USER), // GET_WEATHER
+        BATCH("batch", ROLE_USER), // GET_WEATHER_BATCH
+        IMPORT("import", ROLE_ADMIN); // IMPORT
+
+        private final String label; // Numele din argumentul mix
+        private final String role; // Rolul conexiunii
+
+        Operation(String label, String role) {
+            this.label = label;
+            this.role = role;
+        }
+
+        static Operation parse(String label) {
+            for (Operation operation : values()) {
+                if (operation.label.equalsIgnoreCase(label.trim())) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException(ERROR_ARGUMENT + label);
+        }
+    }
+
+    /**
+     * Configurația unei rulări.
+     */
+    record Config(String host, int port, boolean openLoop, int clients, double rate, long durationSeconds,
+                  long warmupSeconds, String mix, String dataset, String cities, double radiusKm, int batchSize,
+                  String importFile, long thinkMillis, long expectedIntervalMicros) {
+
+        // Interpretează argumentele --nume=valoare
+        static Config parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                int separator = arg.indexOf('=');
+                if (!arg.startsWith("--") || separator < 0) {
+                    throw new IllegalArgumentException(ERROR_ARGUMENT + arg);
+                }
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+            Config config = new Config(
+                    values.getOrDefault("host", DEFAULT_HOST),
+                    Integer.parseInt(values.getOrDefault("port", Integer.toString(DEFAULT_PORT))),
+                    "open".equalsIgnoreCase(values.getOrDefault("mode", DEFAULT_MODE)),
+                    Integer.parseInt(values.getOrDefault("clients", Integer.toString(DEFAULT_CLIENTS))),
+                    Double.parseDouble(values.getOrDefault("rate", Double.toString(DEFAULT_RATE))),
+                    Long.parseLong(values.getOrDefault("duration", Long.toString(DEFAULT_DURATION_SECONDS))),
+                    Long.parseLong(values.getOrDefault("warmup", Long.toString(DEFAULT_WARMUP_SECONDS))),
+                    values.getOrDefault("mix", DEFAULT_MIX),
+                    values.get("dataset"),
+                    values.getOrDefault("cities", DEFAULT_CITIES),
+                    Double.parseDouble(values.getOrDefault("radius", Double.toString(DEFAULT_RADIUS_KM))),
+                    Integer.parseInt(values.getOrDefault("batchSize", Integer.toString(DEFAULT_BATCH_SIZE))),
+                    values.get("importFile"),
+                    Long.parseLong(values.getOrDefault("thinkMillis", "0")),
+                    Long.parseLong(values.getOrDefault("expectedIntervalMicros", "0")));
+            String mode = values.getOrDefault("mode", DEFAULT_MODE);
+            if (!"open".equalsIgnoreCase(mode) && !"closed".equalsIgnoreCase(mode)) {
+                throw new IllegalArgumentException(ERROR_ARGUMENT + "--mode=" + mode);
+            }
+            values.keySet().removeAll(List.of("host", "port", "mode", "clients", "rate", "duration", "warmup", "mix",
+                    "dataset", "cities", "radius", "batchSize", "importFile", "thinkMillis", "expectedIntervalMicros"));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException(ERROR_ARGUMENT + "--" + values.keySet().iterator().next());
+            }
+            if (config.clients <= 0 || config.rate <= 0 || config.durationSeconds <= 0 || config.warmupSeconds < 0
+                    || config.batchSize <= 0 || config.thinkMillis < 0) {
+                throw new IllegalArgumentException(ERROR_ARGUMENT + String.join(" ", args));
+            }
+            return config;
+        }
+    }
+
+    /**
+     * Amestecul de cereri și țintele lor (orașe și coordonate); construiește liniile fiecărei cereri.
+     */
+    static final class Workload {
+        private final Operation[] operations; // Tipurile de cereri cu pondere pozitivă
+        private final int[] cumulativeWeights; // Ponderile cumulate, în ordinea din operations
+        private final String[] cities; // Orașele cerute
+        private final double[] latitudes; // Locațiile în jurul cărora se generează coordonate (goale = uniform pe sferă)
+        private final double[] longitudes;
+        private final String radius; // Raza cererilor, ca text
+        private final int batchSize; // Cereri într-un lot
+        private final String importFile; // Fișierul importat
+
+        Workload(Config config) throws IOException {
+            Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+            for (String part : config.mix().split(",")) {
+                String[] entry = part.split(":");
+                if (entry.length != 2) {
+                    throw new IllegalArgumentException(ERROR_ARGUMENT + part);
+                }
+                int weight = Integer.parseInt(entry[1].trim());
+                if (weight < 0) {
+                    throw new IllegalArgumentException(ERROR_ARGUMENT + part);
+                }
+                weights.merge(Operation.parse(entry[0]), weight, Integer::sum);
+            }
+            weights.values().removeIf(weight -> weight == 0);
+            if (weights.isEmpty()) {
+                throw new IllegalArgumentException(ERROR_ARGUMENT + config.mix());
+            }
+            if (weights.containsKey(Operation.IMPORT) && config.importFile() == null) {
+                throw new IllegalArgumentException(ERROR_NO_IMPORT_FILE);
+            }
+            this.operations = weights.keySet().toArray(new Operation[0]);
+            this.cumulativeWeights = new int[operations.length];
+            int sum = 0;
+            for (int i = 0; i < operations.length; i++) {
+                sum += weights.get(operations[i]);
+                cumulativeWeights[i] = sum;
+            }
+
+            if (config.dataset() != null) {
+                List<GeoWeatherData> locations;
+                try (Reader reader = Files.newBufferedReader(Path.of(config.dataset()), StandardCharsets.UTF_8)) {
+                    locations = new WeatherJsonLoader().loadAll(reader);
+                }
+                cities = new String[locations.size()];
+                latitudes = new double[locations.size()];
+                longitudes = new double[locations.size()];
+                for (int i = 0; i < locations.size(); i++) {
+                    cities[i] = locations.get(i).getCity();
+                    latitudes[i] = locations.get(i).getLatitude();
+                    longitudes[i] = locations.get(i).getLongitude();
+                }
+            } else {
+                cities = config.cities().split(",");
+                latitudes = new double[0];
+                longitudes = new double[0];
+            }
+            if (cities.length == 0 || cities[0].isBlank()) {
+                throw new IllegalArgumentException(ERROR_NO_TARGETS);
+            }
+            this.radius = Double.toString(config.radiusKm());
+            this.batchSize = config.batchSize();
+            this.importFile = config.importFile();
+        }
+
+        // Alege tipul cererii după ponderi
+        Operation nextOperation(ThreadLocalRandom random) {
+            int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (value < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            return operations[operations.length - 1];
+        }
+
+        // Liniile cererii: comanda urmată de parametrii ei
+        String[] request(Operation operation, ThreadLocalRandom random) {
+            return switch (operation) {
+                case CITY -> new String[]{"GET_WEATHER_BY_CITY", cities[random.nextInt(cities.length)]};
+                case COORDINATES -> {
+                    double[] point = nextPoint(random);
+                    yield new String[]{"GET_WEATHER", Double.toString(point[0]), Double.toString(point[1]), radius};
+                }
+                case BATCH -> {
+                    String[] lines = new String[2 + batchSize];
+                    lines[0] = "GET_WEATHER_BATCH";
+                    lines[1] = Integer.toString(batchSize);
+                    for (int i = 0; i < batchSize; i++) {
+                        double[] point = nextPoint(random);
+                        lines[2 + i] = point[0] + "," + point[1] + "," + radius;
+                    }
+                    yield lines;
+                }
+                case IMPORT -> new String[]{"IMPORT", importFile};
+            };
+        }
+
+        // Un punct aleator: în jurul unei locații din dataset sau uniform pe sferă
+        private double[] nextPoint(ThreadLocalRandom random) {
+            if (latitudes.length == 0) {
+                return new double[]{Math.toDegrees(Math.asin(2 * random.nextDouble() - 1)), random.nextDouble(-180, 180)};
+            }
+            int i = random.nextInt(latitudes.length);
+            double latitude = Math.max(-90, Math.min(90, latitudes[i] + random.nextDouble(-COORDINATE_JITTER_DEGREES, COORDINATE_JITTER_DEGREES)));
+            double longitude = longitudes[i] + random.nextDouble(-COORDINATE_JITTER_DEGREES, COORDINATE_JITTER_DEGREES);
+            return new double[]{latitude, longitude};
+        }
+    }
+
+    /**
+     * Rezultatele unui tip de cerere; înregistrarea nu folosește blocări.
+     */
+    private static final class OperationResults {
+        private final LatencyHistogram corrected = new LatencyHistogram(); // De la momentul programat (mod open)
+        private final LatencyHistogram service = new LatencyHistogram(); // De la trimiterea efectivă
+        private final LongAdder errors = new LongAdder(); // Răspunsuri de eroare și erori de conexiune
+    }
+
+    private final Config config; // Configurația rulării
+    private final Workload workload; // Amestecul de cereri
+    private final Map<Operation, OperationResults> results = new EnumMap<>(Operation.class); // Rezultatele, pe tip de cerere
+    private final LongAdder connected = new LongAdder(); // Clienții conectați la pornire
+    private volatile long measureStartNanos; // Începutul măsurătorii (după încălzire)
+    private volatile long endNanos; // Sfârșitul rulării
+
+    WeatherLoadGenerator(Config config, Workload workload) {
+        this.config = config;
+        this.workload = workload;
+        for (Operation operation : Operation.values()) {
+            results.put(operation, new OperationResults());
+        }
+    }
+
+    /**
+     * Rulează încărcarea și afișează raportul.
+     */
+    void run() throws InterruptedException {
+        System.out.printf(START_FORMAT, config.openLoop() ? "open" : "closed", config.clients(),
+                config.openLoop() ? String.format(Locale.ROOT, RATE_FORMAT, config.rate())
+                        : String.format(Locale.ROOT, THINK_FORMAT, config.thinkMillis()),
+                config.warmupSeconds(), config.durationSeconds(), config.mix());
+        CountDownLatch ready = new CountDownLatch(config.clients()); // Toți clienții au încercat conectarea
+        CountDownLatch start = new CountDownLatch(1); // Începutul orarului comun
+        long connectStart = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.clients(); i++) {
+                int clientIndex = i;
+                executor.submit(() -> runClient(clientIndex, ready, start));
+            }
+            ready.await();
+            System.out.printf(CONNECTED_FORMAT, connected.sum(), config.clients(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart));
+            long startNanos = System.nanoTime();
+            measureStartNanos = startNanos + TimeUnit.SECONDS.toNanos(config.warmupSeconds());
+            endNanos = measureStartNanos + TimeUnit.SECONDS.toNanos(config.durationSeconds());
+            start.countDown();
+        } // close() așteaptă terminarea clienților
+        report(Math.min(System.nanoTime(), endNanos) - measureStartNanos);
+    }
+
+    // Bucla unui client virtual
+    private void runClient(int clientIndex, CountDownLatch ready, CountDownLatch start) {
+        Map<String, WeatherServerConnection> connections = new HashMap<>(); // Conexiunile clientului, după rol
+        ResponseCheck check = new ResponseCheck();
+        boolean reported = false; // Prima eroare a clientului a fost afișată
+        try {
+            try {
+                connection(connections, ROLE_USER); // Conexiunea principală este deschisă înainte de orar
+                connected.increment();
+            } catch (IOException e) {
+                reported = reportError(clientIndex, e, false);
+            } finally {
+                ready.countDown();
+            }
+            start.await();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long interval = (long) (config.clients() * 1e9 / config.rate()); // Intervalul dintre cererile clientului (mod open)
+            long intended = System.nanoTime() + (long) (clientIndex * 1e9 / config.rate()); // Clienții sunt decalați uniform
+            while (true) {
+                long now = System.nanoTime();
+                if (config.openLoop()) {
+                    if (intended - endNanos >= 0) {
+                        break;
+                    }
+                    if (intended - now > 0) {
+                        LockSupport.parkNanos(intended - now);
+                    }
+                } else if (now - endNanos >= 0) {
+                    break;
+                }
+                Operation operation = workload.nextOperation(random);
+                String[] request = workload.request(operation, random);
+                long sendNanos = System.nanoTime();
+                long scheduledNanos = config.openLoop() ? intended : sendNanos;
+                boolean failed;
+                try {
+                    check.reset();
+                    connection(connections, operation.role).request(check, request);
+                    failed = check.error;
+                } catch (IOException e) {
+                    connections.remove(operation.role); // Conexiunea este închisă; următoarea cerere se reconectează
+                    reported = reportError(clientIndex, e, reported);
+                    failed = true;
+                }
+                long doneNanos = System.nanoTime();
+                if (scheduledNanos - measureStartNanos >= 0) {
+                    OperationResults operationResults = results.get(operation);
+                    operationResults.corrected.record(doneNanos - scheduledNanos);
+                    operationResults.service.record(doneNanos - sendNanos);
+                    if (failed) {
+                        operationResults.errors.increment();
+                    }
+                }
+                if (failed && !connections.containsKey(operation.role)) {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS); // Nu se reconectează în buclă strânsă
+                }
+                if (config.openLoop()) {
+                    intended += interval;
+                } else if (config.thinkMillis() > 0) {
+                    Thread.sleep(config.thinkMillis());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (WeatherServerConnection connection : connections.values()) {
+                try {
+                    connection.close();
+                } catch (IOException ignored) {
+                    // Conexiunea este deja închisă
+                }
+            }
+        }
+    }
+
+    // Conexiunea clientului pentru rolul dat, deschisă la prima utilizare
+    private WeatherServerConnection connection(Map<String, WeatherServerConnection> connections, String role) throws IOException {
+        WeatherServerConnection connection = connections.get(role);
+        if (connection == null || !connection.isOpen()) {
+            connection = new WeatherServerConnection(config.host(), config.port(), role, CONNECT_TIMEOUT_MILLIS, READ_TIMEOUT_MILLIS);
+            connections.put(role, connection);
+        }
+        return connection;
+    }
+
+    // Afișează doar prima eroare a fiecărui client
+    private static boolean reportError(int clientIndex, IOException e, boolean reported) {
+        if (!reported) {
+            System.err.printf(CLIENT_ERROR_FORMAT, clientIndex, e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Verifică prima linie a unui răspuns, fără să păstreze restul liniilor.
+     */
+    private static final class ResponseCheck implements Consumer<String> {
+        private boolean first; // Următoarea linie este prima
+        private boolean error; // Răspunsul este o eroare
+
+        void reset() {
+            first = true;
+            error = false;
+        }
+
+        @Override
+        public void accept(String line) {
+            if (first) {
+                first = false;
+                for (String prefix : ERROR_PREFIXES) {
+                    if (line.startsWith(prefix)) {
+                        error = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    // Afișează debitul și percentilele
+    private void report(long measuredNanos) {
+        double seconds = Math.max(1e-9, measuredNanos / 1e9);
+        long expectedInterval = 0;
+        if (!config.openLoop()) {
+            expectedInterval = expectedInterval();
+            System.out.printf(Locale.ROOT, CORRECTION_FORMAT, expectedInterval / NANOS_PER_MILLI);
+        }
+        LatencyHistogram totalCorrected = new LatencyHistogram();
+        List<String> rows = new ArrayList<>();
+        long count = 0;
+        long errors = 0;
+        int reported = 0; // Tipurile de cereri care apar în raport
+        for (Map.Entry<Operation, OperationResults> entry : results.entrySet()) {
+            OperationResults operationResults = entry.getValue();
+            LatencyHistogram.Summary service = operationResults.service.summary();
+            if (service.count() == 0) {
+                continue;
+            }
+            LatencyHistogram corrected = config.openLoop() ? operationResults.corrected
+                    : operationResults.service.copyCorrectedForCoordinatedOmission(expectedInterval);
+            totalCorrected.add(corrected);
+            count += service.count();
+            errors += operationResults.errors.sum();
+            reported++;
+            rows.add(row(entry.getKey().label, LATENCY_CORRECTED, corrected.summary(), operationResults.errors.sum()));
+            rows.add(row(entry.getKey().label, LATENCY_SERVICE, service, operationResults.errors.sum()));
+        }
+        System.out.printf(Locale.ROOT, SUMMARY_FORMAT, count, errors, seconds, count / seconds,
+                config.openLoop() ? String.format(Locale.ROOT, TARGET_FORMAT, config.rate()) : "");
+        System.out.printf(HEADER_FORMAT, "operation", "latency", "count", "errors", "mean ms", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms");
+        rows.forEach(System.out::print);
+        if (reported > 1) {
+            System.out.print(row(TOTAL, LATENCY_CORRECTED, totalCorrected.summary(), errors));
+        }
+    }
+
+    // Intervalul așteptat dintre cererile unui client în modul closed: cel dat explicit, altfel pauza plus mediana servirii
+    private long expectedInterval() {
+        if (config.expectedIntervalMicros() > 0) {
+            return TimeUnit.MICROSECONDS.toNanos(config.expectedIntervalMicros());
+        }
+        LatencyHistogram all = new LatencyHistogram();
+        results.values().forEach(operationResults -> all.add(operationResults.service));
+        return TimeUnit.MILLISECONDS.toNanos(config.thinkMillis()) + all.summary().p50();
+    }
+
+    // Un rând al tabelului de rezultate
+    private static String row(String operation, String latency, LatencyHistogram.Summary summary, long errors) {
+        return String.format(Locale.ROOT, ROW_FORMAT, operation, latency, summary.count(), errors,
+                summary.mean() / NANOS_PER_MILLI, summary.p50() / NANOS_PER_MILLI, summary.p90() / NANOS_PER_MILLI,
+                summary.p99() / NANOS_PER_MILLI, summary.p999() / NANOS_PER_MILLI, summary.max() / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Punctul de intrare al generatorului de încărcare.
+     * @param args Argumentele --nume=valoare (vezi descrierea clasei).
+     */
+    public static void main(String[] args) {
+        Config config;
+        Workload workload;
+        try {
+            config = Config.parse(args);
+            workload = new Workload(config);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return;
+        } catch (IOException e) {
+            System.err.println(ERROR_DATASET + e.getMessage());
+            return;
+        }
+        try {
+            new WeatherLoadGenerator(config, workload).run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
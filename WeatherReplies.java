@@ -0,0 +1,117 @@
+package common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Răspunsurile gata codificate (UTF-8) pentru fiecare locație a unei versiuni, construite la prima cerere.
+ * Răspunsurile sunt păstrate în blocuri de CHUNK_SIZE rânduri, partajate între versiuni: versiunea următoare
+ * copiază doar tabela blocurilor și blocurile care conțin rânduri modificate (copy-on-write), deci costul unei
+ * actualizări depinde de rândurile schimbate, nu de numărul total de locații.
+ */
+final class WeatherReplies {
+    private static final String LINE_SEPARATOR = System.lineSeparator(); // Separatorul folosit de println
+    private static final String CLOSEST_LOCATION_FORMAT = "Closest location: %s, %s\n"; // Antetul răspunsului după coordonate
+    private static final int CHUNK_SHIFT = 12; // Rânduri pe bloc: 4096
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // Numărul de rânduri dintr-un bloc
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1; // Poziția rândului în bloc
+
+    private final WeatherColumns columns; // Locațiile versiunii
+    private final Chunk[] chunks; // Blocurile de răspunsuri, posibil partajate cu alte versiuni
+
+    WeatherReplies(WeatherColumns columns) {
+        this(columns, new Chunk[0]);
+    }
+
+    private WeatherReplies(WeatherColumns columns, Chunk[] shared) {
+        this.columns = columns;
+        this.chunks = Arrays.copyOf(shared, (columns.size() + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        for (int i = shared.length; i < chunks.length; i++) {
+            chunks[i] = new Chunk();
+        }
+    }
+
+    /**
+     * Răspunsurile pentru versiunea următoare. Blocurile sunt partajate: rândurile adăugate la final ocupă poziții
+     * pe care versiunea curentă nu le folosește, iar blocurile rândurilor modificate sunt copiate înainte de a fi golite.
+     * Versiunile sunt derivate doar din versiunea cea mai nouă, deci un bloc partajat nu primește rânduri din două părți.
+     * @param merged Locațiile versiunii următoare (aceleași rânduri, plus cele adăugate la final).
+     * @param changedRows Rândurile ale căror date s-au schimbat, în ordine crescătoare.
+     */
+    WeatherReplies extend(WeatherColumns merged, int[] changedRows) {
+        WeatherReplies replies = new WeatherReplies(merged, chunks);
+        int copied = -1; // Ultimul bloc copiat
+        for (int row : changedRows) {
+            int chunk = row >>> CHUNK_SHIFT;
+            if (chunk != copied) {
+                replies.chunks[chunk] = replies.chunks[chunk].copy();
+                copied = chunk;
+            }
+            replies.chunks[chunk].clear(row & CHUNK_MASK);
+        }
+        return replies;
+    }
+
+    /**
+     * Corpul răspunsului după oraș: prognozele, apoi LATITUDE și LONGITUDE, fiecare pe o linie.
+     * Antetul, care repetă numele cerut de client, nu face parte din corp.
+     */
+    byte[] cityBody(int row) {
+        Chunk chunk = chunks[row >>> CHUNK_SHIFT];
+        byte[] body = chunk.cityBodies.get(row & CHUNK_MASK);
+        if (body == null) {
+            GeoWeatherData location = columns.location(row);
+            StringBuilder response = new StringBuilder();
+            location.getWeatherList().forEach(forecast -> response.append(forecast).append(LINE_SEPARATOR));
+            response.append("LATITUDE:").append(location.getLatitude()).append(LINE_SEPARATOR);
+            response.append("LONGITUDE:").append(location.getLongitude()).append(LINE_SEPARATOR);
+            body = response.toString().getBytes(StandardCharsets.UTF_8);
+            chunk.cityBodies.set(row & CHUNK_MASK, body); // Două fire pot construi același răspuns; rezultatul este identic
+        }
+        return body;
+    }
+
+    /**
+     * Răspunsul după coordonate: locația cea mai apropiată, apoi prognozele, fiecare urmată de '\n'.
+     */
+    byte[] closest(int row) {
+        Chunk chunk = chunks[row >>> CHUNK_SHIFT];
+        byte[] reply = chunk.closestReplies.get(row & CHUNK_MASK);
+        if (reply == null) {
+            GeoWeatherData location = columns.location(row);
+            StringBuilder result = new StringBuilder();
+            result.append(String.format(CLOSEST_LOCATION_FORMAT, location.getCity(), location.getCountry()));
+            for (DailyForecast forecast : location.getWeatherList()) {
+                result.append(forecast.toString()).append("\n");
+            }
+            reply = result.toString().getBytes(StandardCharsets.UTF_8);
+            chunk.closestReplies.set(row & CHUNK_MASK, reply);
+        }
+        return reply;
+    }
+
+    /**
+     * Răspunsurile a CHUNK_SIZE rânduri consecutive.
+     */
+    private static final class Chunk {
+        private final AtomicReferenceArray<byte[]> cityBodies = new AtomicReferenceArray<>(CHUNK_SIZE); // Corpul răspunsului după oraș
+        private final AtomicReferenceArray<byte[]> closestReplies = new AtomicReferenceArray<>(CHUNK_SIZE); // Răspunsul după coordonate
+
+        // Copie a blocului, pentru o versiune în care unele rânduri s-au schimbat
+        Chunk copy() {
+            Chunk copy = new Chunk();
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                copy.cityBodies.set(i, cityBodies.get(i));
+                copy.closestReplies.set(i, closestReplies.get(i));
+            }
+            return copy;
+        }
+
+        // Renunță la răspunsurile unui rând ale cărui date s-au schimbat
+        void clear(int index) {
+            cityBodies.set(index, null);
+            closestReplies.set(index, null);
+        }
+    }
+}
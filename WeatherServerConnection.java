@@ -0,0 +1,159 @@
+package client;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Conexiune persistentă către PinkWeatherServer, refolosită pentru mai multe cereri.
+ * Rolul este trimis o singură dată, cu opțiunea PERSISTENT; fiecare răspuns se termină cu linia END_OF_RESPONSE.
+ * Mai multe cereri pot fi trimise una după alta înainte de citirea răspunsurilor (pipelining).
+ */
+public class WeatherServerConnection implements Closeable {
+    // Constante de protocol
+    private static final String OPTION_PERSISTENT = " PERSISTENT"; // Opțiunea adăugată după rol
+    private static final String COMMAND_QUIT = "QUIT"; // Închide conexiunea persistentă
+    private static final String END_OF_RESPONSE = "<END>"; // Marcajul de final al unui răspuns
+    private static final String ERROR_CONNECTION_CLOSED = "Server closed the connection."; // Conexiune închisă de server
+
+    private final Socket socket; // Socket-ul către server
+    private final PrintWriter writer; // Scrierea cererilor
+    private final BufferedReader reader; // Citirea răspunsurilor
+
+    /**
+     * Deschide conexiunea și trimite rolul.
+     * @param host Adresa serverului.
+     * @param port Portul serverului.
+     * @param role Rolul (USER sau ADMIN).
+     */
+    public WeatherServerConnection(String host, int port, String role) throws IOException {
+        this(host, port, role, 0, 0);
+    }
+
+    /**
+     * Deschide conexiunea cu limite de timp și trimite rolul.
+     * @param connectTimeoutMillis Timpul maxim pentru conectare (0 = fără limită).
+     * @param readTimeoutMillis Timpul maxim de așteptare a unei linii de răspuns (0 = fără limită);
+     *                          la depășire se aruncă SocketTimeoutException și conexiunea este închisă.
+     */
+    public WeatherServerConnection(String host, int port, String role, int connectTimeoutMillis, int readTimeoutMillis)
+            throws IOException {
+        this.socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+            socket.setSoTimeout(readTimeoutMillis);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        this.writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()));
+        this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        writer.println(role + OPTION_PERSISTENT); // Trimite rolul către server
+        writer.flush();
+    }
+
+    /**
+     * Trimite o cerere și returnează liniile răspunsului.
+     * @param requestLines Comanda urmată de parametrii ei.
+     * @return Liniile răspunsului, fără marcajul de final.
+     */
+    public List<String> request(String... requestLines) throws IOException {
+        List<String> response = new ArrayList<>();
+        request(response::add, requestLines);
+        return response;
+    }
+
+    /**
+     * Trimite o cerere și transmite fiecare linie a răspunsului pe măsură ce sosește.
+     * @param lineConsumer Primește liniile răspunsului, fără marcajul de final.
+     * @param requestLines Comanda urmată de parametrii ei.
+     */
+    public void request(Consumer<String> lineConsumer, String... requestLines) throws IOException {
+        send(requestLines);
+        readResponse(lineConsumer);
+    }
+
+    /**
+     * Trimite toate cererile fără să aștepte răspunsurile, apoi citește răspunsurile în ordine.
+     * @param requests Cererile, fiecare fiind comanda urmată de parametrii ei.
+     * @return Răspunsurile, în ordinea cererilor.
+     */
+    public List<List<String>> pipeline(List<String[]> requests) throws IOException {
+        for (String[] requestLines : requests) {
+            for (String line : requestLines) {
+                writer.println(line);
+            }
+        }
+        writer.flush();
+        List<List<String>> responses = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            List<String> response = new ArrayList<>();
+            readResponse(response::add);
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    // Trimite liniile unei cereri
+    private void send(String... requestLines) {
+        for (String line : requestLines) {
+            writer.println(line);
+        }
+        writer.flush();
+    }
+
+    // Citește liniile până la marcajul de final al răspunsului
+    private void readResponse(Consumer<String> lineConsumer) throws IOException {
+        String line;
+        try {
+            while ((line = reader.readLine()) != null) {
+                if (END_OF_RESPONSE.equals(line)) {
+                    return;
+                }
+                lineConsumer.accept(line);
+            }
+        } catch (IOException e) {
+            socket.close(); // Răspuns citit parțial (timeout sau abort); conexiunea nu mai poate fi refolosită
+            throw e;
+        }
+        socket.close(); // Conexiunea nu mai poate fi refolosită
+        throw new IOException(ERROR_CONNECTION_CLOSED);
+    }
+
+    // Verifică dacă conexiunea poate fi refolosită
+    public boolean isOpen() {
+        return !socket.isClosed() && !writer.checkError();
+    }
+
+    /**
+     * Închide socket-ul fără QUIT, din orice fir; o citire blocată în request() se termină cu o excepție.
+     */
+    public void abort() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Socket-ul este deja închis
+        }
+    }
+
+    /**
+     * Trimite QUIT și închide conexiunea.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.println(COMMAND_QUIT);
+            writer.flush();
+        } finally {
+            socket.close();
+        }
+    }
+}
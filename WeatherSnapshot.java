@@ -0,0 +1,247 @@
+package common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+/**
+ * Versiune imutabilă a bazei de date meteo: locațiile, stocate pe coloane (WeatherColumns), împreună cu indexurile
+ * construite peste ele. Indexurile orașelor (CityIndex) rețin doar numărul rândului; locațiile sunt returnate ca vederi.
+ * Cititorii folosesc o versiune fără blocare; fiecare import construiește o versiune nouă, publicată atomic.
+ * O actualizare a prognozelor (withDelta) refolosește indexurile și răspunsurile rândurilor neschimbate.
+ */
+final class WeatherSnapshot {
+    private final long version; // Numărul versiunii (crește la fiecare import)
+    private final WeatherColumns columns; // Locațiile, stocate pe coloane
+    private final List<GeoWeatherData> locations; // Lista locațiilor, ca vederi peste coloane (nemodificabilă)
+    private final GeoSpatialIndex spatialIndex; // Indexul spațial peste coordonatele locațiilor
+    private final CityIndex cityIndex; // Rândul primei locații pentru fiecare oraș (cheie normalizată)
+    private final CityIndex cityCountryIndex; // Rândul locației pentru fiecare pereche oraș + țară
+    private final WeatherReplies replies; // Răspunsurile codificate, construite la prima cerere
+
+    private WeatherSnapshot(long version, WeatherColumns columns, CityIndex cityIndex, CityIndex cityCountryIndex,
+                            WeatherReplies replies) {
+        this(version, columns, null, cityIndex, cityCountryIndex, replies);
+    }
+
+    // spatialIndex null înseamnă că indexul spațial se construiește din nou
+    private WeatherSnapshot(long version, WeatherColumns columns, GeoSpatialIndex spatialIndex, CityIndex cityIndex,
+                            CityIndex cityCountryIndex, WeatherReplies replies) {
+        this.version = version;
+        this.columns = columns;
+        this.locations = columns.locations();
+        this.spatialIndex = spatialIndex == null ? new GeoSpatialIndex(locations) : spatialIndex.withLocations(locations);
+        this.cityIndex = cityIndex;
+        this.cityCountryIndex = cityCountryIndex;
+        this.replies = replies;
+    }
+
+    // Creează prima versiune din locațiile încărcate
+    static WeatherSnapshot of(List<GeoWeatherData> locations) {
+        WeatherColumns columns = WeatherColumns.of(locations);
+        return new WeatherSnapshot(1, columns,
+                CityIndex.empty().withRows(0, columns.size(), cityKeys(columns)),
+                CityIndex.empty().withRows(0, columns.size(), cityCountryKeys(columns)),
+                new WeatherReplies(columns));
+    }
+
+    // Creează versiunea următoare, care conține și locațiile noi; versiunea curentă rămâne neschimbată
+    WeatherSnapshot withAdded(List<GeoWeatherData> newLocations) {
+        WeatherColumns merged = columns.append(newLocations);
+        return new WeatherSnapshot(version + 1, merged,
+                cityIndex.withRows(columns.size(), merged.size(), cityKeys(merged)),
+                cityCountryIndex.withRows(columns.size(), merged.size(), cityCountryKeys(merged)),
+                replies.extend(merged, new int[0])); // Locațiile existente nu se schimbă, deci răspunsurile lor rămân valabile
+    }
+
+    /**
+     * Diferențele dintre locațiile primite și această versiune.
+     * @param changedRows Rândurile existente ale căror coordonate sau prognoze diferă, în ordine crescătoare.
+     * @param changed Datele noi pentru fiecare rând din changedRows.
+     * @param added Locațiile ale căror orașe nu există încă.
+     * @param unchanged Numărul locațiilor primite identice cu cele existente (sau ignorate).
+     * @param coordinatesChanged Cel puțin un rând actualizat are alte coordonate.
+     */
+    record Delta(int[] changedRows, List<GeoWeatherData> changed, List<GeoWeatherData> added, int unchanged,
+                 boolean coordinatesChanged) {
+        boolean isEmpty() {
+            return changedRows.length == 0 && added.isEmpty();
+        }
+    }
+
+    /**
+     * Compară locațiile primite cu această versiune. O locație cu țară este asociată după oraș + țară, una fără țară
+     * după oraș; pentru un rând contează doar prima locație primită. Locațiile noi sunt cele al căror oraș nu există,
+     * la fel ca la import; o locație cu un oraș existent, dar cu altă țară, este ignorată.
+     */
+    Delta diff(List<GeoWeatherData> incoming) {
+        int[] sourceOfRow = new int[columns.size()]; // Indexul locației primite + 1 pentru fiecare rând (0 = niciuna)
+        List<GeoWeatherData> added = new ArrayList<>();
+        int unchanged = 0;
+        int changedCount = 0;
+        boolean coordinatesChanged = false;
+        for (int i = 0; i < incoming.size(); i++) {
+            GeoWeatherData location = incoming.get(i);
+            int row = rowOf(location);
+            if (row < 0) {
+                if (containsCity(location.getCity())) {
+                    unchanged++; // Același oraș, altă țară: ignorat, ca la import
+                } else {
+                    added.add(location);
+                }
+            } else if (sourceOfRow[row] != 0 || sameData(row, location)) {
+                unchanged++;
+            } else {
+                sourceOfRow[row] = i + 1;
+                changedCount++;
+                coordinatesChanged |= Double.compare(location.getLatitude(), columns.latitude(row)) != 0
+                        || Double.compare(location.getLongitude(), columns.longitude(row)) != 0;
+            }
+        }
+        int[] changedRows = new int[changedCount];
+        List<GeoWeatherData> changed = new ArrayList<>(changedCount);
+        for (int row = 0, next = 0; row < sourceOfRow.length; row++) {
+            if (sourceOfRow[row] != 0) {
+                changedRows[next++] = row;
+                changed.add(incoming.get(sourceOfRow[row] - 1));
+            }
+        }
+        return new Delta(changedRows, changed, added, unchanged, coordinatesChanged);
+    }
+
+    /**
+     * Creează versiunea următoare, cu rândurile modificate înlocuite și locațiile noi adăugate.
+     * Indexurile orașelor sunt refolosite (cheile rândurilor existente nu se schimbă), arborele spațial este
+     * refolosit dacă nu s-a schimbat nicio coordonată și nu s-a adăugat nicio locație, iar dintre răspunsurile
+     * construite sunt eliminate doar cele ale rândurilor modificate.
+     */
+    WeatherSnapshot withDelta(Delta delta) {
+        WeatherColumns updated = delta.changedRows().length == 0
+                ? columns : columns.withUpdatedRows(delta.changedRows(), delta.changed());
+        WeatherColumns merged = delta.added().isEmpty() ? updated : updated.append(delta.added());
+        WeatherReplies newReplies = replies.extend(merged, delta.changedRows());
+        boolean sameGeometry = !delta.coordinatesChanged() && delta.added().isEmpty();
+        return new WeatherSnapshot(version + 1, merged, sameGeometry ? spatialIndex : null,
+                cityIndex.withRows(columns.size(), merged.size(), cityKeys(merged)),
+                cityCountryIndex.withRows(columns.size(), merged.size(), cityCountryKeys(merged)),
+                newReplies);
+    }
+
+    // Rândul existent care corespunde unei locații primite, sau -1
+    private int rowOf(GeoWeatherData location) {
+        if (location.getCity() == null) {
+            return -1;
+        }
+        if (location.getCountry() != null) {
+            return cityCountryIndex.find(cityCountryKey(location.getCity(), location.getCountry()), cityCountryKeys(columns));
+        }
+        return cityIndex.find(normalizeCity(location.getCity()), cityKeys(columns));
+    }
+
+    // Verifică dacă rândul are deja coordonatele și prognozele locației (temperaturile sunt comparate ca float)
+    private boolean sameData(int row, GeoWeatherData location) {
+        int count = location.getForecastCount();
+        if (count != columns.forecastCount(row)
+                || Double.compare(location.getLatitude(), columns.latitude(row)) != 0
+                || Double.compare(location.getLongitude(), columns.longitude(row)) != 0) {
+            return false;
+        }
+        int start = columns.forecastStart(row);
+        for (int i = 0; i < count; i++) {
+            if (!sameDate(location, i, start + i)
+                    || !Objects.equals(location.getForecastCondition(i), columns.forecastCondition(start + i))
+                    || Float.compare((float) location.getForecastTemperature(i), columns.forecastTemperature(start + i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Compară datele ca zile ale epocii, sau ca text dacă una dintre ele nu este în format ISO canonic
+    private boolean sameDate(GeoWeatherData location, int i, int forecast) {
+        long day = location.getForecastEpochDay(i);
+        int storedDay = columns.forecastDay(forecast);
+        if (day != GeoWeatherData.NO_EPOCH_DAY && storedDay != WeatherColumns.LITERAL_DATE) {
+            return day == storedDay;
+        }
+        return Objects.equals(location.getForecastDate(i), columns.forecastDate(forecast));
+    }
+
+    long version() {
+        return version;
+    }
+
+    List<GeoWeatherData> locations() {
+        return locations;
+    }
+
+    GeoSpatialIndex spatialIndex() {
+        return spatialIndex;
+    }
+
+    // Verifică dacă există deja o locație cu numele orașului dat
+    boolean containsCity(String city) {
+        return city != null && cityIndex.find(normalizeCity(city), cityKeys(columns)) >= 0;
+    }
+
+    // Caută prima locație cu numele orașului dat
+    Optional<GeoWeatherData> findByCity(String city) {
+        if (city == null) {
+            return Optional.empty();
+        }
+        return location(cityIndex.find(normalizeCity(city), cityKeys(columns)));
+    }
+
+    // Caută locația după oraș și țară
+    Optional<GeoWeatherData> findByCity(String city, String country) {
+        if (city == null || country == null) {
+            return Optional.empty();
+        }
+        return location(cityCountryIndex.find(cityCountryKey(city, country), cityCountryKeys(columns)));
+    }
+
+    // Corpul codificat al răspunsului după oraș, sau null dacă orașul nu există
+    byte[] cityReplyBody(String city) {
+        if (city == null) {
+            return null;
+        }
+        int row = cityIndex.find(normalizeCity(city), cityKeys(columns));
+        return row < 0 ? null : replies.cityBody(row);
+    }
+
+    // Răspunsul codificat după coordonate pentru o locație din această versiune
+    byte[] closestReply(GeoWeatherData location) {
+        if (!location.belongsTo(columns)) {
+            throw new IllegalArgumentException("Location does not belong to this snapshot");
+        }
+        return replies.closest(location.row());
+    }
+
+    private Optional<GeoWeatherData> location(int row) {
+        return row < 0 ? Optional.empty() : Optional.of(columns.location(row));
+    }
+
+    // Cheia de căutare după oraș a fiecărui rând
+    private static IntFunction<String> cityKeys(WeatherColumns columns) {
+        return row -> columns.city(row) == null ? null : normalizeCity(columns.city(row));
+    }
+
+    // Cheia de căutare după oraș și țară a fiecărui rând
+    private static IntFunction<String> cityCountryKeys(WeatherColumns columns) {
+        return row -> columns.city(row) == null || columns.country(row) == null
+                ? null : cityCountryKey(columns.city(row), columns.country(row));
+    }
+
+    // Normalizează numele orașului pentru căutări care nu țin cont de majuscule
+    static String normalizeCity(String city) {
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Cheia compusă oraș + țară
+    static String cityCountryKey(String city, String country) {
+        return normalizeCity(city) + '\u0000' + normalizeCity(country);
+    }
+}
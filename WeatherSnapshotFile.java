@@ -0,0 +1,386 @@
+package common;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Formatul binar al instantaneului bazei de date, citit la pornire prin FileChannel.map în locul fișierului JSON.
+ * Coloanele numerice sunt scrise în secțiuni de lățime fixă, aliniate la 8 octeți, exact în forma din WeatherColumns,
+ * iar la citire WeatherColumns le folosește direct din maparea fișierului: prognozele nu sunt copiate și nici
+ * interpretate la pornire, iar procesele care mapează același fișier partajează paginile din cache-ul sistemului.
+ * Doar tabela de șiruri (orașe, țări, condiții, datele necanonice) este decodificată, o singură dată pentru fiecare șir.
+ * Structură (big-endian):
+ * antet [int MAGIC, int FORMAT_VERSION, long dimensiunea JSON-ului sursă, long data modificării JSON-ului sursă,
+ * int număr locații, int număr prognoze, int număr șiruri, int octeți șiruri, int număr condiții, int număr date necanonice,
+ * int suma de control CRC32C a întregului fișier, calculată cu acest câmp egal cu 0];
+ * apoi secțiunile: deplasamentele șirurilor (int × (număr șiruri + 1)), octeții UTF-8 ai șirurilor, latitudini (double),
+ * longitudini (double), orașe (int, index de șir), țări (int), începutul prognozelor fiecărei locații (int × (număr locații + 1)),
+ * condițiile (int, index de șir), datele necanonice (int prognoză, apoi int index de șir), zilele epocii prognozelor (int,
+ * LITERAL_DATE pentru datele necanonice), codurile condițiilor (short, -1 pentru lipsă) și temperaturile (float).
+ * Un index de șir -1 înseamnă null. Instantaneul este folosit doar dacă dimensiunea și data fișierului JSON sursă
+ * coincid cu cele din antet, suma de control este corectă, iar deplasamentele prognozelor și codurile condițiilor
+ * sunt în limite, deoarece coloanele mapate sunt citite ulterior fără alte verificări.
+ * Fiecare scriere folosește propriul fișier temporar, deci scrieri concurente (din mai multe procese) nu se amestecă.
+ */
+final class WeatherSnapshotFile {
+    private static final int MAGIC = 0x50575331; // "PWS1"
+    private static final int FORMAT_VERSION = 3; // Versiunea formatului (2 nu avea sumă de control)
+    private static final int HEADER_SIZE = 52; // Dimensiunea antetului în octeți
+    private static final int CHECKSUM_OFFSET = 48; // Poziția sumei de control în antet
+    private static final int SECTION_ALIGNMENT = 8; // Alinierea începutului fiecărei secțiuni
+    private static final int NULL_STRING = -1; // Indexul folosit pentru șirurile lipsă
+    private static final String TEMP_SUFFIX = ".tmp"; // Sufixul fișierului scris înainte de înlocuire
+
+    private WeatherSnapshotFile() {
+    }
+
+    /**
+     * Citește instantaneul, dacă există și corespunde fișierului JSON sursă.
+     * Locațiile returnate sunt vederi peste maparea fișierului, care rămâne validă și după închiderea canalului.
+     * @param snapshotFile Fișierul instantaneului.
+     * @param sourceFile Fișierul JSON din care a fost construit.
+     * @return Locațiile, sau Optional.empty() dacă instantaneul lipsește, este vechi sau invalid.
+     */
+    static Optional<List<GeoWeatherData>> read(Path snapshotFile, Path sourceFile) throws IOException {
+        if (!Files.isRegularFile(snapshotFile) || !Files.isRegularFile(sourceFile)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION
+                    || buffer.getLong(8) != Files.size(sourceFile)
+                    || buffer.getLong(16) != Files.getLastModifiedTime(sourceFile).toMillis()) {
+                return Optional.empty();
+            }
+            int locationCount = buffer.getInt(24);
+            int forecastCount = buffer.getInt(28);
+            int stringCount = buffer.getInt(32);
+            int stringBytes = buffer.getInt(36);
+            int conditionCount = buffer.getInt(40);
+            int literalCount = buffer.getInt(44);
+            if (locationCount < 0 || forecastCount < 0 || stringCount < 0 || stringBytes < 0
+                    || conditionCount < 0 || literalCount < 0) {
+                return Optional.empty();
+            }
+            Layout layout = Layout.of(locationCount, forecastCount, stringCount, stringBytes, conditionCount, literalCount);
+            if (layout.end() != channel.size() || checksum(buffer) != buffer.getInt(CHECKSUM_OFFSET)) {
+                return Optional.empty(); // Fișier trunchiat sau corupt
+            }
+
+            String[] strings = readStrings(buffer, stringCount, layout.stringBytes(), stringBytes);
+            String[] cities = readStringColumn(buffer, strings, layout.cities(), locationCount);
+            String[] countries = readStringColumn(buffer, strings, layout.countries(), locationCount);
+            String[] conditionTable = readStringColumn(buffer, strings, layout.conditions(), conditionCount);
+            Map<Integer, String> literalDates = new HashMap<>();
+            for (int i = 0; i < literalCount; i++) {
+                literalDates.put(buffer.getInt((int) layout.literalForecasts() + 4 * i),
+                        string(strings, buffer.getInt((int) layout.literalStrings() + 4 * i)));
+            }
+
+            IntBuffer forecastOffsets = section(buffer, layout.forecastOffsets(), 4 * (locationCount + 1)).asIntBuffer();
+            ShortBuffer forecastConditions = section(buffer, layout.forecastConditions(), 2 * forecastCount).asShortBuffer();
+            if (!offsetsValid(forecastOffsets, locationCount, forecastCount)
+                    || !conditionsValid(forecastConditions, conditionCount)) {
+                return Optional.empty();
+            }
+            WeatherColumns columns = new WeatherColumns(locationCount,
+                    section(buffer, layout.latitudes(), 8 * locationCount).asDoubleBuffer(),
+                    section(buffer, layout.longitudes(), 8 * locationCount).asDoubleBuffer(),
+                    cities, countries, forecastOffsets,
+                    section(buffer, layout.forecastDays(), 4 * forecastCount).asIntBuffer(),
+                    forecastConditions,
+                    section(buffer, layout.forecastTemperatures(), 4 * forecastCount).asFloatBuffer(),
+                    conditionTable, literalDates.isEmpty() ? Map.of() : literalDates);
+            return Optional.of(columns.locations());
+        } catch (IndexOutOfBoundsException e) {
+            return Optional.empty(); // Indecși în afara fișierului
+        }
+    }
+
+    /**
+     * Scrie instantaneul într-un fișier temporar și îl mută apoi peste cel vechi, ca un cititor să nu vadă un fișier parțial.
+     * Un fișier deja mapat nu este modificat niciodată pe loc, deci vederile existente rămân valide. Pe Windows un fișier
+     * încă mapat (de acest proces sau de altul) nu poate fi înlocuit; atunci fișierul temporar este șters și metoda
+     * returnează false, iar apelantul poate reîncerca după ce vechea mapare este eliberată.
+     * @param snapshotFile Fișierul instantaneului.
+     * @param sourceFile Fișierul JSON sursă, a cărui dimensiune și dată sunt înregistrate în antet.
+     * @param locations Locațiile de salvat.
+     * @return true dacă instantaneul a fost înlocuit, false dacă fișierul existent este încă folosit.
+     */
+    static boolean write(Path snapshotFile, Path sourceFile, List<GeoWeatherData> locations) throws IOException {
+        WeatherColumns columns = WeatherColumns.of(locations); // Locațiile versiunii curente sunt deja pe coloane
+        int locationCount = columns.size();
+        int forecastCount = columns.forecastTotal();
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        for (int row = 0; row < locationCount; row++) {
+            intern(stringIndex, strings, columns.city(row));
+            intern(stringIndex, strings, columns.country(row));
+        }
+        for (int code = 0; code < columns.conditionCount(); code++) {
+            intern(stringIndex, strings, columns.conditionName(code));
+        }
+        List<Integer> literalForecasts = new ArrayList<>();
+        for (int forecast = 0; forecast < forecastCount; forecast++) {
+            if (columns.forecastDay(forecast) == WeatherColumns.LITERAL_DATE && columns.forecastDate(forecast) != null) {
+                intern(stringIndex, strings, columns.forecastDate(forecast));
+                literalForecasts.add(forecast);
+            }
+        }
+        int stringBytes = 0;
+        for (byte[] bytes : strings) {
+            stringBytes += bytes.length;
+        }
+        Layout layout = Layout.of(locationCount, forecastCount, strings.size(), stringBytes, columns.conditionCount(),
+                literalForecasts.size());
+        if (layout.end() > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot too large: " + layout.end() + " bytes");
+        }
+
+        Path tempFile = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(),
+                snapshotFile.getFileName() + ".", TEMP_SUFFIX);
+        try {
+            writeFile(tempFile, sourceFile, columns, layout, stringIndex, strings, stringBytes, literalForecasts);
+            try {
+                replace(tempFile, snapshotFile);
+                return true;
+            } catch (FileSystemException e) {
+                return false; // Fișierul existent este încă mapat (Windows)
+            }
+        } finally {
+            Files.deleteIfExists(tempFile); // După mutare nu mai există
+        }
+    }
+
+    // Scrie conținutul instantaneului; suma de control este completată în antet după ce au fost scriși toți octeții
+    private static void writeFile(Path file, Path sourceFile, WeatherColumns columns, Layout layout,
+                                  Map<String, Integer> stringIndex, List<byte[]> strings, int stringBytes,
+                                  List<Integer> literalForecasts) throws IOException {
+        int locationCount = columns.size();
+        int forecastCount = columns.forecastTotal();
+        CRC32C checksum = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     new CheckedOutputStream(Channels.newOutputStream(channel), checksum), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(Files.size(sourceFile));
+            out.writeLong(Files.getLastModifiedTime(sourceFile).toMillis());
+            out.writeInt(locationCount);
+            out.writeInt(forecastCount);
+            out.writeInt(strings.size());
+            out.writeInt(stringBytes);
+            out.writeInt(columns.conditionCount());
+            out.writeInt(literalForecasts.size());
+            out.writeInt(0); // Suma de control, completată la final
+
+            int offset = 0;
+            for (byte[] bytes : strings) {
+                out.writeInt(offset);
+                offset += bytes.length;
+            }
+            out.writeInt(offset);
+            pad(out, layout.stringBytes());
+            for (byte[] bytes : strings) {
+                out.write(bytes);
+            }
+
+            pad(out, layout.latitudes());
+            for (int row = 0; row < locationCount; row++) {
+                out.writeDouble(columns.latitude(row));
+            }
+            pad(out, layout.longitudes());
+            for (int row = 0; row < locationCount; row++) {
+                out.writeDouble(columns.longitude(row));
+            }
+            pad(out, layout.cities());
+            for (int row = 0; row < locationCount; row++) {
+                out.writeInt(indexOf(stringIndex, columns.city(row)));
+            }
+            pad(out, layout.countries());
+            for (int row = 0; row < locationCount; row++) {
+                out.writeInt(indexOf(stringIndex, columns.country(row)));
+            }
+            pad(out, layout.forecastOffsets());
+            for (int row = 0; row < locationCount; row++) {
+                out.writeInt(columns.forecastStart(row));
+            }
+            out.writeInt(forecastCount);
+            pad(out, layout.conditions());
+            for (int code = 0; code < columns.conditionCount(); code++) {
+                out.writeInt(indexOf(stringIndex, columns.conditionName(code)));
+            }
+            pad(out, layout.literalForecasts());
+            for (int forecast : literalForecasts) {
+                out.writeInt(forecast);
+            }
+            pad(out, layout.literalStrings());
+            for (int forecast : literalForecasts) {
+                out.writeInt(indexOf(stringIndex, columns.forecastDate(forecast)));
+            }
+            pad(out, layout.forecastDays());
+            for (int forecast = 0; forecast < forecastCount; forecast++) {
+                out.writeInt(columns.forecastDay(forecast));
+            }
+            pad(out, layout.forecastConditions());
+            for (int forecast = 0; forecast < forecastCount; forecast++) {
+                out.writeShort(columns.forecastConditionCode(forecast));
+            }
+            pad(out, layout.forecastTemperatures());
+            for (int forecast = 0; forecast < forecastCount; forecast++) {
+                out.writeFloat(columns.forecastTemperature(forecast));
+            }
+            pad(out, layout.end());
+            out.flush();
+            channel.write(ByteBuffer.allocate(4).putInt(0, (int) checksum.getValue()), CHECKSUM_OFFSET);
+        }
+    }
+
+    // Mută fișierul scris peste instantaneu, atomic dacă sistemul de fișiere permite
+    private static void replace(Path tempFile, Path snapshotFile) throws IOException {
+        try {
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Calculează suma de control a fișierului mapat, cu câmpul sumei considerat 0
+    private static int checksum(MappedByteBuffer buffer) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.slice(0, CHECKSUM_OFFSET));
+        checksum.update(new byte[4]);
+        checksum.update(buffer.slice(CHECKSUM_OFFSET + 4, buffer.capacity() - CHECKSUM_OFFSET - 4));
+        return (int) checksum.getValue();
+    }
+
+    // Deplasamentele prognozelor încep de la 0, sunt crescătoare și se termină la numărul de prognoze
+    private static boolean offsetsValid(IntBuffer offsets, int locationCount, int forecastCount) {
+        if (offsets.get(0) != 0 || offsets.get(locationCount) != forecastCount) {
+            return false;
+        }
+        for (int row = 0; row < locationCount; row++) {
+            if (offsets.get(row) > offsets.get(row + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Fiecare cod de condiție este -1 (lipsă) sau un index din tabela condițiilor
+    private static boolean conditionsValid(ShortBuffer codes, int conditionCount) {
+        for (int forecast = 0; forecast < codes.limit(); forecast++) {
+            int code = codes.get(forecast);
+            if (code < -1 || code >= conditionCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pozițiile secțiunilor fișierului, calculate din numărul de elemente din antet, la fel la scriere și la citire.
+     * Primele deplasamente ale tabelei de șiruri încep imediat după antet.
+     */
+    private record Layout(long stringBytes, long latitudes, long longitudes, long cities, long countries,
+                          long forecastOffsets, long conditions, long literalForecasts, long literalStrings,
+                          long forecastDays, long forecastConditions, long forecastTemperatures, long end) {
+        static Layout of(int locationCount, int forecastCount, int stringCount, int stringBytes, int conditionCount,
+                         int literalCount) {
+            long stringBytesStart = align(HEADER_SIZE + 4L * (stringCount + 1));
+            long latitudes = align(stringBytesStart + stringBytes);
+            long longitudes = latitudes + 8L * locationCount;
+            long cities = longitudes + 8L * locationCount;
+            long countries = cities + 4L * locationCount;
+            long forecastOffsets = align(countries + 4L * locationCount);
+            long conditions = align(forecastOffsets + 4L * (locationCount + 1));
+            long literalForecasts = align(conditions + 4L * conditionCount);
+            long literalStrings = align(literalForecasts + 4L * literalCount);
+            long forecastDays = align(literalStrings + 4L * literalCount);
+            long forecastConditions = align(forecastDays + 4L * forecastCount);
+            long forecastTemperatures = align(forecastConditions + 2L * forecastCount);
+            long end = align(forecastTemperatures + 4L * forecastCount);
+            return new Layout(stringBytesStart, latitudes, longitudes, cities, countries, forecastOffsets, conditions,
+                    literalForecasts, literalStrings, forecastDays, forecastConditions, forecastTemperatures, end);
+        }
+
+        private static long align(long position) {
+            return (position + SECTION_ALIGNMENT - 1) / SECTION_ALIGNMENT * SECTION_ALIGNMENT;
+        }
+    }
+
+    // Vederea asupra unei secțiuni din fișierul mapat (fără copiere)
+    private static ByteBuffer section(MappedByteBuffer buffer, long start, int length) {
+        return buffer.slice((int) start, length);
+    }
+
+    // Completează cu zerouri până la începutul secțiunii următoare
+    private static void pad(DataOutputStream out, long position) throws IOException {
+        while (out.size() < position) {
+            out.writeByte(0);
+        }
+    }
+
+    // Decodifică toate șirurile dintr-o singură copie a tabelei
+    private static String[] readStrings(ByteBuffer buffer, int count, long start, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get((int) start, bytes);
+        String[] strings = new String[count];
+        int offsetsStart = HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            int from = buffer.getInt(offsetsStart + 4 * i);
+            int to = buffer.getInt(offsetsStart + 4 * (i + 1));
+            strings[i] = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    // Citește o secțiune de indecși de șiruri (orașe, țări sau condiții)
+    private static String[] readStringColumn(ByteBuffer buffer, String[] strings, long start, int count) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = string(strings, buffer.getInt((int) start + 4 * i));
+        }
+        return values;
+    }
+
+    private static String string(String[] strings, int index) {
+        return index == NULL_STRING ? null : strings[index];
+    }
+
+    // Adaugă un șir în tabelă, dacă nu există deja
+    private static void intern(Map<String, Integer> stringIndex, List<byte[]> strings, String value) {
+        if (value != null && !stringIndex.containsKey(value)) {
+            stringIndex.put(value, strings.size());
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static int indexOf(Map<String, Integer> stringIndex, String value) {
+        return value == null ? NULL_STRING : stringIndex.get(value);
+    }
+}
@@ -0,0 +1,187 @@
+package common;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Urmărește fișierul bazei de date și, opțional, un director de actualizări, și aplică modificările incremental
+ * prin WeatherDataManager.applyUpdates. Un fișier este procesat doar după ce nu a mai fost modificat timp de
+ * QUIET_MILLIS, ca să nu fie citit pe jumătate scris. Fișierele *.json din directorul de actualizări sunt mutate
+ * după procesare în subdirectorul processed (sau failed, dacă nu conțin nicio locație validă).
+ */
+final class WeatherUpdateWatcher {
+    private static final long QUIET_MILLIS = 500; // Cât timp trebuie să rămână neschimbat un fișier înainte de procesare
+    private static final String JSON_SUFFIX = ".json"; // Fișierele procesate din directorul de actualizări
+    private static final String PROCESSED_DIRECTORY = "processed"; // Fișierele aplicate
+    private static final String FAILED_DIRECTORY = "failed"; // Fișierele care nu au putut fi aplicate
+    private static final String WATCHER_THREAD_NAME = "weather-update-watcher"; // Numele firului
+    private static final String WATCHING_MESSAGE = "Watching %s for updates.%n"; // Mesaj la pornire
+    private static final String UPDATE_ERROR_MESSAGE = "Error applying update from %s: %s%n"; // Mesaj de eroare
+    private static final String SAME_DIRECTORY_MESSAGE =
+            "Update directory %s must not be the database directory: every *.json file there would be applied and moved"; // Configurație respinsă
+
+    private final WeatherDataManager weatherDataManager; // Managerul care aplică actualizările
+    private final Path sourceFile; // Fișierul bazei de date (cale absolută)
+    private final Path dropDirectory; // Directorul de actualizări (null = neutilizat)
+    private final WatchService watchService; // Notificările sistemului de fișiere
+    private final Map<Path, Long> pending = new LinkedHashMap<>(); // Fișierele modificate și momentul ultimei modificări
+    private long sourceSize; // Dimensiunea fișierului bazei de date la ultima aplicare
+    private FileTime sourceModified; // Data fișierului bazei de date la ultima aplicare
+
+    /**
+     * Constructorul clasei WeatherUpdateWatcher; înregistrează directoarele urmărite.
+     * @throws IllegalArgumentException Dacă directorul de actualizări este chiar directorul fișierului bazei de date.
+     */
+    WeatherUpdateWatcher(WeatherDataManager weatherDataManager, Path sourceFile, Path dropDirectory) throws IOException {
+        this.weatherDataManager = weatherDataManager;
+        this.sourceFile = sourceFile.toAbsolutePath().normalize();
+        this.dropDirectory = dropDirectory == null ? null : dropDirectory.toAbsolutePath().normalize();
+        Path sourceDirectory = this.sourceFile.getParent();
+        if (this.dropDirectory != null && (this.dropDirectory.equals(sourceDirectory)
+                || (Files.isDirectory(this.dropDirectory) && Files.isSameFile(this.dropDirectory, sourceDirectory)))) {
+            throw new IllegalArgumentException(String.format(SAME_DIRECTORY_MESSAGE, this.dropDirectory));
+        }
+        this.watchService = this.sourceFile.getFileSystem().newWatchService();
+        rememberSourceState();
+        sourceDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        System.out.printf(WATCHING_MESSAGE, this.sourceFile);
+        if (this.dropDirectory != null) {
+            Files.createDirectories(this.dropDirectory);
+            this.dropDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            System.out.printf(WATCHING_MESSAGE, this.dropDirectory);
+        }
+    }
+
+    // Pornește firul de urmărire; fișierele aflate deja în directorul de actualizări sunt procesate primele
+    void start() {
+        Thread thread = new Thread(this::run, WATCHER_THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        scanDropDirectory();
+        try {
+            while (true) {
+                WatchKey key = pending.isEmpty() ? watchService.take() : watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            pending.put(sourceFile, System.currentTimeMillis()); // Evenimente pierdute: se verifică totul
+                            scanDropDirectory();
+                        } else {
+                            Path file = directory.resolve((Path) event.context());
+                            if (isWatched(file)) {
+                                pending.put(file, System.currentTimeMillis());
+                            }
+                        }
+                    }
+                    key.reset();
+                }
+                processQuietFiles();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Urmărirea se oprește
+        }
+    }
+
+    // Procesează fișierele care nu s-au mai modificat de QUIET_MILLIS
+    private void processQuietFiles() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> entry = iterator.next();
+            if (now - entry.getValue() < QUIET_MILLIS) {
+                continue;
+            }
+            iterator.remove();
+            try {
+                if (entry.getKey().equals(sourceFile)) {
+                    applySourceFile();
+                } else {
+                    applyDropFile(entry.getKey());
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.printf(UPDATE_ERROR_MESSAGE, entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    // Aplică fișierul bazei de date, dacă s-a schimbat de la ultima aplicare
+    private void applySourceFile() throws IOException {
+        if (!Files.isRegularFile(sourceFile)
+                || (Files.size(sourceFile) == sourceSize && Files.getLastModifiedTime(sourceFile).equals(sourceModified))) {
+            return;
+        }
+        rememberSourceState();
+        weatherDataManager.applyUpdates(sourceFile.toString());
+    }
+
+    // Aplică un fișier din directorul de actualizări și îl mută în processed sau failed
+    // Și o excepție în timpul aplicării mută fișierul în failed, ca să nu fie reîncercat la fiecare scanare
+    private void applyDropFile(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return; // Fișier mutat sau șters între timp
+        }
+        boolean applied = false;
+        try {
+            applied = weatherDataManager.applyUpdates(file.toString()).isPresent();
+        } finally {
+            moveDropFile(file, applied);
+        }
+    }
+
+    // Mută un fișier de actualizare în processed sau failed
+    private void moveDropFile(Path file, boolean applied) throws IOException {
+        Path target = dropDirectory.resolve(applied ? PROCESSED_DIRECTORY : FAILED_DIRECTORY);
+        Files.createDirectories(target);
+        Files.move(file, target.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Adaugă în așteptare fișierele *.json existente în directorul de actualizări
+    private void scanDropDirectory() {
+        if (dropDirectory == null) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dropDirectory, "*" + JSON_SUFFIX)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) {
+                    pending.putIfAbsent(file, 0L);
+                }
+            }
+        } catch (IOException e) {
+            System.err.printf(UPDATE_ERROR_MESSAGE, dropDirectory, e.getMessage());
+        }
+    }
+
+    // Verifică dacă un fișier modificat trebuie procesat
+    private boolean isWatched(Path file) {
+        if (file.equals(sourceFile)) {
+            return true;
+        }
+        return dropDirectory != null && dropDirectory.equals(file.getParent())
+                && file.getFileName().toString().endsWith(JSON_SUFFIX);
+    }
+
+    // Reține dimensiunea și data fișierului bazei de date
+    private void rememberSourceState() throws IOException {
+        if (Files.isRegularFile(sourceFile)) {
+            sourceSize = Files.size(sourceFile);
+            sourceModified = Files.getLastModifiedTime(sourceFile);
+        }
+    }
+}
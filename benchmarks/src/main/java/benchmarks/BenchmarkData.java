@@ -0,0 +1,69 @@
+package benchmarks;
+
+import common.WeatherDataManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Date comune benchmark-urilor: managerul încărcat dintr-un set sintetic și puncte de căutare reproductibile.
+ */
+public final class BenchmarkData {
+    public static final int QUERY_COUNT = 1 << 12; // Numărul de cereri pregătite (putere a lui 2, pentru mască)
+    public static final int QUERY_MASK = QUERY_COUNT - 1; // Masca pentru parcurgerea circulară a cererilor
+    private static final long QUERY_SEED = 7; // Seed-ul punctelor de căutare (diferit de cel al locațiilor)
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Încarcă un set sintetic de locații prin WeatherDataManager, fără instantaneu binar.
+     * @param count Numărul de locații.
+     * @return Managerul, cu indexurile construite.
+     */
+    public static WeatherDataManager manager(int count) {
+        return new WeatherDataManager(dataset(count).toString(), null);
+    }
+
+    /**
+     * Scrie setul sintetic implicit (DEFAULT_FORECAST_DAYS zile, DEFAULT_SEED) într-un fișier temporar.
+     * @param count Numărul de locații.
+     * @return Fișierul JSON.
+     */
+    public static Path dataset(int count) {
+        try {
+            return SyntheticDataset.writeTemporary(count, SyntheticDataset.DEFAULT_FORECAST_DAYS, SyntheticDataset.DEFAULT_SEED);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Puncte de căutare distribuite uniform pe sferă.
+     * @return Latitudinile (indexul 0) și longitudinile (indexul 1), câte QUERY_COUNT.
+     */
+    public static double[][] queryPoints() {
+        SplittableRandom random = new SplittableRandom(QUERY_SEED);
+        double[][] points = new double[2][QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            points[0][i] = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1));
+            points[1][i] = random.nextDouble(-180, 180);
+        }
+        return points;
+    }
+
+    /**
+     * Numele unor orașe existente, alese aleator dintre primele count.
+     * @return QUERY_COUNT nume.
+     */
+    public static String[] cityNames(int count) {
+        SplittableRandom random = new SplittableRandom(QUERY_SEED);
+        String[] names = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            names[i] = SyntheticDataset.cityName(random.nextInt(count));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import common.GeoWeatherData;
+import common.WeatherDataManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Căutarea după numele orașului (findLocationByCity) și răspunsul gata codificat al comenzii GET_WEATHER_BY_CITY.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class CityLookupBenchmark {
+    private static final String MISSING_PREFIX = "Nowhere-"; // Prefixul orașelor inexistente
+
+    @Param({"1000", "100000", "1000000"})
+    public int locations; // Numărul de locații
+
+    private WeatherDataManager manager; // Managerul încărcat din setul sintetic
+    private String[] existing; // Orașe existente
+    private String[] missing; // Orașe inexistente
+
+    @Setup
+    public void setUp() {
+        manager = BenchmarkData.manager(locations);
+        existing = BenchmarkData.cityNames(locations);
+        missing = new String[existing.length];
+        for (int i = 0; i < missing.length; i++) {
+            missing[i] = MISSING_PREFIX + i;
+        }
+    }
+
+    @Benchmark
+    public Optional<GeoWeatherData> findLocationByCity(QueryCursor cursor) {
+        return manager.findLocationByCity(existing[cursor.next()]);
+    }
+
+    @Benchmark
+    public Optional<GeoWeatherData> findMissingCity(QueryCursor cursor) {
+        return manager.findLocationByCity(missing[cursor.next()]);
+    }
+
+    // Corpul răspunsului este construit la prima cerere și apoi refolosit
+    @Benchmark
+    public byte[] encodedCityReply(QueryCursor cursor) {
+        return manager.getEncodedCityReply(existing[cursor.next()]);
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import common.GeoWeatherData;
+import common.WeatherDataManager;
+import common.WeatherJsonLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Încărcarea bazei de date dintr-un fișier JSON sintetic: doar interpretarea JSON (WeatherJsonLoader)
+ * și încărcarea completă prin WeatherDataManager (loadDatabase, stocarea pe coloane și construirea indexurilor).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class LoadBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int locations; // Numărul de locații
+
+    private Path file; // Fișierul JSON sintetic
+
+    @Setup
+    public void setUp() {
+        file = BenchmarkData.dataset(locations);
+    }
+
+    @Benchmark
+    public List<GeoWeatherData> parseJson() throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return new WeatherJsonLoader().loadAll(reader);
+        }
+    }
+
+    // Fără instantaneu binar, deci încărcarea pornește întotdeauna din JSON
+    @Benchmark
+    public WeatherDataManager loadDatabase() {
+        return new WeatherDataManager(file.toString(), null);
+    }
+}
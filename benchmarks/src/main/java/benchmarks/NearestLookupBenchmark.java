@@ -0,0 +1,66 @@
+package benchmarks;
+
+import common.GeoWeatherData;
+import common.NearestStrategy;
+import common.WeatherDataManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Căutarea locației celei mai apropiate (findClosestLocation), pentru fiecare NearestStrategy.
+ * Cache-ul căutărilor nu este activ, deci fiecare apel parcurge indexul.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class NearestLookupBenchmark {
+    private static final double SEARCH_RADIUS_KM = 50; // Raza pentru căutarea limitată
+
+    @Param({"1000", "100000", "1000000"})
+    public int locations; // Numărul de locații
+
+    @Param({"TREE", "SCALAR", "VECTOR"})
+    public String nearest; // Modul de căutare
+
+    private WeatherDataManager manager; // Managerul încărcat din setul sintetic
+    private double[] latitudes; // Punctele de căutare
+    private double[] longitudes;
+
+    @Setup
+    public void setUp() {
+        manager = BenchmarkData.manager(locations);
+        manager.setNearestStrategy(NearestStrategy.parse(nearest));
+        double[][] points = BenchmarkData.queryPoints();
+        latitudes = points[0];
+        longitudes = points[1];
+    }
+
+    // Fără limită de distanță: întotdeauna se găsește o locație
+    @Benchmark
+    public Optional<GeoWeatherData> findClosestLocation(QueryCursor cursor) {
+        int i = cursor.next();
+        return manager.findClosestLocation(latitudes[i], longitudes[i]);
+    }
+
+    // Cu rază: pentru seturile mici, majoritatea cererilor nu găsesc nimic
+    @Benchmark
+    public Optional<GeoWeatherData> findClosestLocationWithinRadius(QueryCursor cursor) {
+        int i = cursor.next();
+        return manager.findClosestLocation(latitudes[i], longitudes[i], SEARCH_RADIUS_KM);
+    }
+}
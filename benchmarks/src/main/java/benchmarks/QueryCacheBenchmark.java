@@ -0,0 +1,64 @@
+package benchmarks;
+
+import common.QueryCache;
+import common.WeatherDataManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Răspunsul gata codificat al comenzii GET_WEATHER (getEncodedWeather), cu și fără cache-ul căutărilor.
+ * Punctele de căutare se repetă, deci cu cache activ aproape toate cererile sunt găsite în cache;
+ * benchmark-ul rulează pe mai multe fire pentru a include și contenția segmentelor cache-ului.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx4g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class QueryCacheBenchmark {
+    private static final double SEARCH_RADIUS_KM = 50; // Raza cererilor
+    private static final double CACHE_GRID_DEGREES = 0.001; // Aceleași valori ca valorile implicite ale serverului
+    private static final int CACHE_ENTRIES = 100_000;
+    private static final long CACHE_TTL_MILLIS = 300_000;
+
+    @Param({"100000"})
+    public int locations; // Numărul de locații
+
+    @Param({"false", "true"})
+    public boolean cache; // Cache-ul căutărilor este activ
+
+    private WeatherDataManager manager; // Managerul încărcat din setul sintetic
+    private double[] latitudes; // Punctele de căutare
+    private double[] longitudes;
+
+    @Setup
+    public void setUp() {
+        manager = BenchmarkData.manager(locations);
+        if (cache) {
+            manager.setQueryCache(new QueryCache(CACHE_GRID_DEGREES, CACHE_ENTRIES, CACHE_TTL_MILLIS));
+        }
+        double[][] points = BenchmarkData.queryPoints();
+        latitudes = points[0];
+        longitudes = points[1];
+    }
+
+    @Benchmark
+    public byte[] encodedWeather(QueryCursor cursor) {
+        int i = cursor.next();
+        return manager.getEncodedWeather(latitudes[i], longitudes[i], SEARCH_RADIUS_KM);
+    }
+}
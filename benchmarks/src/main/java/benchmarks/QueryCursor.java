@@ -0,0 +1,17 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Poziția curentă în cererile pregătite, separată pentru fiecare fir al benchmark-ului.
+ */
+@State(Scope.Thread)
+public class QueryCursor {
+    private int position; // Următoarea cerere
+
+    // Indexul următoarei cereri, parcurse circular
+    public int next() {
+        return position++ & BenchmarkData.QUERY_MASK;
+    }
+}
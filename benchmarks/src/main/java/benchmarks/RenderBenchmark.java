@@ -0,0 +1,71 @@
+package benchmarks;
+
+import common.DailyForecast;
+import common.GeoWeatherData;
+import common.WeatherDataManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatarea textului răspunsurilor: GeoWeatherData.toString (antetul și prognozele sortate)
+ * și DailyForecast.toString. Locațiile provin fie din obiecte construite direct (plain),
+ * fie din stocarea pe coloane a unui WeatherDataManager (columns), ca în răspunsurile serverului.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class RenderBenchmark {
+    private static final int LOCATION_COUNT = 1024; // Locațiile formatate, parcurse circular
+    private static final int LOCATION_MASK = LOCATION_COUNT - 1;
+
+    @Param({"plain", "columns"})
+    public String source; // Proveniența locațiilor
+
+    private GeoWeatherData[] locations; // Locațiile formatate
+    private DailyForecast[] forecasts; // Prima prognoză a fiecărei locații
+
+    @Setup
+    public void setUp() {
+        List<GeoWeatherData> list;
+        if ("columns".equals(source)) {
+            WeatherDataManager manager = BenchmarkData.manager(LOCATION_COUNT);
+            list = new ArrayList<>(LOCATION_COUNT);
+            for (int i = 0; i < LOCATION_COUNT; i++) {
+                list.add(manager.findLocationByCity(SyntheticDataset.cityName(i)).orElseThrow());
+            }
+        } else {
+            list = SyntheticDataset.locations(LOCATION_COUNT, SyntheticDataset.DEFAULT_FORECAST_DAYS, SyntheticDataset.DEFAULT_SEED);
+        }
+        locations = list.toArray(new GeoWeatherData[0]);
+        forecasts = new DailyForecast[LOCATION_COUNT];
+        for (int i = 0; i < LOCATION_COUNT; i++) {
+            forecasts[i] = locations[i].getWeatherList().get(0);
+        }
+    }
+
+    @Benchmark
+    public String geoWeatherDataToString(QueryCursor cursor) {
+        return locations[cursor.next() & LOCATION_MASK].toString();
+    }
+
+    @Benchmark
+    public String dailyForecastToString(QueryCursor cursor) {
+        return forecasts[cursor.next() & LOCATION_MASK].toString();
+    }
+}
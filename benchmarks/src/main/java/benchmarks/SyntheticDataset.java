@@ -0,0 +1,165 @@
+package benchmarks;
+
+import common.DailyForecast;
+import common.GeoWeatherData;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generator determinist de date meteo sintetice, în formatul fișierului JSON al serverului.
+ * Pentru aceiași parametri (număr de locații, zile de prognoză, seed) rezultatul este identic octet cu octet,
+ * deci rezultatele benchmark-urilor pot fi reproduse fără date externe. Locațiile sunt distribuite uniform
+ * pe sferă, iar numele orașelor sunt unice (CITY_PREFIX urmat de poziție).
+ */
+public final class SyntheticDataset {
+    public static final String CITY_PREFIX = "City-"; // Prefixul numelor de orașe
+    public static final long DEFAULT_SEED = 42; // Seed-ul implicit
+    public static final int DEFAULT_FORECAST_DAYS = 7; // Zile de prognoză implicite pentru fiecare locație
+    private static final String[] COUNTRIES = {"RO", "FR", "DE", "IT", "ES", "US", "BR", "JP", "IN", "AU", "ZA", "FJ"}; // Țări
+    private static final String[] CONDITIONS = {"Sunny", "Cloudy", "Rain", "Snow", "Windy", "Fog", "Storm"}; // Condiții meteo
+    private static final LocalDate FIRST_DATE = LocalDate.of(2025, 1, 1); // Data primei prognoze
+    private static final String USAGE = "Usage: SyntheticDataset <output.json> <locations> [forecastDays] [seed]"; // Mesaj de utilizare
+    private static final String WRITTEN_MESSAGE = "Wrote %d locations to %s%n"; // Mesaj după generare
+
+    private SyntheticDataset() {
+    }
+
+    /**
+     * O locație generată, înainte de a fi scrisă sau transformată în GeoWeatherData.
+     */
+    private record Location(String city, String country, double latitude, double longitude,
+                            String[] dates, String[] conditions, double[] temperatures) {
+    }
+
+    /**
+     * Scrie setul de date în format JSON.
+     * @param output Destinația.
+     * @param count Numărul de locații.
+     * @param forecastDays Zilele de prognoză pentru fiecare locație.
+     * @param seed Seed-ul generatorului.
+     */
+    public static void write(Writer output, int count, int forecastDays, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        String[] dates = dates(forecastDays);
+        StringBuilder record = new StringBuilder(256);
+        output.write('[');
+        for (int i = 0; i < count; i++) {
+            Location location = next(random, i, dates);
+            record.setLength(0);
+            if (i > 0) {
+                record.append(",\n");
+            }
+            record.append("{\"city\":\"").append(location.city())
+                    .append("\",\"country\":\"").append(location.country())
+                    .append("\",\"coordinates\":{\"latitude\":").append(location.latitude())
+                    .append(",\"longitude\":").append(location.longitude())
+                    .append("},\"forecast\":[");
+            for (int day = 0; day < forecastDays; day++) {
+                if (day > 0) {
+                    record.append(',');
+                }
+                record.append("{\"date\":\"").append(location.dates()[day])
+                        .append("\",\"condition\":\"").append(location.conditions()[day])
+                        .append("\",\"temperature\":").append(location.temperatures()[day]).append('}');
+            }
+            record.append("]}");
+            output.append(record);
+        }
+        output.write("]\n");
+    }
+
+    /**
+     * Scrie setul de date într-un fișier.
+     * @return Fișierul scris.
+     */
+    public static Path write(Path file, int count, int forecastDays, long seed) throws IOException {
+        try (Writer output = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(output, count, forecastDays, seed);
+        }
+        return file;
+    }
+
+    /**
+     * Scrie setul de date într-un fișier temporar, șters la oprirea JVM-ului.
+     * @return Fișierul temporar.
+     */
+    public static Path writeTemporary(int count, int forecastDays, long seed) throws IOException {
+        Path file = Files.createTempFile("pinkweather-" + count + "-", ".json");
+        file.toFile().deleteOnExit();
+        return write(file, count, forecastDays, seed);
+    }
+
+    /**
+     * Generează aceleași locații direct în memorie, fără JSON.
+     * @return Locațiile, în ordinea din fișier.
+     */
+    public static List<GeoWeatherData> locations(int count, int forecastDays, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        String[] dates = dates(forecastDays);
+        List<GeoWeatherData> locations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Location location = next(random, i, dates);
+            List<DailyForecast> forecasts = new ArrayList<>(forecastDays);
+            for (int day = 0; day < forecastDays; day++) {
+                forecasts.add(new DailyForecast(location.dates()[day], location.conditions()[day], location.temperatures()[day]));
+            }
+            locations.add(new GeoWeatherData(location.city(), location.country(),
+                    new GeoWeatherData.Coordinates(location.latitude(), location.longitude()), forecasts));
+        }
+        return locations;
+    }
+
+    // Numele orașului de pe poziția dată
+    public static String cityName(int index) {
+        return CITY_PREFIX + index;
+    }
+
+    // Datele prognozelor, începând cu FIRST_DATE
+    private static String[] dates(int forecastDays) {
+        String[] dates = new String[forecastDays];
+        for (int day = 0; day < forecastDays; day++) {
+            dates[day] = FIRST_DATE.plusDays(day).toString();
+        }
+        return dates;
+    }
+
+    // Generează locația de pe poziția dată; ordinea apelurilor random este aceeași pentru JSON și pentru memorie
+    private static Location next(SplittableRandom random, int index, String[] dates) {
+        double latitude = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1)); // Uniform pe sferă
+        double longitude = random.nextDouble(-180, 180);
+        latitude = Math.round(latitude * 1e5) / 1e5; // Cinci zecimale (aproximativ 1 m)
+        longitude = Math.round(longitude * 1e5) / 1e5;
+        String country = COUNTRIES[random.nextInt(COUNTRIES.length)];
+        String[] conditions = new String[dates.length];
+        double[] temperatures = new double[dates.length];
+        double base = 30 - Math.abs(latitude) * 0.6; // Mai cald la ecuator
+        for (int day = 0; day < dates.length; day++) {
+            conditions[day] = CONDITIONS[random.nextInt(CONDITIONS.length)];
+            temperatures[day] = Math.round((base + random.nextDouble(-8, 8)) * 10) / 10.0; // O zecimală, ca în datele reale
+        }
+        return new Location(cityName(index), country, latitude, longitude, dates, conditions, temperatures);
+    }
+
+    /**
+     * Scrie un set de date: SyntheticDataset output.json locații [zile de prognoză] [seed].
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        int count = Integer.parseInt(args[1]);
+        int forecastDays = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_FORECAST_DAYS;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+        Path file = write(Path.of(args[0]), count, forecastDays, seed);
+        System.out.printf(WRITTEN_MESSAGE, count, file);
+    }
+}
@@ -0,0 +1,139 @@
+package server;
+
+import benchmarks.BenchmarkData;
+import client.WeatherServerConnection;
+import common.WeatherDataManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cererea completă prin rețea, pe interfața loopback: ConnectionHandler rulează ca în server
+ * (câte un fir virtual pe conexiune), iar clientul este WeatherServerConnection (conexiune persistentă)
+ * sau un socket nou pentru fiecare cerere, ca în protocolul inițial.
+ * Se află în pachetul server pentru că ConnectionHandler nu este public.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class RoundTripBenchmark {
+    private static final String HOST = "127.0.0.1"; // Interfața loopback
+    private static final String ROLE_USER = "USER"; // Rolul clientului
+    private static final String SEARCH_RADIUS = "50"; // Raza cererilor GET_WEATHER, în kilometri
+    private static final int BACKLOG = 1024; // Conexiuni în așteptare la accept
+
+    @Param({"100000"})
+    public int locations; // Numărul de locații
+
+    private ServerSocket serverSocket; // Socket-ul serverului de test
+    private String[] cities; // Orașele cerute
+    private String[] latitudes; // Punctele de căutare, ca text
+    private String[] longitudes;
+
+    @Setup
+    public void setUp() throws IOException {
+        WeatherDataManager manager = BenchmarkData.manager(locations);
+        ServerMetrics metrics = new ServerMetrics();
+        serverSocket = new ServerSocket(0, BACKLOG, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Thread.ofVirtual().start(new ConnectionHandler(serverSocket.accept(), manager, metrics));
+                } catch (IOException e) {
+                    return; // Socket-ul serverului a fost închis
+                }
+            }
+        }, "benchmark-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        cities = BenchmarkData.cityNames(locations);
+        double[][] points = BenchmarkData.queryPoints();
+        latitudes = new String[points[0].length];
+        longitudes = new String[points[1].length];
+        for (int i = 0; i < latitudes.length; i++) {
+            latitudes[i] = Double.toString(points[0][i]);
+            longitudes[i] = Double.toString(points[1][i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        serverSocket.close();
+    }
+
+    /**
+     * Conexiunea persistentă a fiecărui fir al benchmark-ului.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        private WeatherServerConnection connection; // Conexiunea persistentă
+        private int position; // Următoarea cerere
+
+        @Setup(Level.Trial)
+        public void connect(RoundTripBenchmark benchmark) throws IOException {
+            connection = new WeatherServerConnection(HOST, benchmark.serverSocket.getLocalPort(), ROLE_USER);
+        }
+
+        @TearDown(Level.Trial)
+        public void disconnect() throws IOException {
+            connection.close();
+        }
+
+        int next() {
+            return position++ & BenchmarkData.QUERY_MASK;
+        }
+    }
+
+    @Benchmark
+    public List<String> persistentCity(Client client) throws IOException {
+        return client.connection.request("GET_WEATHER_BY_CITY", cities[client.next()]);
+    }
+
+    @Benchmark
+    public List<String> persistentCoordinates(Client client) throws IOException {
+        int i = client.next();
+        return client.connection.request("GET_WEATHER", latitudes[i], longitudes[i], SEARCH_RADIUS);
+    }
+
+    // O conexiune nouă pentru fiecare cerere: include conectarea TCP și închiderea
+    @Benchmark
+    public int connectionPerRequest(Client client) throws IOException {
+        String request = ROLE_USER + '\n' + "GET_WEATHER_BY_CITY" + '\n' + cities[client.next()] + '\n';
+        try (Socket socket = new Socket(HOST, serverSocket.getLocalPort())) {
+            OutputStream output = socket.getOutputStream();
+            output.write(request.getBytes(StandardCharsets.UTF_8));
+            output.flush();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            int lines = 0;
+            while (reader.readLine() != null) {
+                lines++;
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testează codificarea binară a unei locații și a cursorului de paginare: ce se scrie se citește înapoi la fel.
+ */
+class BinaryWeatherCodecTest {
+
+    @Test
+    void locationRoundTrip() throws IOException {
+        GeoWeatherData location = new GeoWeatherData("Cluj", "RO", new GeoWeatherData.Coordinates(46.77, 23.59), List.of(
+                new DailyForecast("2024-01-02", "Sunny", 1.15f),
+                new DailyForecast("tomorrow", "Sunny", -3),
+                new DailyForecast("1969-12-31", "Partly Cloudy", 2),
+                new DailyForecast("2500-01-01", "Hail", -0.35f)));
+        BinaryWeatherCodec.FrameBuilder frame = new BinaryWeatherCodec.FrameBuilder();
+        BinaryWeatherCodec.writeLocation(frame.data(), location);
+        ByteBuffer buffer = ByteBuffer.wrap(frame.toByteArray());
+        BinaryWeatherCodec.LocationView view = new BinaryWeatherCodec.LocationView(buffer);
+
+        assertEquals(0, buffer.remaining());
+        assertEquals("Cluj", view.city());
+        assertEquals("RO", view.country());
+        assertEquals(46.77, view.latitude(), 1e-6);
+        assertEquals(23.59, view.longitude(), 1e-6);
+        assertEquals(location.getWeatherList().size(), view.forecastCount());
+        for (int i = 0; i < view.forecastCount(); i++) {
+            DailyForecast forecast = location.getWeatherList().get(i);
+            assertEquals(forecast.getDate(), view.date(i));
+            assertEquals(forecast.getCondition(), view.condition(i));
+            assertEquals(DailyForecast.toTenths((float) forecast.getTemperature()) / 10f, view.temperature(i));
+        }
+    }
+
+    @Test
+    void cursorRoundTrip() throws IOException {
+        for (BinaryWeatherCodec.Cursor cursor : List.of(BinaryWeatherCodec.Cursor.START,
+                new BinaryWeatherCodec.Cursor(40, 0.0123456789, 17))) {
+            BinaryWeatherCodec.FrameBuilder frame = new BinaryWeatherCodec.FrameBuilder();
+            cursor.writeTo(frame.data());
+            ByteBuffer buffer = ByteBuffer.wrap(frame.toByteArray());
+            assertEquals(cursor, BinaryWeatherCodec.Cursor.read(buffer));
+            assertEquals(0, buffer.remaining());
+        }
+        assertFalse(BinaryWeatherCodec.Cursor.START.hasKey());
+        assertTrue(new BinaryWeatherCodec.Cursor(40, 0.5, 0).hasKey());
+    }
+}
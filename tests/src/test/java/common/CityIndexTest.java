@@ -0,0 +1,47 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testează indexul orașelor construit incremental: găsește mereu primul rând cu cheia dată, ca un HashMap
+ * completat cu putIfAbsent.
+ */
+class CityIndexTest {
+
+    @Test
+    void incrementalIndexFindsFirstRow() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 100; trial++) {
+            List<String> keys = new ArrayList<>();
+            IntFunction<String> keyOf = keys::get;
+            Map<String, Integer> expected = new HashMap<>();
+            CityIndex index = CityIndex.empty();
+            int steps = 1 + random.nextInt(30);
+            for (int step = 0; step < steps; step++) {
+                int from = keys.size();
+                int added = step == 0 ? random.nextInt(2000) : random.nextInt(random.nextBoolean() ? 20 : 400);
+                for (int i = 0; i < added; i++) {
+                    String key = random.nextInt(10) == 0 ? null : "k" + random.nextInt(5000);
+                    keys.add(key);
+                    if (key != null) {
+                        expected.putIfAbsent(key, from + i);
+                    }
+                }
+                index = index.withRows(from, keys.size(), keyOf);
+                for (int query = 0; query < 200; query++) {
+                    String key = "k" + random.nextInt(5200);
+                    assertEquals(expected.getOrDefault(key, -1), index.find(key, keyOf), key);
+                }
+            }
+        }
+    }
+}
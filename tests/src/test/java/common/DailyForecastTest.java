@@ -0,0 +1,42 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testează rotunjirea temperaturii la zecimi: textul și valoarea binară trebuie să dea același rezultat ca
+ * "%.1f" aplicat zecimalei din sursă (jumătatea departe de zero).
+ */
+class DailyForecastTest {
+
+    @Test
+    void tenthsMatchDecimalRounding() {
+        for (int scale = 1; scale <= 3; scale++) {
+            int limit = scale == 3 ? 100_000 : 90_000;
+            for (int unscaled = -limit; unscaled <= limit; unscaled++) {
+                BigDecimal decimal = BigDecimal.valueOf(unscaled, scale);
+                double value = decimal.doubleValue();
+                int expected = decimal.setScale(1, RoundingMode.HALF_UP).unscaledValue().intValueExact();
+                assertEquals(expected, DailyForecast.toTenths((float) value), decimal::toPlainString);
+                assertEquals(expectedText(value), new DailyForecast("d", "c", (float) value).toString(),
+                        decimal::toPlainString);
+            }
+        }
+    }
+
+    @Test
+    void negativeZeroKeepsItsSign() {
+        for (double value : new double[]{-0.0, -0.04, -0.05, 0.05, -0.049, 0.0}) {
+            assertEquals(expectedText(value), new DailyForecast("d", "c", (float) value).toString());
+        }
+    }
+
+    // Textul așteptat, formatat din valoarea zecimală a sursei
+    private static String expectedText(double value) {
+        return "d: c, " + String.format("%.1f°C", value);
+    }
+}
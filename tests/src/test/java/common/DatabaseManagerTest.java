@@ -0,0 +1,103 @@
+package common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testează DatabaseManager pe o bază H2 în memorie (modul PostgreSQL): crearea tabelului, scrierea în loturi
+ * prin coada de scriere, actualizarea rândului existent al unui client și migrarea tabelului vechi, fără client_id.
+ */
+class DatabaseManagerTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger(); // Fiecare test are propria bază
+    private static final long FLUSH_TIMEOUT_MILLIS = 5_000; // Cât se așteaptă scrierea cozii
+
+    private String url; // URL-ul bazei testului curent
+
+    @BeforeEach
+    void configure() {
+        url = "jdbc:h2:mem:weather" + DATABASES.incrementAndGet() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+        System.setProperty("pinkweather.db.url", url);
+        System.setProperty("pinkweather.db.user", "sa");
+        System.setProperty("pinkweather.db.password", "");
+        System.setProperty("pinkweather.db.clientId", "alice");
+    }
+
+    @AfterEach
+    void clear() {
+        System.clearProperty("pinkweather.db.url");
+        System.clearProperty("pinkweather.db.user");
+        System.clearProperty("pinkweather.db.password");
+        System.clearProperty("pinkweather.db.clientId");
+    }
+
+    @Test
+    void savedLocationIsReadBackFromTheDatabase() {
+        try (DatabaseManager manager = new DatabaseManager()) {
+            manager.saveOrUpdateLocation("Cluj", 46.77, 23.59);
+            assertTrue(manager.flush(FLUSH_TIMEOUT_MILLIS));
+        }
+        try (DatabaseManager manager = new DatabaseManager()) {
+            assertEquals("Cluj (46.77, 23.59)", manager.getCurrentLocation());
+        }
+    }
+
+    @Test
+    void laterSaveUpdatesTheClientRow() throws SQLException {
+        try (DatabaseManager manager = new DatabaseManager()) {
+            manager.saveOrUpdateLocation("Cluj", 46.77, 23.59);
+            assertTrue(manager.flush(FLUSH_TIMEOUT_MILLIS));
+            manager.saveOrUpdateLocation("Iasi", 47.16, 27.58);
+            manager.saveOrUpdateLocation("bob", "Arad", 46.18, 21.31);
+            assertTrue(manager.flush(FLUSH_TIMEOUT_MILLIS));
+        }
+        assertEquals(2, count("SELECT COUNT(*) FROM client_location"));
+        assertEquals(1, count("SELECT COUNT(*) FROM client_location WHERE client_id = 'alice' AND city = 'Iasi'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM client_location WHERE client_id = 'bob' AND city = 'Arad'"));
+    }
+
+    @Test
+    void legacyRowBecomesTheClientLocation() throws SQLException {
+        execute("CREATE TABLE client_location (id SERIAL PRIMARY KEY, city TEXT NOT NULL,"
+                + " latitude DOUBLE PRECISION NOT NULL, longitude DOUBLE PRECISION NOT NULL)");
+        execute("INSERT INTO client_location(city, latitude, longitude) VALUES('Sibiu', 45.79, 24.15)");
+        execute("INSERT INTO client_location(city, latitude, longitude) VALUES('Brasov', 45.65, 25.6)");
+
+        try (DatabaseManager manager = new DatabaseManager()) {
+            assertEquals("Brasov (45.65, 25.6)", manager.getCurrentLocation()); // Cel mai nou rând vechi
+        }
+        assertEquals(0, count("SELECT COUNT(*) FROM client_location WHERE client_id IS NULL"));
+
+        try (DatabaseManager manager = new DatabaseManager()) { // O nouă pornire nu mai schimbă nimic
+            manager.saveOrUpdateLocation("Oradea", 47.05, 21.92);
+            assertTrue(manager.flush(FLUSH_TIMEOUT_MILLIS));
+        }
+        assertEquals(1, count("SELECT COUNT(*) FROM client_location"));
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private long count(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testează paginarea cu cheie a indexului spațial: paginile concatenate dau aceleași locații, în aceeași ordine,
+ * ca withinRadius/kNearest sortate după distanță și apoi după rândul sursă, inclusiv pentru coordonate duplicate.
+ */
+class GeoSpatialIndexTest {
+
+    @Test
+    void pagesMatchSortedResults() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 200; trial++) {
+            List<GeoWeatherData> locations = randomLocations(random, 1 + random.nextInt(3000));
+            Map<GeoWeatherData, Integer> rows = new IdentityHashMap<>();
+            for (int i = 0; i < locations.size(); i++) {
+                rows.put(locations.get(i), i);
+            }
+            GeoSpatialIndex index = new GeoSpatialIndex(locations);
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            double radius = random.nextBoolean() ? Double.POSITIVE_INFINITY : random.nextDouble() * 8000;
+
+            List<GeoSpatialIndex.Neighbor> all = Double.isInfinite(radius)
+                    ? index.kNearest(latitude, longitude, locations.size())
+                    : index.withinRadius(latitude, longitude, radius);
+            if (!Double.isInfinite(radius)) {
+                assertEquals(all.size(), index.countWithin(latitude, longitude, radius));
+            }
+            List<Integer> expected = all.stream()
+                    .sorted(Comparator.comparingDouble(GeoSpatialIndex.Neighbor::distanceKm)
+                            .thenComparing(neighbor -> rows.get(neighbor.location())))
+                    .map(neighbor -> rows.get(neighbor.location()))
+                    .toList();
+
+            int limit = 1 + random.nextInt(50);
+            List<Integer> paged = new ArrayList<>();
+            GeoSpatialIndex.PageKey after = null;
+            while (true) {
+                GeoSpatialIndex.Page page = index.page(latitude, longitude, radius, after, limit);
+                if (page.neighbors().isEmpty()) {
+                    break;
+                }
+                page.neighbors().forEach(neighbor -> paged.add(rows.get(neighbor.location())));
+                after = page.last();
+            }
+            assertEquals(expected, paged, "trial " + trial);
+        }
+    }
+
+    // Locații aleatoare; unele repetă latitudinea sau coordonatele unei locații anterioare
+    private static List<GeoWeatherData> randomLocations(Random random, int count) {
+        List<GeoWeatherData> locations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double latitude = i > 0 && random.nextInt(4) == 0
+                    ? locations.get(random.nextInt(i)).getLatitude() : random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            if (i > 0 && random.nextInt(5) == 0) {
+                latitude = locations.get(i - 1).getLatitude();
+                longitude = locations.get(i - 1).getLongitude();
+            }
+            locations.add(new GeoWeatherData("c" + i, "X", new GeoWeatherData.Coordinates(latitude, longitude), List.of()));
+        }
+        return locations;
+    }
+}
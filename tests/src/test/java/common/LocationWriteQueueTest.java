@@ -0,0 +1,96 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testează coada de scriere a locațiilor: comasarea actualizărilor aceluiași client, loturile,
+ * reîncercarea unui lot eșuat fără a suprascrie o actualizare mai nouă și refuzul după închidere.
+ */
+class LocationWriteQueueTest {
+    private static final long LONG_FLUSH_MILLIS = 60_000; // Loturile pleacă doar la flush() sau când sunt pline
+    private static final long TIMEOUT_MILLIS = 5_000; // Cât așteaptă testele scrierea
+
+    private final List<LocationWriteQueue.PendingLocation> written =
+            Collections.synchronizedList(new ArrayList<>()); // Locațiile scrise, în ordine
+
+    @Test
+    void repeatedUpdatesAreCoalesced() {
+        LocationWriteQueue queue = new LocationWriteQueue(written::addAll, 10, LONG_FLUSH_MILLIS, 100, 0);
+        assertTrue(queue.submit(location("a", "Cluj")));
+        assertTrue(queue.submit(location("b", "Iasi")));
+        assertTrue(queue.submit(location("a", "Arad")));
+        assertEquals("Arad", queue.pending("a").city());
+
+        assertTrue(queue.flush(TIMEOUT_MILLIS));
+
+        assertEquals(List.of(location("a", "Arad"), location("b", "Iasi")), written);
+        LocationWriteQueue.Stats stats = queue.stats();
+        assertEquals(3, stats.submitted());
+        assertEquals(1, stats.coalesced());
+        assertEquals(2, stats.written());
+        assertEquals(0, stats.queueDepth());
+        assertEquals(0, queue.close(TIMEOUT_MILLIS));
+    }
+
+    @Test
+    void fullBatchIsWrittenWithoutFlush() throws InterruptedException {
+        LocationWriteQueue queue = new LocationWriteQueue(written::addAll, 2, LONG_FLUSH_MILLIS, 100, 0);
+        queue.submit(location("a", "Cluj"));
+        queue.submit(location("b", "Iasi"));
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (written.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, written.size());
+        assertEquals(1, queue.stats().batches());
+        queue.close(TIMEOUT_MILLIS);
+    }
+
+    @Test
+    void failedBatchIsRetriedWithoutOverwritingNewerUpdate() {
+        AtomicInteger attempts = new AtomicInteger();
+        LocationWriteQueue[] queue = new LocationWriteQueue[1];
+        LocationWriteQueue.BatchWriter writer = batch -> {
+            if (attempts.getAndIncrement() == 0) {
+                queue[0].submit(location("a", "Arad")); // Sosește în timp ce lotul vechi eșuează
+                throw new SQLException("down");
+            }
+            written.addAll(batch);
+        };
+        queue[0] = new LocationWriteQueue(writer, 10, LONG_FLUSH_MILLIS, 100, 0);
+        queue[0].submit(location("a", "Cluj"));
+        queue[0].submit(location("b", "Iasi"));
+
+        assertTrue(queue[0].flush(TIMEOUT_MILLIS));
+
+        assertEquals(List.of(location("a", "Arad"), location("b", "Iasi")), written);
+        assertEquals(1, queue[0].stats().failures());
+        queue[0].close(TIMEOUT_MILLIS);
+    }
+
+    @Test
+    void closedQueueRejectsLocations() {
+        LocationWriteQueue queue = new LocationWriteQueue(written::addAll, 10, LONG_FLUSH_MILLIS, 100, 0);
+        queue.submit(location("a", "Cluj"));
+        assertEquals(0, queue.close(TIMEOUT_MILLIS));
+
+        assertFalse(queue.submit(location("b", "Iasi")));
+        assertEquals(List.of(location("a", "Cluj")), written);
+        assertEquals(1, queue.stats().rejected());
+    }
+
+    // O locație oarecare a clientului dat
+    private static LocationWriteQueue.PendingLocation location(String clientId, String city) {
+        return new LocationWriteQueue.PendingLocation(clientId, city, 45.0, 25.0);
+    }
+}
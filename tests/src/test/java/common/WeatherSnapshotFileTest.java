@@ -0,0 +1,93 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testează fișierul instantaneului: scrierea și citirea înapoi, respingerea unui fișier corupt sau vechi
+ * și lipsa fișierelor temporare rămase după scriere.
+ */
+class WeatherSnapshotFileTest {
+    @TempDir
+    Path directory; // Directorul testului
+
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        Path source = source();
+        Path snapshot = directory.resolve("weather.snapshot");
+        List<GeoWeatherData> locations = locations();
+
+        assertTrue(WeatherSnapshotFile.write(snapshot, source, locations));
+        List<GeoWeatherData> read = WeatherSnapshotFile.read(snapshot, source).orElseThrow();
+
+        assertEquals(locations.size(), read.size());
+        for (int i = 0; i < locations.size(); i++) {
+            assertEquals(describe(locations.get(i)), describe(read.get(i)));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.filter(file -> file.toString().endsWith(".tmp")).count());
+        }
+    }
+
+    @Test
+    void corruptSnapshotIsRejected() throws IOException {
+        Path source = source();
+        Path snapshot = directory.resolve("weather.snapshot");
+        assertTrue(WeatherSnapshotFile.write(snapshot, source, locations()));
+
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot, bytes);
+
+        assertTrue(WeatherSnapshotFile.read(snapshot, source).isEmpty());
+    }
+
+    @Test
+    void staleSnapshotIsRejected() throws IOException {
+        Path source = source();
+        Path snapshot = directory.resolve("weather.snapshot");
+        assertTrue(WeatherSnapshotFile.write(snapshot, source, locations()));
+
+        Files.writeString(source, "[ ]"); // Sursa s-a schimbat după scriere
+
+        assertTrue(WeatherSnapshotFile.read(snapshot, source).isEmpty());
+    }
+
+    // Fișierul JSON sursă; instantaneul reține doar dimensiunea și data lui
+    private Path source() throws IOException {
+        return Files.writeString(directory.resolve("data.json"), "[]");
+    }
+
+    // Locații obișnuite și una cu date, condiții și țară lipsă sau neobișnuite
+    private static List<GeoWeatherData> locations() {
+        List<GeoWeatherData> locations = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            locations.add(new GeoWeatherData("City" + i, i % 3 == 0 ? "RO" : "MD",
+                    new GeoWeatherData.Coordinates(i * 0.17 - 45, i * 0.31 - 90), List.of(
+                    new DailyForecast("2024-01-0" + (1 + i % 9), "Sunny", i * 0.1),
+                    new DailyForecast("2024-02-10", i % 2 == 0 ? "Cloudy" : "Hail", -i * 0.05))));
+        }
+        locations.add(new GeoWeatherData("Odd", null, new GeoWeatherData.Coordinates(1, 2), List.of(
+                new DailyForecast("tomorrow", null, 1.15),
+                new DailyForecast(null, "x", 2),
+                new DailyForecast("2024-02-30", "y", 3),
+                new DailyForecast("2024-01-01", "Sunny", -0.35))));
+        return WeatherColumns.of(locations).locations();
+    }
+
+    // Toate câmpurile unei locații, pentru comparare
+    private static String describe(GeoWeatherData location) {
+        return location.getCity() + "|" + location.getCountry() + "|" + location.getLatitude() + "|"
+                + location.getLongitude() + "|" + location.getWeatherList();
+    }
+}
@@ -0,0 +1,67 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Testează aplicarea incrementală a actualizărilor (diff + withDelta): răspunsurile pregătite ale noii versiuni sunt
+ * identice cu cele ale unui instantaneu construit de la zero, iar versiunea veche rămâne neschimbată.
+ */
+class WeatherSnapshotTest {
+
+    @Test
+    void deltaMatchesFreshSnapshot() {
+        Random random = new Random(2);
+        List<GeoWeatherData> base = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            base.add(location("City" + i, random, i));
+        }
+        WeatherSnapshot snapshot = WeatherSnapshot.of(base);
+        int added = 0;
+        for (int step = 0; step < 10; step++) {
+            WeatherSnapshot before = snapshot;
+            Map<String, byte[]> beforeReplies = new HashMap<>();
+            List<GeoWeatherData> incoming = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                GeoWeatherData current = before.locations().get(random.nextInt(before.locations().size()));
+                List<DailyForecast> forecasts = new ArrayList<>();
+                for (DailyForecast forecast : current.getWeatherList()) {
+                    forecasts.add(new DailyForecast(forecast.getDate(), forecast.getCondition(), forecast.getTemperature() + 1));
+                }
+                incoming.add(new GeoWeatherData(current.getCity(), current.getCountry(),
+                        new GeoWeatherData.Coordinates(current.getLatitude(), current.getLongitude()), forecasts));
+                beforeReplies.put(current.getCity(), before.cityReplyBody(current.getCity()));
+            }
+            for (int i = 0; i < 50; i++) {
+                incoming.add(location("New" + added++, random, i));
+            }
+
+            snapshot = before.withDelta(before.diff(incoming));
+            WeatherSnapshot fresh = WeatherSnapshot.of(new ArrayList<>(snapshot.locations()));
+            for (int row = 0; row < snapshot.locations().size(); row++) {
+                GeoWeatherData location = snapshot.locations().get(row);
+                assertArrayEquals(fresh.cityReplyBody(location.getCity()), snapshot.cityReplyBody(location.getCity()));
+                assertArrayEquals(fresh.closestReply(fresh.locations().get(row)), snapshot.closestReply(location));
+            }
+            for (Map.Entry<String, byte[]> reply : beforeReplies.entrySet()) {
+                assertArrayEquals(reply.getValue(), before.cityReplyBody(reply.getKey()));
+            }
+        }
+    }
+
+    // O locație aleatoare cu trei zile de prognoză
+    private static GeoWeatherData location(String city, Random random, int temperature) {
+        return new GeoWeatherData(city, "RO",
+                new GeoWeatherData.Coordinates(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180), List.of(
+                new DailyForecast("2024-01-01", "Sunny", temperature),
+                new DailyForecast("2024-01-02", "Cloudy", temperature - 0.5),
+                new DailyForecast("2024-01-03", "Rainy", temperature + 1.25)));
+    }
+}